@@ -0,0 +1,106 @@
+package com.example.ecommerce.benchmarks;
+
+import com.example.ecommerce.dto.CartDTO;
+import com.example.ecommerce.dto.OrderDTO;
+import com.example.ecommerce.dto.OrderMapper;
+import com.example.ecommerce.dto.ProductDTO;
+import com.example.ecommerce.dto.ProductMapper;
+import com.example.ecommerce.entity.Cart;
+import com.example.ecommerce.entity.Order;
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.service.OrderService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+// Entity to DTO mapping on the order and cart endpoints, per number of line items.
+// OrderService.convertToDTO (setters, used after writes) is private and is called
+// through a method handle; OrderMapper (constructors) serves the read paths.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DtoMappingBenchmark {
+
+    private static final MethodHandle CONVERT_TO_DTO;
+
+    static {
+        try {
+            CONVERT_TO_DTO = MethodHandles.privateLookupIn(OrderService.class, MethodHandles.lookup())
+                    .findVirtual(OrderService.class, "convertToDTO", MethodType.methodType(OrderDTO.class, Order.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // Line items per order and cart; the product benchmark does not take this state
+    @State(Scope.Benchmark)
+    public static class LineItems {
+
+        @Param({"1", "10", "50"})
+        public int items;
+
+        private Order order;
+        private Cart cart;
+
+        @Setup
+        public void setUp() {
+            order = SampleData.order(items);
+            cart = SampleData.cart(items);
+        }
+    }
+
+    private ProductMapper productMapper;
+    private OrderMapper orderMapper;
+    private OrderService orderService;
+    private Product product;
+
+    @Setup
+    public void setUp() throws Exception {
+        productMapper = new ProductMapper();
+        orderMapper = new OrderMapper(productMapper);
+        // Only the mapper is needed for convertToDTO; the other collaborators stay null
+        orderService = new OrderService();
+        Field field = OrderService.class.getDeclaredField("productMapper");
+        field.setAccessible(true);
+        field.set(orderService, productMapper);
+        product = SampleData.product(1);
+    }
+
+    @Benchmark
+    public OrderDTO orderServiceConvertToDTO(LineItems lineItems) throws Throwable {
+        return (OrderDTO) CONVERT_TO_DTO.invokeExact(orderService, lineItems.order);
+    }
+
+    @Benchmark
+    public OrderDTO orderMapperToDTO(LineItems lineItems) {
+        return orderMapper.toDTO(lineItems.order);
+    }
+
+    @Benchmark
+    public CartDTO cartDTO(LineItems lineItems) {
+        return new CartDTO(lineItems.cart);
+    }
+
+    // One product per call, as for every row of the catalog endpoint
+    @Benchmark
+    public ProductDTO productMapperToDTO() {
+        return productMapper.toDTO(product);
+    }
+}
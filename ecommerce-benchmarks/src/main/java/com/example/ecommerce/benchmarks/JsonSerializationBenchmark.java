@@ -0,0 +1,69 @@
+package com.example.ecommerce.benchmarks;
+
+import com.example.ecommerce.dto.CartDTO;
+import com.example.ecommerce.dto.OrderDTO;
+import com.example.ecommerce.dto.OrderItemDTO;
+import com.example.ecommerce.dto.OrderMapper;
+import com.example.ecommerce.dto.ProductMapper;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Response body serialization for orders and carts, and the order read model's item
+// JSON, with an ObjectMapper configured the way Spring MVC builds its default one.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+
+    private static final TypeReference<List<OrderItemDTO>> ITEM_LIST = new TypeReference<>() {};
+
+    @Param({"1", "10", "50"})
+    public int items;
+
+    private ObjectMapper objectMapper;
+    private OrderDTO order;
+    private CartDTO cart;
+    private String itemsJson;
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        order = new OrderMapper(new ProductMapper()).toDTO(SampleData.order(items));
+        cart = new CartDTO(SampleData.cart(items));
+        itemsJson = objectMapper.writeValueAsString(order.getOrderItems());
+    }
+
+    @Benchmark
+    public byte[] writeOrderDTO() throws Exception {
+        return objectMapper.writeValueAsBytes(order);
+    }
+
+    @Benchmark
+    public byte[] writeCartDTO() throws Exception {
+        return objectMapper.writeValueAsBytes(cart);
+    }
+
+    // Order history reads the line items back from order_views.items_json
+    @Benchmark
+    public List<OrderItemDTO> readOrderViewItems() throws Exception {
+        return objectMapper.readValue(itemsJson, ITEM_LIST);
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.ecommerce.benchmarks;
+
+import com.example.ecommerce.entity.User;
+import com.example.ecommerce.service.JwtKeyRing;
+import com.example.ecommerce.service.JwtService;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+// Token issue (login/refresh) and verification (every authenticated request).
+// verifyUncached has the claims cache disabled, so each call checks the HMAC and
+// parses the JSON; verifyCached is the steady state for a client reusing its token.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class JwtBenchmark {
+
+    private JwtService uncached;
+    private JwtService cached;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        String keys = "k1:" + Base64.getEncoder().encodeToString(key);
+        uncached = new JwtService(new JwtKeyRing(keys, "", ""), 0);
+        cached = new JwtService(new JwtKeyRing(keys, "", ""), 10_000);
+        user = SampleData.user();
+        token = uncached.generateAccessToken(user);
+        cached.verify(token);
+    }
+
+    @Benchmark
+    public String generateAccessToken() {
+        return uncached.generateAccessToken(user);
+    }
+
+    @Benchmark
+    public Claims verifyUncached() {
+        return uncached.verify(token);
+    }
+
+    @Benchmark
+    public Claims verifyCached() {
+        return cached.verify(token);
+    }
+}
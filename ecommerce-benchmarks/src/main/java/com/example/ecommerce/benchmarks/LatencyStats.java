@@ -0,0 +1,65 @@
+package com.example.ecommerce.benchmarks;
+
+import java.util.Arrays;
+
+// Client-side latencies and outcomes of one endpoint or step. Not thread-safe: each
+// simulated client keeps its own and they are merged once the run is over.
+final class LatencyStats {
+
+    private long[] latencies = new long[1024];
+    private int count;
+    private long errors;
+    private long shed;
+    private boolean sorted;
+
+    // status 0 means no response at all (connection error or timeout)
+    void record(long nanos, int status) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = nanos;
+        sorted = false;
+        if (status == 429) {
+            shed++;
+        } else if (status / 100 != 2) {
+            errors++;
+        }
+    }
+
+    void addAll(LatencyStats other) {
+        for (int i = 0; i < other.count; i++) {
+            record(other.latencies[i], 200);
+        }
+        errors += other.errors;
+        shed += other.shed;
+    }
+
+    long count() {
+        return count;
+    }
+
+    long errors() {
+        return errors;
+    }
+
+    long shed() {
+        return shed;
+    }
+
+    // Errors and shed requests as a percentage of all requests
+    double errorRate() {
+        return count == 0 ? 0 : 100.0 * (errors + shed) / count;
+    }
+
+    double percentileMillis(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        if (!sorted) {
+            Arrays.sort(latencies, 0, count);
+            sorted = true;
+        }
+        int index = (int) Math.ceil(percentile / 100 * count) - 1;
+        return latencies[Math.max(0, index)] / 1_000_000.0;
+    }
+}
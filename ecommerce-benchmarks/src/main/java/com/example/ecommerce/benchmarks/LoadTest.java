@@ -0,0 +1,263 @@
+package com.example.ecommerce.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// End-to-end load test of the shopping journey. By default it boots the backend in
+// this JVM with the loadtest profile (H2, stub Cloudinary) and a StubRazorpayServer,
+// so nothing else has to run. Each simulated user registers, then repeats
+// browse -> add-to-cart -> checkout -> payment -> verify with a think time between
+// steps. Verification is signed with the Razorpay key secret the way Razorpay's
+// checkout would sign it, so orders really become PAID. Prints requests, throughput,
+// error rate and latency percentiles per step after a warmup and a measured period.
+//
+//   mvn -q exec:java -Dexec.mainClass=com.example.ecommerce.benchmarks.LoadTest -Dexec.args="--users=200 --seconds=60"
+//
+// Options (defaults): --users=100 --warmup-seconds=10 --seconds=60 --think-ms=100
+// --products=100 --gateway-latency-ms=100 --seed=42 --out=<csv file>
+// --serve: only start the backend and the stubs, print their URLs and keep running.
+// --base-url=http://host:port: drive a backend that is already running instead (it
+// must use the same razorpay.key.secret, given with --razorpay-secret=loadtest-secret).
+public class LoadTest {
+
+    private static final String[] STEPS = { "browse", "add-to-cart", "checkout", "payment", "verify" };
+    private static final String RAZORPAY_SECRET = "loadtest-secret";
+
+    private final Map<String, String> options;
+
+    private LoadTest(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] pair = arg.replaceFirst("^--", "").split("=", 2);
+            options.put(pair[0], pair.length > 1 ? pair[1] : "true");
+        }
+        new LoadTest(options).run();
+    }
+
+    private void run() throws Exception {
+        String baseUrl = options.get("base-url");
+        if (baseUrl != null) {
+            ShopClient client = new ShopClient(baseUrl);
+            List<Integer> productIds = new ArrayList<>();
+            client.json(client.send("GET", "/api/products", null, null)).forEach(product -> productIds.add(product.path("id").asInt()));
+            if (productIds.isEmpty()) {
+                throw new IllegalStateException("No products at " + baseUrl + "/api/products to shop for");
+            }
+            report(drive(client, productIds, option("razorpay-secret", RAZORPAY_SECRET)));
+            return;
+        }
+        try (StubRazorpayServer razorpay = StubRazorpayServer.start(longOption("gateway-latency-ms", 100));
+             ConfigurableApplicationContext context = LoadTestConfig.start(razorpay.baseUrl(), List.of())) {
+            List<Integer> productIds = LoadTestConfig.seedProducts(context, intOption("products", 100));
+            ShopClient client = new ShopClient(LoadTestConfig.baseUrl(context));
+            if (options.containsKey("serve")) {
+                System.out.printf("Backend %s (profile %s, %d products), stub Razorpay %s. Ctrl+C to stop.%n",
+                        client.baseUrl(), LoadTestConfig.PROFILE, productIds.size(), razorpay.baseUrl());
+                new CountDownLatch(1).await();
+            }
+            report(drive(client, productIds, RAZORPAY_SECRET));
+        }
+    }
+
+    private Run drive(ShopClient client, List<Integer> productIds, String razorpaySecret) throws Exception {
+        List<ShopClient.Shopper> users = registerUsers(client, intOption("users", 100));
+        long seed = longOption("seed", 42);
+        long thinkMillis = longOption("think-ms", 100);
+        journeys(client, users, productIds, razorpaySecret, thinkMillis, seed, longOption("warmup-seconds", 10));
+        long seconds = longOption("seconds", 60);
+        return new Run(users.size(), seconds,
+                journeys(client, users, productIds, razorpaySecret, thinkMillis, seed + 1, seconds));
+    }
+
+    private static List<ShopClient.Shopper> registerUsers(ShopClient client, int count) throws Exception {
+        String prefix = "load-" + Long.toString(System.currentTimeMillis(), 36) + "-";
+        try (ExecutorService executor = Executors.newFixedThreadPool(16)) {
+            List<Future<ShopClient.Shopper>> pending = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                String username = prefix + i;
+                pending.add(executor.submit(() -> client.register(username)));
+            }
+            List<ShopClient.Shopper> users = new ArrayList<>();
+            for (Future<ShopClient.Shopper> user : pending) {
+                users.add(user.get());
+            }
+            return users;
+        }
+    }
+
+    // Every user runs its journeys on its own virtual thread until the deadline
+    private static Map<String, LatencyStats> journeys(ShopClient client, List<ShopClient.Shopper> users,
+                                                      List<Integer> productIds, String razorpaySecret,
+                                                      long thinkMillis, long seed, long seconds) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        List<Future<Map<String, LatencyStats>>> running = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < users.size(); i++) {
+                Journey journey = new Journey(client, users.get(i), productIds, razorpaySecret, thinkMillis,
+                        new SplittableRandom(seed * 31 + i));
+                running.add(executor.submit(() -> journey.repeatUntil(deadline)));
+            }
+        }
+        Map<String, LatencyStats> merged = newStats();
+        for (Future<Map<String, LatencyStats>> result : running) {
+            result.get().forEach((step, stats) -> merged.get(step).addAll(stats));
+        }
+        return merged;
+    }
+
+    private static Map<String, LatencyStats> newStats() {
+        Map<String, LatencyStats> stats = new LinkedHashMap<>();
+        for (String step : STEPS) {
+            stats.put(step, new LatencyStats());
+        }
+        return stats;
+    }
+
+    private void report(Run run) throws IOException {
+        print(run, System.out);
+        String out = options.get("out");
+        if (out != null) {
+            writeCsv(run, Path.of(out));
+        }
+    }
+
+    private static void print(Run run, PrintStream out) {
+        out.printf("%n%d users, %d s measured%n", run.users(), run.seconds());
+        out.printf("%-12s %9s %9s %7s %6s %7s %8s %8s %8s %8s%n",
+                "step", "requests", "req/s", "errors", "shed", "error%", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        run.stats().forEach((step, stats) -> out.printf(Locale.ROOT,
+                "%-12s %9d %9.1f %7d %6d %7.2f %8.1f %8.1f %8.1f %8.1f%n",
+                step, stats.count(), stats.count() / (double) run.seconds(), stats.errors(), stats.shed(),
+                stats.errorRate(), stats.percentileMillis(50), stats.percentileMillis(95),
+                stats.percentileMillis(99), stats.percentileMillis(100)));
+        LatencyStats verified = run.stats().get("verify");
+        out.printf(Locale.ROOT, "completed journeys: %d (%.1f/s)%n%n", verified.count() - verified.errors() - verified.shed(),
+                (verified.count() - verified.errors() - verified.shed()) / (double) run.seconds());
+    }
+
+    private static void writeCsv(Run run, Path file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("step,requests,requests_per_second,errors,shed,error_rate_percent,p50_ms,p95_ms,p99_ms,max_ms");
+        run.stats().forEach((step, stats) -> lines.add(String.format(Locale.ROOT,
+                "%s,%d,%.1f,%d,%d,%.2f,%.2f,%.2f,%.2f,%.2f", step, stats.count(),
+                stats.count() / (double) run.seconds(), stats.errors(), stats.shed(), stats.errorRate(),
+                stats.percentileMillis(50), stats.percentileMillis(95), stats.percentileMillis(99),
+                stats.percentileMillis(100))));
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.write(file, lines);
+    }
+
+    private String option(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    private int intOption(String name, int defaultValue) {
+        return Integer.parseInt(option(name, String.valueOf(defaultValue)));
+    }
+
+    private long longOption(String name, long defaultValue) {
+        return Long.parseLong(option(name, String.valueOf(defaultValue)));
+    }
+
+    private record Run(int users, long seconds, Map<String, LatencyStats> stats) {}
+
+    // One user's journeys, all on one thread: its stats and Mac need no locking
+    private static final class Journey {
+
+        private final ShopClient client;
+        private final ShopClient.Shopper user;
+        private final List<Integer> productIds;
+        private final long thinkMillis;
+        private final SplittableRandom random;
+        private final Mac mac;
+        private final Map<String, LatencyStats> stats = newStats();
+        private int payments;
+
+        Journey(ShopClient client, ShopClient.Shopper user, List<Integer> productIds, String razorpaySecret,
+                long thinkMillis, SplittableRandom random) throws GeneralSecurityException {
+            this.client = client;
+            this.user = user;
+            this.productIds = productIds;
+            this.thinkMillis = thinkMillis;
+            this.random = random;
+            this.mac = Mac.getInstance("HmacSHA256");
+            this.mac.init(new SecretKeySpec(razorpaySecret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        }
+
+        Map<String, LatencyStats> repeatUntil(long deadline) throws InterruptedException {
+            while (System.nanoTime() < deadline) {
+                journey();
+            }
+            return stats;
+        }
+
+        // Stops at the first failed step; the cart is emptied so the next journey starts clean
+        private void journey() throws InterruptedException {
+            String cart = "/api/cart/" + user.cartId();
+            if (client.call(stats.get("browse"), "GET", "/api/products", null, null) == null) {
+                return;
+            }
+            think();
+            int productId = productIds.get(random.nextInt(productIds.size()));
+            if (client.call(stats.get("add-to-cart"), "POST", cart + "/add/" + productId, user.token(), null) == null) {
+                return;
+            }
+            think();
+            JsonNode order = client.json(client.checkout(stats.get("checkout"), "/api/orders/cart/" + user.cartId(), user.token()));
+            JsonNode payment = order == null ? null : client.json(client.checkout(stats.get("payment"),
+                    "/api/payment/create-order/" + order.path("id").asInt() + "/" + order.path("totalPrice").asDouble(),
+                    user.token()));
+            if (payment == null) {
+                client.call(new LatencyStats(), "DELETE", cart + "/remove/" + productId, user.token(), null);
+                return;
+            }
+            think();
+            // Payment confirmation clears the ordered items from the cart
+            String razorpayOrderId = payment.path("orderId").asText();
+            String paymentId = "pay_load" + user.userId() + "x" + (++payments);
+            String signature = HexFormat.of().formatHex(
+                    mac.doFinal((razorpayOrderId + "|" + paymentId).getBytes(StandardCharsets.UTF_8)));
+            String body = "{\"razorpayOrderId\":\"" + razorpayOrderId + "\",\"paymentId\":\"" + paymentId
+                    + "\",\"signature\":\"" + signature + "\"}";
+            if (client.call(stats.get("verify"), "POST", "/api/payment/verify", user.token(), body) == null) {
+                client.call(new LatencyStats(), "DELETE", cart + "/remove/" + productId, user.token(), null);
+            }
+            think();
+        }
+
+        private void think() throws InterruptedException {
+            if (thinkMillis > 0) {
+                Thread.sleep(thinkMillis / 2 + random.nextLong(thinkMillis + 1));
+            }
+        }
+    }
+}
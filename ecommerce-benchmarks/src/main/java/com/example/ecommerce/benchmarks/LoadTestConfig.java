@@ -0,0 +1,107 @@
+package com.example.ecommerce.benchmarks;
+
+import com.cloudinary.Cloudinary;
+import com.cloudinary.Uploader;
+import com.cloudinary.http44.UploaderStrategy;
+import com.cloudinary.utils.ObjectUtils;
+import com.example.ecommerce.EcommerceApplication;
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// The loadtest profile: application-loadtest.properties swaps MySQL for an in-memory
+// H2 database, and this configuration (picked up by the application's component scan
+// whenever this module is on the classpath) swaps Cloudinary for a stub. Razorpay calls
+// go to a StubRazorpayServer whose URL is passed in when the backend starts.
+@Configuration(proxyBeanMethods = false)
+@Profile(LoadTestConfig.PROFILE)
+public class LoadTestConfig {
+
+    static final String PROFILE = "loadtest";
+
+    @Bean
+    @Primary
+    public Cloudinary stubCloudinary(@Value("${loadtest.cloudinary.latency-ms:0}") long latencyMillis) {
+        return new StubCloudinary(latencyMillis);
+    }
+
+    // Boots the backend in this JVM on a random port; args (--name=value) win over the profile
+    @SafeVarargs
+    static ConfigurableApplicationContext start(String razorpayBaseUrl, List<String> args,
+                                                ApplicationContextInitializer<ConfigurableApplicationContext>... initializers) {
+        List<String> all = new ArrayList<>();
+        all.add("--spring.profiles.active=" + PROFILE);
+        all.add("--razorpay.api.base-url=" + razorpayBaseUrl);
+        all.addAll(args);
+        return new SpringApplicationBuilder(EcommerceApplication.class)
+                .initializers(initializers)
+                .run(all.toArray(String[]::new));
+    }
+
+    static String baseUrl(ConfigurableApplicationContext context) {
+        return "http://127.0.0.1:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+    }
+
+    // Products without a stock level, so checkout never runs out
+    static List<Integer> seedProducts(ConfigurableApplicationContext context, int count) {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Product product = new Product("Product " + i, "Load test product " + i, 100 + i % 900);
+            product.setStock(null);
+            products.add(product);
+        }
+        return context.getBean(ProductRepository.class).saveAll(products).stream().map(Product::getId).toList();
+    }
+
+    // Uploads and deletes answer after a fixed delay without any network call
+    static final class StubCloudinary extends Cloudinary {
+
+        private final Uploader uploader;
+
+        StubCloudinary(long latencyMillis) {
+            super(ObjectUtils.asMap("cloud_name", "loadtest", "api_key", "loadtest", "api_secret", "loadtest"));
+            AtomicLong images = new AtomicLong();
+            this.uploader = new Uploader(this, new UploaderStrategy()) {
+                @Override
+                public Map upload(Object file, Map options) {
+                    pause(latencyMillis);
+                    String publicId = "ecommerce/products/loadtest-" + images.incrementAndGet();
+                    return ObjectUtils.asMap("public_id", publicId,
+                            "secure_url", "https://res.cloudinary.com/loadtest/image/upload/" + publicId + ".jpg");
+                }
+
+                @Override
+                public Map destroy(String publicId, Map options) {
+                    pause(latencyMillis);
+                    return ObjectUtils.asMap("result", "ok");
+                }
+            };
+        }
+
+        @Override
+        public Uploader uploader() {
+            return uploader;
+        }
+
+        private static void pause(long millis) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.ecommerce.benchmarks;
+
+import com.example.ecommerce.service.PaymentSignatureVerifier;
+import org.apache.commons.codec.binary.Hex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// Payment signature verification: the old per-call Mac/hex-string path against
+// PaymentSignatureVerifier. Run with -prof gc to see bytes allocated per operation.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class PaymentSignatureBenchmark {
+
+    private static final String SECRET = "rzp_test_secret_0123456789";
+
+    private PaymentSignatureVerifier verifier;
+    private String orderId;
+    private String paymentId;
+    private String signature;
+    private byte[] webhookBody;
+    private String webhookSignature;
+
+    @Setup
+    public void setUp() throws Exception {
+        verifier = new PaymentSignatureVerifier(SECRET);
+        orderId = "order_NQb7fXn2TgVx4K";
+        paymentId = "pay_NQb8c0L1kPq9Zr";
+        signature = legacyHmac(orderId + "|" + paymentId, SECRET);
+        StringBuilder body = new StringBuilder("{\"event\":\"payment.captured\",\"payload\":{\"payment\":{\"entity\":{");
+        while (body.length() < 1500) {
+            body.append("\"field").append(body.length()).append("\":\"value\",");
+        }
+        body.append("\"id\":\"").append(paymentId).append("\"}}}}");
+        webhookBody = body.toString().getBytes(StandardCharsets.UTF_8);
+        webhookSignature = legacyHmac(body.toString(), SECRET);
+    }
+
+    @Benchmark
+    public boolean legacyCheckoutSignature() throws Exception {
+        return legacyHmac(orderId + "|" + paymentId, SECRET).equals(signature);
+    }
+
+    @Benchmark
+    public boolean pooledCheckoutSignature() {
+        return verifier.verifyPayment(orderId, paymentId, signature);
+    }
+
+    @Benchmark
+    public boolean legacyWebhookSignature() throws Exception {
+        return legacyHmac(new String(webhookBody, StandardCharsets.UTF_8), SECRET).equals(webhookSignature);
+    }
+
+    @Benchmark
+    public boolean pooledWebhookSignature() {
+        return verifier.verify(webhookBody, webhookSignature);
+    }
+
+    // What PaymentService did before PaymentSignatureVerifier
+    private static String legacyHmac(String data, String secret) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        SecretKeySpec secretKey = new SecretKeySpec(secret.getBytes(), "HmacSHA256");
+        mac.init(secretKey);
+        byte[] hash = mac.doFinal(data.getBytes());
+        return new String(Hex.encodeHex(hash));
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.ecommerce.benchmarks;
+
+import com.example.ecommerce.entity.Cart;
+import com.example.ecommerce.entity.CartItem;
+import com.example.ecommerce.entity.Order;
+import com.example.ecommerce.entity.OrderItem;
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.entity.Role;
+import com.example.ecommerce.entity.User;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+// Detached entities shaped like what the repositories return, for the mapping and
+// serialization benchmarks. Text sizes are close to the seeded catalog.
+final class SampleData {
+
+    private SampleData() {
+    }
+
+    static User user() {
+        User user = new User("shopper", "shopper@example.com", "{noop}secret", Role.ROLE_USER, true);
+        user.setId(42L);
+        return user;
+    }
+
+    static Product product(int id) {
+        Product product = new Product("Product " + id,
+                "Hand-finished item number " + id + ", ships in two to three business days from the nearest warehouse",
+                199.0 + id);
+        product.setId(id);
+        product.setImageUrl("https://res.cloudinary.com/demo/image/upload/v1/ecommerce/products/p" + id + ".jpg");
+        product.setStock(100);
+        return product;
+    }
+
+    static Order order(int items) {
+        Order order = new Order();
+        order.setId(1001);
+        order.setUser(user());
+        order.setOrderDate(new Date(1_700_000_000_000L));
+        order.setStatus("PENDING");
+        List<OrderItem> orderItems = new ArrayList<>();
+        double total = 0;
+        for (int i = 1; i <= items; i++) {
+            OrderItem item = new OrderItem();
+            item.setId(i);
+            item.setProduct(product(i));
+            item.setQuantity(1 + i % 3);
+            item.setPrice(item.getProduct().getPrice());
+            item.setOrder(order);
+            total += item.getPrice() * item.getQuantity();
+            orderItems.add(item);
+        }
+        order.setOrderItems(orderItems);
+        order.setTotalPrice(total);
+        return order;
+    }
+
+    static Cart cart(int items) {
+        Cart cart = new Cart();
+        cart.setId(7);
+        cart.setUser(user());
+        List<CartItem> cartItems = new ArrayList<>();
+        for (int i = 1; i <= items; i++) {
+            CartItem item = new CartItem();
+            item.setId(i);
+            item.setCart(cart);
+            item.setProduct(product(i));
+            item.setQuantity(1 + i % 3);
+            cartItems.add(item);
+        }
+        cart.setItems(cartItems);
+        return cart;
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.ecommerce.benchmarks;
+
+import com.example.ecommerce.service.CheckoutAdmissionFilter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+// HTTP calls of a simulated shopper against one backend, shared by all clients of a run.
+// call() and checkout() time the request into the given stats and never throw;
+// send() is for setup and fails on anything but 2xx.
+final class ShopClient {
+
+    record Shopper(long userId, String token, int cartId) {}
+
+    private final String baseUrl;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient http = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    ShopClient(String baseUrl) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+    }
+
+    String baseUrl() {
+        return baseUrl;
+    }
+
+    // A new user with a login token and an empty cart
+    Shopper register(String username) throws Exception {
+        JsonNode user = json(send("POST", "/api/user/register", null,
+                "{\"username\":\"" + username + "\",\"email\":\"" + username + "@example.com\","
+                        + "\"password\":\"secret\",\"role\":\"ROLE_USER\"}"));
+        String token = json(send("POST", "/api/auth/login", null,
+                "{\"username\":\"" + username + "\",\"password\":\"secret\"}")).path("accessToken").asText();
+        JsonNode cart = json(send("POST", "/api/cart/create/" + user.path("id").asLong(), token, null));
+        return new Shopper(user.path("id").asLong(), token, cart.path("id").asInt());
+    }
+
+    // Returns the body of a 2xx response, null otherwise (429 counts as shed, the rest as errors)
+    String call(LatencyStats stats, String method, String path, String token, String body) {
+        long start = System.nanoTime();
+        HttpResponse<String> response = exchange(request(method, path, token, body));
+        stats.record(System.nanoTime() - start, response == null ? 0 : response.statusCode());
+        return response != null && response.statusCode() / 100 == 2 ? response.body() : null;
+    }
+
+    // Checkout goes through admission control: a 429 with a queue ticket is retried with that
+    // ticket after Retry-After, as the frontend does. The latency includes the time queued.
+    String checkout(LatencyStats stats, String path, String token) {
+        long start = System.nanoTime();
+        String ticket = null;
+        for (int attempt = 0; attempt < 30; attempt++) {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(request("POST", path, token, null), (name, value) -> true);
+            if (ticket != null) {
+                builder.header(CheckoutAdmissionFilter.TICKET_HEADER, ticket);
+            }
+            HttpResponse<String> response = exchange(builder.build());
+            if (response == null || response.statusCode() != 429
+                    || (ticket = response.headers().firstValue(CheckoutAdmissionFilter.TICKET_HEADER).orElse(null)) == null) {
+                stats.record(System.nanoTime() - start, response == null ? 0 : response.statusCode());
+                return response != null && response.statusCode() / 100 == 2 ? response.body() : null;
+            }
+            long retryAfter = response.headers().firstValueAsLong("Retry-After").orElse(1);
+            try {
+                Thread.sleep(Duration.ofSeconds(Math.max(1, retryAfter)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+        stats.record(System.nanoTime() - start, 429);
+        return null;
+    }
+
+    String send(String method, String path, String token, String body) throws Exception {
+        HttpResponse<String> response = http.send(request(method, path, token, body), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() / 100 != 2) {
+            throw new IllegalStateException(method + " " + path + " returned " + response.statusCode() + ": " + response.body());
+        }
+        return response.body();
+    }
+
+    JsonNode json(String body) {
+        if (body == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(body);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unexpected response: " + body, e);
+        }
+    }
+
+    private HttpResponse<String> exchange(HttpRequest request) {
+        try {
+            return http.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private HttpRequest request(String method, String path, String token, String body) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body));
+        if (body != null) {
+            builder.header("Content-Type", "application/json");
+        }
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder.build();
+    }
+}
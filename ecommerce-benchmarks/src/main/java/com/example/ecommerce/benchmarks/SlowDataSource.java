@@ -0,0 +1,59 @@
+package com.example.ecommerce.benchmarks;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// Adds a fixed delay to every statement execution, so an in-memory database holds
+// connections for about as long as a networked MySQL would. The delay is spent
+// while holding the pooled connection, like a real round trip.
+public class SlowDataSource extends DelegatingDataSource {
+
+    private final long latencyMillis;
+
+    public SlowDataSource(DataSource target, long latencyMillis) {
+        super(target);
+        this.latencyMillis = latencyMillis;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return proxy(Connection.class, super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return proxy(Connection.class, super.getConnection(username, password));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T proxy(Class<T> type, T target) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (Statement.class.isAssignableFrom(method.getDeclaringClass()) && method.getName().startsWith("execute")) {
+                Thread.sleep(latencyMillis);
+            }
+            Object result = invoke(method, target, args);
+            // Statements handed out by the connection get the delay too
+            if (result instanceof Statement && method.getReturnType().isInterface()) {
+                return proxy((Class<Object>) method.getReturnType(), result);
+            }
+            return result;
+        };
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, handler);
+    }
+
+    private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
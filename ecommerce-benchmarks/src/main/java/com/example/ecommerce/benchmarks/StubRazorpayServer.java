@@ -0,0 +1,69 @@
+package com.example.ecommerce.benchmarks;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Local stand-in for the Razorpay orders API used by RazorpayGateway: every call
+// answers after a fixed delay, like a remote gateway would. Point the backend at it
+// with razorpay.api.base-url.
+public class StubRazorpayServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final long latencyMillis;
+    private final AtomicLong orders = new AtomicLong();
+
+    private StubRazorpayServer(long latencyMillis) throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.setExecutor(executor);
+        this.server.createContext("/v1/orders", this::handle);
+        this.server.start();
+    }
+
+    public static StubRazorpayServer start(long latencyMillis) throws IOException {
+        return new StubRazorpayServer(latencyMillis);
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            exchange.getRequestBody().readAllBytes();
+            Thread.sleep(latencyMillis);
+            String body;
+            if ("POST".equals(exchange.getRequestMethod())) {
+                // Amount is echoed back as 0: RazorpayGateway only needs the id
+                body = "{\"id\":\"order_stub" + orders.incrementAndGet() + "\",\"amount\":0,\"currency\":\"INR\"}";
+            } else {
+                // GET /v1/orders/{id}/payments: nothing captured yet
+                body = "{\"items\":[]}";
+            }
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.ecommerce.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Platform versus virtual request threads under the same closed-loop workload.
+// Boots the backend once per thread model in this JVM (the loadtest profile, a stub
+// Razorpay server, a fixed delay per SQL statement standing in for the network
+// round trip), seeds users, carts and products, then lets every client loop over
+// catalog (60%), cart (25%) and checkout (15%: add item, place order, create payment
+// order, remove item) for a warmup and a measured period. Checkout requests queued by
+// admission control are retried with their ticket. Prints throughput and
+// client-side latency percentiles per endpoint, plus pinned virtual threads.
+//
+//   mvn -q exec:java -Dexec.args="--clients=400 --seconds=30"
+//
+// Options (defaults): --modes=platform,virtual --clients=400 --products=100
+// --warmup-seconds=10 --seconds=30 --db-latency-ms=2 --pool-size=20
+// --gateway-latency-ms=100 --seed=42 --out=<csv file>
+public class ThreadModelComparison {
+
+    private static final String[] ENDPOINTS = { "catalog", "view-cart", "add-to-cart", "place-order", "create-payment", "remove-from-cart" };
+
+    private final Map<String, String> options;
+
+    private ThreadModelComparison(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] pair = arg.replaceFirst("^--", "").split("=", 2);
+            options.put(pair[0], pair.length > 1 ? pair[1] : "true");
+        }
+        new ThreadModelComparison(options).run();
+    }
+
+    private void run() throws Exception {
+        List<Result> results = new ArrayList<>();
+        try (StubRazorpayServer razorpay = StubRazorpayServer.start(longOption("gateway-latency-ms", 100))) {
+            for (String mode : option("modes", "platform,virtual").split(",")) {
+                results.add(runMode(mode.trim(), razorpay));
+            }
+        }
+        print(results, System.out);
+        String out = options.get("out");
+        if (out != null) {
+            writeCsv(results, Path.of(out));
+        }
+    }
+
+    private Result runMode(String mode, StubRazorpayServer razorpay) throws Exception {
+        int poolSize = intOption("pool-size", 20);
+        long dbLatency = longOption("db-latency-ms", 2);
+        List<String> args = List.of(
+                "--spring.threads.virtual.enabled=" + "virtual".equals(mode),
+                "--threads.pinning-monitor.enabled=true",
+                "--spring.datasource.url=jdbc:h2:mem:load-" + mode + ";MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.hikari.maximum-pool-size=" + poolSize,
+                "--checkout.admission.max-concurrent=" + Math.max(1, poolSize - 4));
+        BeanPostProcessor slowDatabase = new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource && "dataSource".equals(beanName) && dbLatency > 0
+                        ? new SlowDataSource(dataSource, dbLatency) : bean;
+            }
+        };
+        try (ConfigurableApplicationContext context = LoadTestConfig.start(razorpay.baseUrl(), args,
+                ctx -> ctx.getBeanFactory().addBeanPostProcessor(slowDatabase))) {
+            ShopClient client = new ShopClient(LoadTestConfig.baseUrl(context));
+            List<Integer> productIds = LoadTestConfig.seedProducts(context, intOption("products", 100));
+            List<ShopClient.Shopper> shoppers = seedShoppers(client, mode, intOption("clients", 400));
+
+            long seed = longOption("seed", 42);
+            drive(client, shoppers, productIds, seed, longOption("warmup-seconds", 10));
+            Timer pinned = context.getBean(MeterRegistry.class).find("jvm.threads.virtual.pinned").timer();
+            long pinnedBefore = pinned == null ? 0 : pinned.count();
+            long seconds = longOption("seconds", 30);
+            Map<String, LatencyStats> stats = drive(client, shoppers, productIds, seed + 1, seconds);
+            long pinnedDuring = pinned == null ? 0 : pinned.count() - pinnedBefore;
+            return new Result(mode, seconds, stats, pinnedDuring);
+        }
+    }
+
+    // One user, token and cart per client
+    private static List<ShopClient.Shopper> seedShoppers(ShopClient client, String mode, int clients) throws Exception {
+        try (ExecutorService executor = Executors.newFixedThreadPool(16)) {
+            List<Future<ShopClient.Shopper>> pending = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                String username = "load-" + mode + "-" + i;
+                pending.add(executor.submit(() -> client.register(username)));
+            }
+            List<ShopClient.Shopper> shoppers = new ArrayList<>();
+            for (Future<ShopClient.Shopper> shopper : pending) {
+                shoppers.add(shopper.get());
+            }
+            return shoppers;
+        }
+    }
+
+    // Every shopper loops on its own virtual thread until the deadline
+    private static Map<String, LatencyStats> drive(ShopClient client, List<ShopClient.Shopper> shoppers,
+                                                   List<Integer> productIds, long seed, long seconds) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        List<Future<Map<String, LatencyStats>>> running = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < shoppers.size(); i++) {
+                ShopClient.Shopper shopper = shoppers.get(i);
+                SplittableRandom random = new SplittableRandom(seed * 31 + i);
+                running.add(executor.submit(() -> shop(client, shopper, productIds, random, deadline)));
+            }
+        }
+        Map<String, LatencyStats> merged = newStats();
+        for (Future<Map<String, LatencyStats>> result : running) {
+            result.get().forEach((endpoint, stats) -> merged.get(endpoint).addAll(stats));
+        }
+        return merged;
+    }
+
+    private static Map<String, LatencyStats> shop(ShopClient client, ShopClient.Shopper shopper, List<Integer> productIds,
+                                                  SplittableRandom random, long deadline) {
+        Map<String, LatencyStats> stats = newStats();
+        String cart = "/api/cart/" + shopper.cartId();
+        while (System.nanoTime() < deadline) {
+            double roll = random.nextDouble();
+            if (roll < 0.60) {
+                client.call(stats.get("catalog"), "GET", "/api/products", null, null);
+            } else if (roll < 0.85) {
+                client.call(stats.get("view-cart"), "GET", cart, shopper.token(), null);
+            } else {
+                int productId = productIds.get(random.nextInt(productIds.size()));
+                if (client.call(stats.get("add-to-cart"), "POST", cart + "/add/" + productId, shopper.token(), null) == null) {
+                    continue;
+                }
+                JsonNode order = client.json(client.checkout(stats.get("place-order"),
+                        "/api/orders/cart/" + shopper.cartId(), shopper.token()));
+                if (order != null) {
+                    client.checkout(stats.get("create-payment"), "/api/payment/create-order/"
+                            + order.path("id").asInt() + "/" + order.path("totalPrice").asDouble(), shopper.token());
+                }
+                client.call(stats.get("remove-from-cart"), "DELETE", cart + "/remove/" + productId, shopper.token(), null);
+            }
+        }
+        return stats;
+    }
+
+    private static Map<String, LatencyStats> newStats() {
+        Map<String, LatencyStats> stats = new LinkedHashMap<>();
+        for (String endpoint : ENDPOINTS) {
+            stats.put(endpoint, new LatencyStats());
+        }
+        return stats;
+    }
+
+    private static void print(List<Result> results, PrintStream out) {
+        out.printf("%n%-9s %-17s %9s %9s %7s %6s %8s %8s %8s%n",
+                "threads", "endpoint", "requests", "req/s", "errors", "shed", "p50 ms", "p95 ms", "p99 ms");
+        for (Result result : results) {
+            long total = 0;
+            for (Map.Entry<String, LatencyStats> entry : result.stats().entrySet()) {
+                LatencyStats stats = entry.getValue();
+                total += stats.count();
+                out.printf(Locale.ROOT, "%-9s %-17s %9d %9.1f %7d %6d %8.1f %8.1f %8.1f%n",
+                        result.mode(), entry.getKey(), stats.count(), stats.count() / (double) result.seconds(),
+                        stats.errors(), stats.shed(), stats.percentileMillis(50), stats.percentileMillis(95),
+                        stats.percentileMillis(99));
+            }
+            out.printf(Locale.ROOT, "%-9s %-17s %9d %9.1f   pinned virtual threads: %d%n%n",
+                    result.mode(), "all", total, total / (double) result.seconds(), result.pinned());
+        }
+    }
+
+    private static void writeCsv(List<Result> results, Path file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("threads,endpoint,requests,requests_per_second,errors,shed,p50_ms,p95_ms,p99_ms,pinned");
+        for (Result result : results) {
+            result.stats().forEach((endpoint, stats) -> lines.add(String.format(Locale.ROOT,
+                    "%s,%s,%d,%.1f,%d,%d,%.2f,%.2f,%.2f,%d", result.mode(), endpoint, stats.count(),
+                    stats.count() / (double) result.seconds(), stats.errors(), stats.shed(),
+                    stats.percentileMillis(50), stats.percentileMillis(95), stats.percentileMillis(99), result.pinned())));
+        }
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.write(file, lines);
+    }
+
+    private String option(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    private int intOption(String name, int defaultValue) {
+        return Integer.parseInt(option(name, String.valueOf(defaultValue)));
+    }
+
+    private long longOption(String name, long defaultValue) {
+        return Long.parseLong(option(name, String.valueOf(defaultValue)));
+    }
+
+    private record Result(String mode, long seconds, Map<String, LatencyStats> stats, long pinned) {}
+}
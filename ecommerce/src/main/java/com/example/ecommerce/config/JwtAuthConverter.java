@@ -3,6 +3,8 @@ package com.example.ecommerce.config;
 import java.util.Collection;
 import java.util.List;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.security.authentication.AbstractAuthenticationToken;
 import org.springframework.security.core.GrantedAuthority;
@@ -14,11 +16,12 @@ import org.springframework.stereotype.Component;
 @Component
 public class JwtAuthConverter implements Converter<Jwt, AbstractAuthenticationToken> {
 
+    private static final Logger log = LoggerFactory.getLogger(JwtAuthConverter.class);
+
     @Override
     public AbstractAuthenticationToken convert(Jwt jwt) {
-    	System.out.println("JWT Claims: " + jwt.getClaims());
         String roleClaim = jwt.getClaim("role"); // e.g., "USER"
-        System.out.println("Extracted role: " + roleClaim);
+        log.debug("JWT for {} with role {}", jwt.getSubject(), roleClaim);
         Collection<GrantedAuthority> authorities = List.of(
                 new SimpleGrantedAuthority(roleClaim)
         );
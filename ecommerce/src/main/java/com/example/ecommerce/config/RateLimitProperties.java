@@ -0,0 +1,66 @@
+package com.example.ecommerce.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// rate-limit.* in application.properties. A list of route policies does not fit
+// @Value, so these are bound as configuration properties (see RateLimitFilter).
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    // Buckets kept in memory; idle buckets are dropped first when the map is full
+    private int maxBuckets = 100_000;
+
+    private List<Policy> policies = new ArrayList<>();
+
+    // Paths no policy applies to, e.g. server-to-server callbacks from a few fixed IPs
+    private List<String> excludePaths = new ArrayList<>();
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public int getMaxBuckets() { return maxBuckets; }
+    public void setMaxBuckets(int maxBuckets) { this.maxBuckets = maxBuckets; }
+
+    public List<Policy> getPolicies() { return policies; }
+    public void setPolicies(List<Policy> policies) { this.policies = policies; }
+
+    public List<String> getExcludePaths() { return excludePaths; }
+    public void setExcludePaths(List<String> excludePaths) { this.excludePaths = excludePaths; }
+
+    // One token bucket per key (user or client IP) for requests matching path (and method, if set)
+    public static class Policy {
+
+        public enum Key { USER, IP }
+
+        private String name;
+        private String path;
+        private String method;
+        // USER falls back to the client IP for anonymous requests
+        private Key key = Key.IP;
+        private int capacity = 10;
+        private double refillPerSecond = 1;
+
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+
+        public String getPath() { return path; }
+        public void setPath(String path) { this.path = path; }
+
+        public String getMethod() { return method; }
+        public void setMethod(String method) { this.method = method; }
+
+        public Key getKey() { return key; }
+        public void setKey(Key key) { this.key = key; }
+
+        public int getCapacity() { return capacity; }
+        public void setCapacity(int capacity) { this.capacity = capacity; }
+
+        public double getRefillPerSecond() { return refillPerSecond; }
+        public void setRefillPerSecond(double refillPerSecond) { this.refillPerSecond = refillPerSecond; }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.ecommerce.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Only active when datasource.read.urls lists at least one replica; otherwise Spring
+// Boot's single DataSource stays in place. The primary pool keeps the
+// spring.datasource.* settings, each replica gets its own smaller pool.
+@Configuration
+@ConditionalOnExpression("!'${datasource.read.urls:}'.isBlank()")
+public class ReadReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public ReadWriteRoutingDataSource readWriteRoutingDataSource(
+            HikariDataSource primaryDataSource,
+            DataSourceProperties properties,
+            MeterRegistry meterRegistry,
+            @Value("${datasource.read.urls}") List<String> urls,
+            @Value("${datasource.read.username:}") String username,
+            @Value("${datasource.read.password:}") String password,
+            @Value("${datasource.read.maximum-pool-size:5}") int maximumPoolSize,
+            @Value("${datasource.read.sticky-ms:5000}") long stickyMillis) {
+        List<DataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + i);
+            replica.setJdbcUrl(urls.get(i).trim());
+            replica.setDriverClassName(properties.determineDriverClassName());
+            // Same account as the primary unless a read-only one is configured
+            replica.setUsername(username.isBlank() ? properties.determineUsername() : username);
+            replica.setPassword(username.isBlank() ? properties.determinePassword() : password);
+            replica.setMaximumPoolSize(maximumPoolSize);
+            replica.setMinimumIdle(1);
+            replica.setReadOnly(true);
+            // Start even if a replica is down; the health check routes around it
+            replica.setInitializationFailTimeout(-1);
+            // Only DataSource beans get Boot's hikaricp.* metrics, the replica pools are not beans
+            replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.add(replica);
+        }
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(
+                primaryDataSource, replicas, ReadReplicaConfig::currentUser, stickyMillis);
+        Gauge.builder("datasource.replicas.healthy", routing, ReadWriteRoutingDataSource::healthyReplicas)
+                .description("Read replicas currently receiving read-only transactions")
+                .register(meterRegistry);
+        return routing;
+    }
+
+    // Connections are only fetched once the transaction's read-only flag is known
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource readWriteRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(readWriteRoutingDataSource);
+    }
+
+    private static String currentUser() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth != null && auth.isAuthenticated() && !(auth instanceof AnonymousAuthenticationToken)
+                ? auth.getName() : null;
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.ecommerce.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Sends @Transactional(readOnly = true) work to the read replicas (round-robin over
+// the healthy ones) and everything else to the primary. A caller whose own write
+// committed less than stickyMillis ago keeps reading from the primary, so it sees
+// its write despite replication lag. Must sit behind a LazyConnectionDataSourceProxy:
+// the connection has to be taken after the transaction's read-only flag is set.
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadWriteRoutingDataSource.class);
+
+    static final String PRIMARY = "primary";
+
+    private final Map<String, DataSource> replicas = new HashMap<>();
+    private final List<String> replicaKeys = new ArrayList<>();
+    private final Set<String> unhealthy = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger next = new AtomicInteger();
+    // Who is calling (user name), null for background work
+    private final Supplier<String> callerKey;
+    private final long stickyMillis;
+    private final Map<String, Long> lastWriteAt = new ConcurrentHashMap<>();
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<DataSource> replicaDataSources,
+                                      Supplier<String> callerKey, long stickyMillis) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicaDataSources.size(); i++) {
+            String key = "replica-" + i;
+            replicas.put(key, replicaDataSources.get(i));
+            replicaKeys.add(key);
+            targets.put(key, replicaDataSources.get(i));
+        }
+        this.callerKey = callerKey;
+        this.stickyMillis = stickyMillis;
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String caller = callerKey.get();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (caller != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        if (status == STATUS_COMMITTED) {
+                            lastWriteAt.put(caller, System.currentTimeMillis());
+                        }
+                    }
+                });
+            }
+            return PRIMARY;
+        }
+        if (caller != null) {
+            Long wroteAt = lastWriteAt.get(caller);
+            if (wroteAt != null && System.currentTimeMillis() - wroteAt < stickyMillis) {
+                return PRIMARY;
+            }
+        }
+        return nextReplica();
+    }
+
+    // Round-robin over healthy replicas; the primary when none is healthy
+    private String nextReplica() {
+        int size = replicaKeys.size();
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(1, size));
+        for (int i = 0; i < size; i++) {
+            String key = replicaKeys.get((start + i) % size);
+            if (!unhealthy.contains(key)) {
+                return key;
+            }
+        }
+        return PRIMARY;
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.read.health-check-interval-ms:5000}")
+    public void checkReplicas() {
+        for (Map.Entry<String, DataSource> replica : replicas.entrySet()) {
+            boolean healthy;
+            try (Connection connection = replica.getValue().getConnection()) {
+                healthy = connection.isValid(2);
+            } catch (SQLException e) {
+                healthy = false;
+            }
+            if (healthy ? unhealthy.remove(replica.getKey()) : unhealthy.add(replica.getKey())) {
+                log.warn("Read replica {} is {}", replica.getKey(), healthy ? "back" : "down, reads go elsewhere");
+            }
+        }
+        long cutoff = System.currentTimeMillis() - stickyMillis;
+        lastWriteAt.values().removeIf(wroteAt -> wroteAt < cutoff);
+    }
+
+    int healthyReplicas() {
+        return replicaKeys.size() - unhealthy.size();
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.ecommerce.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Marker;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+
+// Logback turbo filter (see logback-spring.xml) that keeps only a fraction of the
+// INFO/DEBUG/TRACE events of chatty logger categories. WARN and ERROR always pass.
+// Rates come from logging.sampling.rates as "category=rate,..." where a category
+// is a logger name prefix and rate is between 0 and 1; the longest prefix wins.
+public class SamplingTurboFilter extends TurboFilter {
+
+    private final Map<String, Double> rates = new LinkedHashMap<>();
+    // Resolved rate per logger name, so a log call costs one map lookup
+    private final Map<String, Double> resolved = new ConcurrentHashMap<>();
+
+    public void setRates(String spec) {
+        rates.clear();
+        resolved.clear();
+        for (String entry : spec.split(",")) {
+            int at = entry.indexOf('=');
+            if (at > 0) {
+                rates.put(entry.substring(0, at).trim(), Double.parseDouble(entry.substring(at + 1).trim()));
+            }
+        }
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        // format is null for isXxxEnabled() checks; only sample the actual event
+        if (format == null || level == null || level.isGreaterOrEqual(Level.WARN) || rates.isEmpty()) {
+            return FilterReply.NEUTRAL;
+        }
+        double rate = resolved.computeIfAbsent(logger.getName(), this::rateFor);
+        if (rate >= 1 || ThreadLocalRandom.current().nextDouble() < rate) {
+            return FilterReply.NEUTRAL;
+        }
+        return FilterReply.DENY;
+    }
+
+    private double rateFor(String loggerName) {
+        String best = null;
+        for (String category : rates.keySet()) {
+            if ((loggerName.equals(category) || loggerName.startsWith(category + "."))
+                    && (best == null || category.length() > best.length())) {
+                best = category;
+            }
+        }
+        return best == null ? 1 : rates.get(best);
+    }
+}
@@ -2,6 +2,7 @@ package com.example.ecommerce.config;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -12,27 +13,42 @@ import org.springframework.security.config.annotation.authentication.configurati
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 
+import com.example.ecommerce.service.CheckoutAdmissionFilter;
 import com.example.ecommerce.service.JwtFilter;
+import com.example.ecommerce.service.RateLimitFilter;
+import com.example.ecommerce.service.ShardContextFilter;
 import com.example.ecommerce.service.userDetailsService;
 
 import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.Filter;
 
 @Configuration
 @EnableWebSecurity
+@EnableConfigurationProperties(RateLimitProperties.class)
 public class SecurityConfig {
 
     @Autowired
-    private userDetailsService userdetailsService;
-    @Autowired
-	private UserDetailsService userDetailsService;
+	private userDetailsService userDetailsService; // also the UserDetailsPasswordService
     @Autowired
 	private JwtFilter jwtFilter;
+    @Autowired
+	private RateLimitFilter rateLimitFilter;
+    @Autowired
+	private CheckoutAdmissionFilter checkoutAdmissionFilter;
+    @Autowired
+	private ShardContextFilter shardContextFilter;
+    @Autowired
+	private PasswordEncoder passwordEncoder;
+    @Value("${server.port:8080}")
+	private int serverPort;
+    @Value("${management.server.port:-1}")
+	private int managementPort;
     
     
     @Bean
@@ -42,24 +58,42 @@ public class SecurityConfig {
             .and()
             .csrf(csrf -> csrf.disable())
             .authorizeHttpRequests(auth -> auth
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll() // async results of already authorized requests
             	.requestMatchers("/api/user/register").permitAll()
             	.requestMatchers("/api/user/login").permitAll()
                 .requestMatchers("/api/auth/**").permitAll()
+                .requestMatchers(HttpMethod.POST, "/api/payment/webhook").permitAll() // signed by Razorpay
+                .requestMatchers("/actuator/health").permitAll()
+                .requestMatchers(prometheusScrape(serverPort, managementPort)).permitAll() // internal port only
+                .requestMatchers("/actuator/**").hasAuthority("ROLE_ADMIN")
                 .requestMatchers("/api/admin/**").hasAuthority("ROLE_ADMIN")
                 .requestMatchers("/api/user/**").hasAnyAuthority("ROLE_USER", "ROLE_ADMIN")
                 .requestMatchers(HttpMethod.GET, "/api/products").permitAll()   // only GET all products
                 .anyRequest().authenticated()
             )
             .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class)
+            .addFilterAfter(rateLimitFilter, JwtFilter.class) // needs the user from the token
+            .addFilterAfter(checkoutAdmissionFilter, RateLimitFilter.class)
+            .addFilterAfter(shardContextFilter, CheckoutAdmissionFilter.class) // routes to the user's shard
             .sessionManagement(session->session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .build();
     }
     
+    // The Prometheus scrape on the separate management port, which is only reachable from the
+    // internal network; a scraper cannot log in for a JWT. Matches nothing when actuator shares
+    // the public port.
+    static RequestMatcher prometheusScrape(int serverPort, int managementPort) {
+        return request -> managementPort > 0 && managementPort != serverPort
+                && request.getLocalPort() == managementPort
+                && "/actuator/prometheus".equals(request.getRequestURI());
+    }
+
     @Bean
     public AuthenticationProvider authenticationProvider () {
     	DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
-    	provider.setPasswordEncoder(new BCryptPasswordEncoder(12));
+    	provider.setPasswordEncoder(passwordEncoder); // PooledPasswordEncoder
     	provider.setUserDetailsService(userDetailsService);
+    	provider.setUserDetailsPasswordService(userDetailsService); // rehash weaker hashes on login
     	return provider;
     }
     @Bean
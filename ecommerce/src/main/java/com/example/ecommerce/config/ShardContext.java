@@ -0,0 +1,33 @@
+package com.example.ecommerce.config;
+
+// The shard the current thread works on; ShardRoutingDataSource reads it when a
+// connection is taken. Scopes nest, closing one restores the outer shard.
+public final class ShardContext {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    public static Scope open(String shard) {
+        String outer = CURRENT.get();
+        CURRENT.set(shard);
+        return () -> {
+            if (outer == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(outer);
+            }
+        };
+    }
+
+    public interface Scope extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.ecommerce.config;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.entity.User;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+
+// Copies users and products from the home shard to the other shards, where order and
+// cart rows reference them by foreign key and read product names and prices. The home
+// shard stays the only one written to: each committed JPA change is copied row by row
+// (upsert, or delete while no order still points at the row), and syncAll() copies
+// everything at startup and every sharding.replication.sync-interval-ms to catch bulk
+// updates and failed copies. Stock on the copies is not kept current; StockService
+// reads and writes it on the home shard.
+public class ShardReplicator implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardReplicator.class);
+
+    private static final int SYNC_BATCH = 500;
+
+    // Replicated entities and their tables, users first
+    private static final Map<Class<?>, String> TABLES = new LinkedHashMap<>();
+    static {
+        TABLES.put(User.class, "user");
+        TABLES.put(Product.class, "products");
+    }
+
+    private final JdbcTemplate home;
+    private final List<JdbcTemplate> copies = new ArrayList<>();
+    private final Counter errors;
+
+    public ShardReplicator(ShardRoutingDataSource shards, EntityManagerFactory entityManagerFactory,
+                           MeterRegistry meterRegistry) {
+        Map<String, DataSource> pools = shards.shards();
+        this.home = new JdbcTemplate(pools.get(shards.homeShard()));
+        pools.forEach((name, pool) -> {
+            if (!name.equals(shards.homeShard())) {
+                copies.add(new JdbcTemplate(pool));
+            }
+        });
+        this.errors = Counter.builder("sharding.replication.errors")
+                .description("User and product rows that could not be copied to a shard")
+                .register(meterRegistry);
+        EventListenerRegistry listeners = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        listeners.appendListeners(EventType.POST_COMMIT_INSERT, (PostCommitInsertEventListener) this);
+        listeners.appendListeners(EventType.POST_COMMIT_UPDATE, (PostCommitUpdateEventListener) this);
+        listeners.appendListeners(EventType.POST_COMMIT_DELETE, (PostCommitDeleteEventListener) this);
+    }
+
+    // Copies every user and product row, in id order and batches
+    @Scheduled(initialDelayString = "${sharding.replication.sync-interval-ms:3600000}",
+            fixedDelayString = "${sharding.replication.sync-interval-ms:3600000}")
+    public void syncAll() {
+        for (String table : TABLES.values()) {
+            Object lastId = null;
+            while (true) {
+                List<Map<String, Object>> rows = lastId == null
+                        ? home.queryForList("SELECT * FROM " + table + " ORDER BY id LIMIT " + SYNC_BATCH)
+                        : home.queryForList("SELECT * FROM " + table + " WHERE id > ? ORDER BY id LIMIT "
+                                + SYNC_BATCH, lastId);
+                if (rows.isEmpty()) {
+                    break;
+                }
+                upsert(table, rows);
+                lastId = idOf(rows.get(rows.size() - 1));
+                if (rows.size() < SYNC_BATCH) {
+                    break;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        copy(event.getPersister().getMappedClass(), event.getId());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        copy(event.getPersister().getMappedClass(), event.getId());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        String table = TABLES.get(event.getPersister().getMappedClass());
+        if (table == null) {
+            return;
+        }
+        for (JdbcTemplate copy : copies) {
+            try {
+                copy.update("DELETE FROM " + table + " WHERE id = ?", event.getId());
+            } catch (DataIntegrityViolationException e) {
+                // Orders on that shard still reference it; the copy stays for them
+                log.atInfo().addKeyValue("table", table).addKeyValue("id", event.getId())
+                        .log("Kept a shard copy that is still referenced");
+            } catch (RuntimeException e) {
+                failed(table, event.getId(), e);
+            }
+        }
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return TABLES.containsKey(persister.getMappedClass());
+    }
+
+    // The row as committed on the home shard, so copies never carry a shard's own edits
+    private void copy(Class<?> type, Object id) {
+        String table = TABLES.get(type);
+        if (table == null) {
+            return;
+        }
+        try {
+            List<Map<String, Object>> rows = home.queryForList("SELECT * FROM " + table + " WHERE id = ?", id);
+            if (!rows.isEmpty()) {
+                upsert(table, rows);
+            }
+        } catch (RuntimeException e) {
+            // The next syncAll() copies it
+            failed(table, id, e);
+        }
+    }
+
+    private void upsert(String table, List<Map<String, Object>> rows) {
+        List<String> columns = new ArrayList<>(rows.get(0).keySet());
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(table).append(" (");
+        StringBuilder values = new StringBuilder();
+        StringBuilder updates = new StringBuilder();
+        for (int i = 0; i < columns.size(); i++) {
+            String column = columns.get(i);
+            sql.append(i > 0 ? ", " : "").append(column);
+            values.append(i > 0 ? ", " : "").append('?');
+            updates.append(i > 0 ? ", " : "").append(column).append(" = VALUES(").append(column).append(')');
+        }
+        sql.append(") VALUES (").append(values).append(") ON DUPLICATE KEY UPDATE ").append(updates);
+        List<Object[]> batch = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            batch.add(columns.stream().map(row::get).toArray());
+        }
+        for (JdbcTemplate copy : copies) {
+            copy.batchUpdate(sql.toString(), batch);
+        }
+    }
+
+    private void failed(String table, Object id, RuntimeException e) {
+        errors.increment();
+        log.atWarn().addKeyValue("table", table).addKeyValue("id", id).setCause(e)
+                .log("Could not copy a row to the shards");
+    }
+
+    // queryForList rows are case-insensitive maps, whatever case the database reports
+    private static Object idOf(Map<String, Object> row) {
+        return row.get("id");
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.ecommerce.config;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Consistent hash ring over the shard names. Each shard owns virtualNodes points on
+// the ring and a user id belongs to the first point at or after its own hash, so
+// adding a shard only moves the users that land on the new shard's points.
+public final class ShardRing {
+
+    private final TreeMap<Long, String> ring = new TreeMap<>();
+    private final List<String> shards;
+
+    public ShardRing(List<String> shards, int virtualNodes) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.shards = List.copyOf(shards);
+        for (String shard : this.shards) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(hash(shard + "#" + i), shard);
+            }
+        }
+    }
+
+    public String shardFor(long userId) {
+        Map.Entry<Long, String> owner = ring.ceilingEntry(hash(Long.toString(userId)));
+        return owner != null ? owner.getValue() : ring.firstEntry().getValue();
+    }
+
+    public List<String> shards() {
+        return shards;
+    }
+
+    // First 8 bytes of MD5: evenly spread and stable across JVMs, unlike String.hashCode
+    private static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            long hash = 0;
+            for (int i = 0; i < 8; i++) {
+                hash = (hash << 8) | (digest[i] & 0xff);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
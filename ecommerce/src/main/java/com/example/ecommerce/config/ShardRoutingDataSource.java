@@ -0,0 +1,45 @@
+package com.example.ecommerce.config;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+// Hands out connections to the shard in ShardContext, or to the home shard when no
+// shard is set (background work, auth, catalog). Must sit behind a
+// LazyConnectionDataSourceProxy so the connection is taken at the first statement;
+// a transaction then stays on that shard until it ends.
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final String homeShard;
+    private final Map<String, DataSource> shards;
+
+    public ShardRoutingDataSource(Map<String, DataSource> shards, String homeShard) {
+        this.homeShard = homeShard;
+        this.shards = Collections.unmodifiableMap(new LinkedHashMap<>(shards));
+        setTargetDataSources(new HashMap<>(shards));
+        setDefaultTargetDataSource(shards.get(homeShard));
+        // An unknown shard name is a bug, not a reason to write to the home shard
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    public String homeShard() {
+        return homeShard;
+    }
+
+    // Every shard's own pool by name, home shard first
+    public Map<String, DataSource> shards() {
+        return shards;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String shard = ShardContext.current();
+        return shard != null ? shard : homeShard;
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.ecommerce.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.metamodel.EntityType;
+
+// Prepares the extra shards at startup, before any request or scheduled job runs:
+//  1. Schema: Hibernate only manages the home shard (spring.jpa.hibernate.ddl-auto),
+//     so every other shard gets the same full schema here (update, validate or nothing,
+//     following ddl-auto). Users and products tables are included because order and
+//     cart rows have foreign keys to them; ShardReplicator keeps their rows copied.
+//  2. Ids: each shard hands out ids for its sharded tables from its own block
+//     (shard n starts at n * sharding.id-block + 1), so an order id is unique across
+//     shards and can be located by id. Order ids are ints: at most 21 shards.
+//  3. Placement: every user with orders or a cart on a shard must still map to that
+//     shard. A changed sharding.urls list that would move users is refused, since
+//     their data would silently stop being found; move their rows first.
+//  4. Reference data: users and products are copied from the home shard.
+public class ShardSchemaInitializer implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardSchemaInitializer.class);
+
+    // Tables whose rows live on the user's shard and get their ids from the database
+    static final List<String> SHARDED_IDENTITY_TABLES = List.of("orders", "order_item", "cart", "cart_item", "payment_events");
+
+    // Tables holding a user's rows on their shard, by user_id
+    static final List<String> USER_OWNED_TABLES = List.of("orders", "cart", "archived_orders", "order_views");
+
+    private final ShardRoutingDataSource shards;
+    private final ShardRing ring;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ShardReplicator replicator;
+    private final String ddlAuto;
+    private final long idBlock;
+
+    public ShardSchemaInitializer(ShardRoutingDataSource shards,
+                                  ShardRing ring,
+                                  EntityManagerFactory entityManagerFactory,
+                                  ShardReplicator replicator,
+                                  String ddlAuto,
+                                  long idBlock) {
+        this.shards = shards;
+        this.ring = ring;
+        this.entityManagerFactory = entityManagerFactory;
+        this.replicator = replicator;
+        this.ddlAuto = ddlAuto == null ? "none" : ddlAuto.trim().toLowerCase();
+        this.idBlock = idBlock;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        int index = 0;
+        for (Map.Entry<String, DataSource> shard : shards.shards().entrySet()) {
+            if (index > 0) {
+                manageSchema(shard.getKey(), shard.getValue());
+                reserveIdBlock(shard.getKey(), shard.getValue(), index * idBlock);
+            }
+            index++;
+        }
+        verifyPlacement(shards.shards(), ring);
+        replicator.syncAll();
+    }
+
+    private void manageSchema(String shard, DataSource dataSource) {
+        if (ddlAuto.equals("none")) {
+            log.atInfo().addKeyValue("shard", shard).log("Schema management is off, the shard must be migrated like the home shard");
+            return;
+        }
+        // create / create-drop on the home shard: shards keep their data and are updated
+        Map<String, Object> settings = hibernateSettings();
+        settings.put(AvailableSettings.HBM2DDL_AUTO, ddlAuto.equals("validate") ? "validate" : "update");
+        settings.put(AvailableSettings.HBM2DDL_HALT_ON_ERROR, true);
+        settings.put(AvailableSettings.JAKARTA_NON_JTA_DATASOURCE, dataSource);
+        StandardServiceRegistry registry = new StandardServiceRegistryBuilder().applySettings(settings).build();
+        try {
+            MetadataSources sources = new MetadataSources(registry);
+            for (EntityType<?> entity : entityManagerFactory.getMetamodel().getEntities()) {
+                sources.addAnnotatedClass(entity.getJavaType());
+            }
+            Metadata metadata = sources.buildMetadata();
+            SchemaManagementToolCoordinator.process(metadata, registry, settings, action -> { });
+        } finally {
+            StandardServiceRegistryBuilder.destroy(registry);
+        }
+    }
+
+    // The home shard's Hibernate settings (dialect, Boot's naming strategies) minus its connection
+    private Map<String, Object> hibernateSettings() {
+        Map<String, Object> settings = new HashMap<>();
+        entityManagerFactory.getProperties().forEach((key, value) -> {
+            if (key.startsWith("hibernate.") && !key.contains("connection") && !key.contains("datasource")
+                    && !key.startsWith("hibernate.hbm2ddl") && !key.startsWith("hibernate.resource.beans")) {
+                settings.put(key, value);
+            }
+        });
+        return settings;
+    }
+
+    // Moves the tables' next id up to the shard's block; never lowers it
+    private void reserveIdBlock(String shard, DataSource dataSource, long start) {
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        String product = databaseProduct(dataSource);
+        for (String table : SHARDED_IDENTITY_TABLES) {
+            Long max = jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+            if (max != null && max >= start) {
+                continue;
+            }
+            if (product.contains("mysql") || product.contains("mariadb")) {
+                jdbc.execute("ALTER TABLE " + table + " AUTO_INCREMENT = " + (start + 1));
+            } else if (product.contains("h2")) {
+                jdbc.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + (start + 1));
+            } else {
+                throw new IllegalStateException("Cannot set the id block of " + table + " on " + shard
+                        + " for database " + product);
+            }
+        }
+    }
+
+    // Fails startup when a user's orders or cart sit on a shard the ring no longer maps them to
+    static void verifyPlacement(Map<String, DataSource> shards, ShardRing ring) {
+        List<String> misplaced = new ArrayList<>();
+        long count = 0;
+        for (Map.Entry<String, DataSource> shard : shards.entrySet()) {
+            JdbcTemplate jdbc = new JdbcTemplate(shard.getValue());
+            String union = String.join(" UNION ", USER_OWNED_TABLES.stream()
+                    .map(table -> "SELECT user_id FROM " + table + " WHERE user_id IS NOT NULL")
+                    .toList());
+            for (Long userId : jdbc.queryForList(union, Long.class)) {
+                String owner = ring.shardFor(userId);
+                if (!owner.equals(shard.getKey())) {
+                    count++;
+                    if (misplaced.size() < 10) {
+                        misplaced.add("user " + userId + " on " + shard.getKey() + " -> " + owner);
+                    }
+                }
+            }
+        }
+        if (count > 0) {
+            throw new IllegalStateException("sharding.urls would move " + count + " users away from their data ("
+                    + String.join(", ", misplaced) + (count > misplaced.size() ? ", ..." : "")
+                    + "). Restore the previous list or move these users' rows to their new shard first.");
+        }
+    }
+
+    private static String databaseProduct(DataSource dataSource) {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            return connection.getMetaData().getDatabaseProductName().toLowerCase();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Cannot read the database product", e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+}
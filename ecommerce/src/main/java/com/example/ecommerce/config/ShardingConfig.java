@@ -0,0 +1,110 @@
+package com.example.ecommerce.config;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+
+// Only active when sharding.urls lists at least one extra database. The
+// spring.datasource one becomes shard-0, the home shard: it keeps the unsharded
+// tables (users, products, tokens, webhook queue) and serves all work that has no
+// shard in ShardContext. Orders, order items, carts and their read model and archive
+// live on the shard that owns the user (see ShardTemplate). ShardSchemaInitializer
+// prepares the other shards and ShardReplicator copies users and products to them.
+// Read replicas (ReadReplicaConfig) also define the dataSource bean, so startup
+// fails if both are set.
+@Configuration
+@ConditionalOnExpression("!'${sharding.urls:}'.isBlank()")
+public class ShardingConfig {
+
+    static final String HOME_SHARD = "shard-0";
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource homeShardDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName(HOME_SHARD);
+        return dataSource;
+    }
+
+    @Bean
+    public ShardRoutingDataSource shardRoutingDataSource(
+            HikariDataSource homeShardDataSource,
+            DataSourceProperties properties,
+            MeterRegistry meterRegistry,
+            @Value("${sharding.urls}") List<String> urls,
+            @Value("${sharding.username:}") String username,
+            @Value("${sharding.password:}") String password,
+            @Value("${sharding.maximum-pool-size:10}") int maximumPoolSize) {
+        Map<String, DataSource> shards = new LinkedHashMap<>();
+        shards.put(HOME_SHARD, homeShardDataSource);
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource shard = new HikariDataSource();
+            shard.setPoolName("shard-" + (i + 1));
+            shard.setJdbcUrl(urls.get(i).trim());
+            shard.setDriverClassName(properties.determineDriverClassName());
+            shard.setUsername(username.isBlank() ? properties.determineUsername() : username);
+            shard.setPassword(username.isBlank() ? properties.determinePassword() : password);
+            shard.setMaximumPoolSize(maximumPoolSize);
+            // hikaricp.* metrics per pool; Boot only binds the home shard, which is a bean
+            shard.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            shards.put(shard.getPoolName(), shard);
+        }
+        return new ShardRoutingDataSource(shards, HOME_SHARD);
+    }
+
+    // Shard names are fixed by position in sharding.urls: appending a database moves
+    // only the users it takes over, reordering the list moves everyone
+    @Bean
+    public ShardRing shardRing(@Value("${sharding.urls}") List<String> urls,
+                               @Value("${sharding.virtual-nodes:160}") int virtualNodes) {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i <= urls.size(); i++) {
+            names.add("shard-" + i);
+        }
+        return new ShardRing(names, virtualNodes);
+    }
+
+    @Bean
+    public ShardReplicator shardReplicator(ShardRoutingDataSource shardRoutingDataSource,
+                                           EntityManagerFactory entityManagerFactory,
+                                           MeterRegistry meterRegistry) {
+        return new ShardReplicator(shardRoutingDataSource, entityManagerFactory, meterRegistry);
+    }
+
+    // Runs once all singletons exist, before the application serves requests
+    @Bean
+    public ShardSchemaInitializer shardSchemaInitializer(
+            ShardRoutingDataSource shardRoutingDataSource,
+            ShardRing shardRing,
+            EntityManagerFactory entityManagerFactory,
+            ShardReplicator shardReplicator,
+            @Value("${spring.jpa.hibernate.ddl-auto:none}") String ddlAuto,
+            @Value("${sharding.id-block:100000000}") long idBlock) {
+        return new ShardSchemaInitializer(shardRoutingDataSource, shardRing, entityManagerFactory,
+                shardReplicator, ddlAuto, idBlock);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+}
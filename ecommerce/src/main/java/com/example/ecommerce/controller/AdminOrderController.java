@@ -8,15 +8,18 @@ import com.example.ecommerce.dto.OrderDTO;
 import com.example.ecommerce.dto.OrderStatsDTO;
 import com.example.ecommerce.dto.OrderStatusUpdateRequest;
 import com.example.ecommerce.service.OrderService;
+import com.example.ecommerce.service.ShardTemplate;
 
 @RestController
 @RequestMapping("/api/admin/orders")
 public class AdminOrderController {
 
     private final OrderService orderService;
+    private final ShardTemplate shardTemplate;
 
-    public AdminOrderController(OrderService orderService) {
+    public AdminOrderController(OrderService orderService, ShardTemplate shardTemplate) {
         this.orderService = orderService;
+        this.shardTemplate = shardTemplate;
     }
 
     //  Get all orders (Admin only)
@@ -36,7 +39,8 @@ public class AdminOrderController {
     //  Get order by ID (Admin only)
     @GetMapping("/{orderId}")
     public ResponseEntity<OrderDTO> getOrderById(@PathVariable int orderId) {
-        OrderDTO order = orderService.getOrderByIdForAdmin(orderId);
+        OrderDTO order = shardTemplate.onShard(orderService.locateOrder(orderId),
+                () -> orderService.getOrderByIdForAdmin(orderId));
         return ResponseEntity.ok(order);
     }
 
@@ -45,14 +49,15 @@ public class AdminOrderController {
     public ResponseEntity<OrderDTO> updateOrderStatus(
             @PathVariable int orderId,
             @RequestBody OrderStatusUpdateRequest request) {
-        OrderDTO updatedOrder = orderService.updateOrderStatus(orderId, request.getStatus());
+        OrderDTO updatedOrder = shardTemplate.onShard(orderService.locateOrder(orderId),
+                () -> orderService.updateOrderStatus(orderId, request.getStatus()));
         return ResponseEntity.ok(updatedOrder);
     }
 
     //  Get orders by user ID (Admin only)
     @GetMapping("/user/{userId}")
     public ResponseEntity<List<OrderDTO>> getOrdersByUserId(@PathVariable Long userId) {
-        List<OrderDTO> orders = orderService.getOrdersByUserId(userId);
+        List<OrderDTO> orders = shardTemplate.forUser(userId, () -> orderService.getOrdersByUserId(userId));
         return ResponseEntity.ok(orders);
     }
 
@@ -0,0 +1,40 @@
+package com.example.ecommerce.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import com.example.ecommerce.dto.UserRoleUpdateRequest;
+import com.example.ecommerce.service.UserService;
+
+@RestController
+@RequestMapping("/api/admin/users")
+public class AdminUserController {
+
+    private final UserService userService;
+
+    public AdminUserController(UserService userService) {
+        this.userService = userService;
+    }
+
+    //  Change a user's role (Admin only); tokens issued before the change stop working
+    @PutMapping("/{userId}/role")
+    public ResponseEntity<?> updateRole(@PathVariable Long userId, @RequestBody UserRoleUpdateRequest request) {
+        try {
+            userService.updateRole(userId, request.getRole());
+            return ResponseEntity.ok("Role updated");
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error updating role: " + e.getMessage());
+        }
+    }
+
+    //  Enable or disable a user (Admin only)
+    @PutMapping("/{userId}/enabled")
+    public ResponseEntity<?> setEnabled(@PathVariable Long userId, @RequestParam boolean enabled) {
+        try {
+            userService.setEnabled(userId, enabled);
+            return ResponseEntity.ok(enabled ? "User enabled" : "User disabled");
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error updating user: " + e.getMessage());
+        }
+    }
+}
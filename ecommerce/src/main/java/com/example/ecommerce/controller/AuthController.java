@@ -0,0 +1,56 @@
+package com.example.ecommerce.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.web.bind.annotation.*;
+
+import com.example.ecommerce.dto.AuthTokenResponse;
+import com.example.ecommerce.dto.LoginRequest;
+import com.example.ecommerce.dto.RefreshTokenRequest;
+import com.example.ecommerce.service.AuthService;
+import com.example.ecommerce.service.PasswordHashingBusyException;
+
+// Access/refresh token flow. /api/user/login still returns a single (longer lived) token.
+@RestController
+@RequestMapping("/api/auth")
+public class AuthController {
+
+    private final AuthService authService;
+
+    public AuthController(AuthService authService) {
+        this.authService = authService;
+    }
+
+    @PostMapping("/login")
+    public ResponseEntity<AuthTokenResponse> login(@RequestBody LoginRequest request) {
+        return ResponseEntity.ok(authService.login(request.getUsername(), request.getPassword()));
+    }
+
+    // Trade a refresh token for a new access token and a new refresh token (the old one stops working)
+    @PostMapping("/refresh")
+    public ResponseEntity<AuthTokenResponse> refresh(@RequestBody RefreshTokenRequest request) {
+        return ResponseEntity.ok(authService.refresh(request.getRefreshToken()));
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestBody(required = false) RefreshTokenRequest request,
+                                    @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authHeader) {
+        String accessToken = authHeader != null && authHeader.startsWith("Bearer ") ? authHeader.substring(7) : null;
+        authService.logout(request == null ? null : request.getRefreshToken(), accessToken);
+        return ResponseEntity.ok("Logged out");
+    }
+
+    @ExceptionHandler(AuthenticationException.class)
+    public ResponseEntity<String> unauthorized(AuthenticationException e) {
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(e.getMessage());
+    }
+
+    @ExceptionHandler(PasswordHashingBusyException.class)
+    public ResponseEntity<String> hashingBusy(PasswordHashingBusyException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "1")
+                .body(e.getMessage());
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.ecommerce.controller;
+
+import java.security.Principal;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import com.example.ecommerce.dto.QueueStatusDTO;
+import com.example.ecommerce.service.CheckoutAdmissionService;
+
+@RestController
+@RequestMapping("/api/checkout/queue")
+public class CheckoutQueueController {
+
+    private final CheckoutAdmissionService admissionService;
+
+    public CheckoutQueueController(CheckoutAdmissionService admissionService) {
+        this.admissionService = admissionService;
+    }
+
+    // Poll a queue ticket; retry checkout with X-Queue-Ticket once admitted is true
+    @GetMapping("/{ticket}")
+    public ResponseEntity<QueueStatusDTO> getQueueStatus(@PathVariable long ticket, Principal principal) {
+        QueueStatusDTO status = admissionService.status(principal.getName(), ticket);
+        return status == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(status);
+    }
+}
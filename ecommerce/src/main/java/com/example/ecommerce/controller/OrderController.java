@@ -5,6 +5,8 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.http.ResponseEntity;
 
 import com.example.ecommerce.dto.OrderDTO;
+import com.example.ecommerce.dto.OrderHistoryPageDTO;
+import com.example.ecommerce.service.IdempotencyService;
 import com.example.ecommerce.service.OrderService;
 
 @RestController
@@ -12,22 +14,28 @@ import com.example.ecommerce.service.OrderService;
 public class OrderController {
 
     private final OrderService orderService;
+    private final IdempotencyService idempotencyService;
 
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService, IdempotencyService idempotencyService) {
         this.orderService = orderService;
+        this.idempotencyService = idempotencyService;
     }
 
     // Place order for full cart (existing)
     @PostMapping("/cart/{cartId}")
-    public OrderDTO placeFullCartOrder(@PathVariable int cartId) {
-        return orderService.placeOrderFromCart(cartId, null);
+    public OrderDTO placeFullCartOrder(@PathVariable int cartId,
+                                       @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "cart:" + cartId,
+                () -> orderService.placeOrderFromCart(cartId, null));
     }
 
     // Place order for selected cart items (existing)
     @PostMapping("/cart/{cartId}/items")
     public OrderDTO placePartialOrder(@PathVariable int cartId,
-                                      @RequestBody List<Integer> selectedCartItemIds) {
-        return orderService.placeOrderFromCart(cartId, selectedCartItemIds);
+                                      @RequestBody List<Integer> selectedCartItemIds,
+                                      @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "cart:" + cartId + ":items:" + selectedCartItemIds,
+                () -> orderService.placeOrderFromCart(cartId, selectedCartItemIds));
     }
 
     // Get users order history
@@ -63,13 +71,17 @@ public class OrderController {
     // Get user's orders by status
     @GetMapping("/user/{userId}/status/{status}")
     public ResponseEntity<List<OrderDTO>> getUserOrdersByStatus(@PathVariable Long userId, @PathVariable String status) {
-        List<OrderDTO> userOrders = orderService.getOrdersByUserId(userId);
-        
-        List<OrderDTO> filteredOrders = userOrders.stream()
-                .filter(order -> order.getStatus().equalsIgnoreCase(status))
-                .toList();
-        
-        return ResponseEntity.ok(filteredOrders);
+        return ResponseEntity.ok(orderService.getOrdersByUserIdAndStatus(userId, status));
+    }
+
+    // Get users order history one page at a time (pass nextCursor back as cursor)
+    @GetMapping("/user/{userId}/history")
+    public ResponseEntity<OrderHistoryPageDTO> getUserOrderHistory(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Integer cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(orderService.getOrderHistoryPage(userId, status, cursor, size));
     }
     
     // Cancel order (user can only cancel their own order if still PENDING/PROCESSING)
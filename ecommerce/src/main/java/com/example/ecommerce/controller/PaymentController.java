@@ -2,29 +2,57 @@ package com.example.ecommerce.controller;
 
 import com.example.ecommerce.dto.PaymentRequest;
 import com.example.ecommerce.dto.PaymentResponse;
+import com.example.ecommerce.service.GatewayUnavailableException;
+import com.example.ecommerce.service.IdempotencyService;
 import com.example.ecommerce.service.PaymentService;
+import com.example.ecommerce.service.PaymentWebhookService;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api/payment")
 public class PaymentController {
 
     private final PaymentService paymentService;
+    private final IdempotencyService idempotencyService;
+    private final PaymentWebhookService paymentWebhookService;
 
-    public PaymentController(PaymentService paymentService) {
+    public PaymentController(PaymentService paymentService, IdempotencyService idempotencyService,
+                             PaymentWebhookService paymentWebhookService) {
         this.paymentService = paymentService;
+        this.idempotencyService = idempotencyService;
+        this.paymentWebhookService = paymentWebhookService;
     }
 
-    // Create Razorpay order and map to DB order
+    // Create Razorpay order and map to DB order (completes asynchronously)
     @PostMapping("/create-order/{dbOrderId}/{amount}")
-    public ResponseEntity<?> createOrder(@PathVariable int dbOrderId, @PathVariable double amount) {
+    public CompletableFuture<ResponseEntity<?>> createOrder(@PathVariable int dbOrderId, @PathVariable double amount,
+                                                            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        CompletableFuture<PaymentResponse> pending;
         try {
-            PaymentResponse response = paymentService.createOrder(amount, dbOrderId);
-            return ResponseEntity.ok(response);
+            pending = idempotencyService.execute(idempotencyKey,
+                    "payment:" + dbOrderId + ":" + amount,
+                    () -> paymentService.createOrder(amount, dbOrderId));
+        } catch (ResponseStatusException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(e.getStatusCode()).body(e.getReason()));
         } catch (Exception e) {
-            return ResponseEntity.badRequest().body("Error creating order: " + e.getMessage());
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body("Error creating order: " + e.getMessage()));
+        }
+        return pending.<ResponseEntity<?>>thenApply(ResponseEntity::ok)
+                .exceptionally(this::createOrderFailed);
+    }
+
+    private ResponseEntity<?> createOrderFailed(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof GatewayUnavailableException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(cause.getMessage());
         }
+        return ResponseEntity.badRequest().body("Error creating order: " + cause.getMessage());
     }
 
     // Verify payment
@@ -45,5 +73,19 @@ public class PaymentController {
             return ResponseEntity.internalServerError().body("Error verifying payment: " + e.getMessage());
         }
     }
-}
 
+    // Razorpay webhook: verify and queue the event, it is applied in the background
+    @PostMapping("/webhook")
+    public ResponseEntity<?> webhook(@RequestBody byte[] body,
+                                     @RequestHeader(value = "X-Razorpay-Signature", required = false) String signature,
+                                     @RequestHeader(value = "X-Razorpay-Event-Id", required = false) String eventId) {
+        try {
+            if (!paymentWebhookService.receive(body, signature, eventId)) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid webhook signature");
+            }
+            return ResponseEntity.ok().build();
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error receiving webhook: " + e.getMessage());
+        }
+    }
+}
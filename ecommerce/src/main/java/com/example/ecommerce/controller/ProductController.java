@@ -2,6 +2,8 @@ package com.example.ecommerce.controller;
 
 import com.example.ecommerce.entity.Product;
 import com.example.ecommerce.service.ProductService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -17,6 +19,8 @@ import java.util.List;
 @RequestMapping("/api/products")
 public class ProductController {
 
+    private static final Logger log = LoggerFactory.getLogger(ProductController.class);
+
     private final ProductService productService;
     public ProductController(ProductService productService) {
         this.productService = productService;
@@ -37,7 +41,7 @@ public class ProductController {
 
             return ResponseEntity.ok(productService.saveProduct(product, imageFile));
         } catch (Exception e) {
-        	e.printStackTrace();
+            log.error("Failed to add product", e);
             return ResponseEntity.badRequest().build();
         }
     }
@@ -78,7 +82,7 @@ public class ProductController {
 
             return ResponseEntity.ok(productService.updateProduct(id, updatedProduct, newImage));
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("Failed to update product {}", id, e);
             return ResponseEntity.badRequest().build();
         }
     }
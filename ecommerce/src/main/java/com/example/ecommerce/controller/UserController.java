@@ -2,6 +2,7 @@ package com.example.ecommerce.controller;
 
 
 import com.example.ecommerce.entity.User;
+import com.example.ecommerce.service.PasswordHashingBusyException;
 import com.example.ecommerce.service.UserService;
 
 import java.util.Map;
@@ -31,6 +32,14 @@ public class UserController {
 		return token;
 	}
 	
+	// Login and register wait on the password hashing pool; when it is full, shed the request
+	@ExceptionHandler(PasswordHashingBusyException.class)
+	public ResponseEntity<String> hashingBusy(PasswordHashingBusyException e) {
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+				.header("Retry-After", "1")
+				.body(e.getMessage());
+	}
+	
 	@GetMapping("/user/")
 	public String home(){
 		return "welcome home :)";
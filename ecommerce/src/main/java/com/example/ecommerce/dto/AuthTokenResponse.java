@@ -0,0 +1,31 @@
+package com.example.ecommerce.dto;
+
+//DTO for a short-lived access token and its refresh token
+public class AuthTokenResponse {
+ private String accessToken;
+ private String refreshToken;
+ private String tokenType = "Bearer";
+ private long expiresIn;
+
+ public AuthTokenResponse() {}
+
+ public AuthTokenResponse(String accessToken, String refreshToken, long expiresIn) {
+     this.accessToken = accessToken;
+     this.refreshToken = refreshToken;
+     this.expiresIn = expiresIn;
+ }
+
+ // Getters and Setters
+ public String getAccessToken() { return accessToken; }
+ public void setAccessToken(String accessToken) { this.accessToken = accessToken; }
+
+ public String getRefreshToken() { return refreshToken; }
+ public void setRefreshToken(String refreshToken) { this.refreshToken = refreshToken; }
+
+ public String getTokenType() { return tokenType; }
+ public void setTokenType(String tokenType) { this.tokenType = tokenType; }
+
+ // Seconds until the access token expires
+ public long getExpiresIn() { return expiresIn; }
+ public void setExpiresIn(long expiresIn) { this.expiresIn = expiresIn; }
+}
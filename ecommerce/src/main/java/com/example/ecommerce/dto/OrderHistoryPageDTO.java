@@ -0,0 +1,28 @@
+package com.example.ecommerce.dto;
+
+import java.util.List;
+
+//DTO for one page of a user's order history (keyset pagination on order id)
+public class OrderHistoryPageDTO {
+ private List<OrderDTO> orders;
+ private Integer nextCursor;
+ private boolean hasMore;
+
+ public OrderHistoryPageDTO() {}
+
+ public OrderHistoryPageDTO(List<OrderDTO> orders, Integer nextCursor, boolean hasMore) {
+     this.orders = orders;
+     this.nextCursor = nextCursor;
+     this.hasMore = hasMore;
+ }
+
+ // Getters and Setters
+ public List<OrderDTO> getOrders() { return orders; }
+ public void setOrders(List<OrderDTO> orders) { this.orders = orders; }
+
+ public Integer getNextCursor() { return nextCursor; }
+ public void setNextCursor(Integer nextCursor) { this.nextCursor = nextCursor; }
+
+ public boolean isHasMore() { return hasMore; }
+ public void setHasMore(boolean hasMore) { this.hasMore = hasMore; }
+}
@@ -2,6 +2,8 @@ package com.example.ecommerce.dto;
 
 import org.springframework.stereotype.Component;
 import com.example.ecommerce.dto.*;
+import com.example.ecommerce.entity.ArchivedOrder;
+import com.example.ecommerce.entity.ArchivedOrderItem;
 import com.example.ecommerce.entity.Order;
 import com.example.ecommerce.entity.OrderItem;
 
@@ -40,4 +42,30 @@ public class OrderMapper {
                 items
         );
     }
+
+    // Archived items carry their own product snapshot
+    public OrderItemDTO toDTO(ArchivedOrderItem item) {
+        ProductDTO product = item.getProductId() == null ? null : new ProductDTO(
+                item.getProductId(),
+                item.getProductName(),
+                item.getProductDescription(),
+                item.getProductPrice()
+        );
+        return new OrderItemDTO(item.getId(), product, item.getQuantity(), item.getPrice());
+    }
+
+    public OrderDTO toDTO(ArchivedOrder order) {
+        List<OrderItemDTO> items = order.getOrderItems().stream()
+                .map(this::toDTO)
+                .collect(Collectors.toList());
+
+        return new OrderDTO(
+                order.getId(),
+                order.getUserId(),
+                order.getOrderDate(),
+                order.getStatus(),
+                order.getTotalPrice(),
+                items
+        );
+    }
 }
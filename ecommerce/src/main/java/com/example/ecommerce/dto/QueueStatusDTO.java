@@ -0,0 +1,31 @@
+package com.example.ecommerce.dto;
+
+//DTO for a checkout queue ticket (returned with 429 and by the polling endpoint)
+public class QueueStatusDTO {
+ private long ticket;
+ private long position;
+ private long estimatedWaitSeconds;
+ private boolean admitted;
+
+ public QueueStatusDTO() {}
+
+ public QueueStatusDTO(long ticket, long position, long estimatedWaitSeconds, boolean admitted) {
+     this.ticket = ticket;
+     this.position = position;
+     this.estimatedWaitSeconds = estimatedWaitSeconds;
+     this.admitted = admitted;
+ }
+
+ // Getters and Setters
+ public long getTicket() { return ticket; }
+ public void setTicket(long ticket) { this.ticket = ticket; }
+
+ public long getPosition() { return position; }
+ public void setPosition(long position) { this.position = position; }
+
+ public long getEstimatedWaitSeconds() { return estimatedWaitSeconds; }
+ public void setEstimatedWaitSeconds(long estimatedWaitSeconds) { this.estimatedWaitSeconds = estimatedWaitSeconds; }
+
+ public boolean isAdmitted() { return admitted; }
+ public void setAdmitted(boolean admitted) { this.admitted = admitted; }
+}
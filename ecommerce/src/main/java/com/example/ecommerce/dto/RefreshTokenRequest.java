@@ -0,0 +1,15 @@
+package com.example.ecommerce.dto;
+
+//DTO for /api/auth/refresh and /api/auth/logout
+public class RefreshTokenRequest {
+ private String refreshToken;
+
+ public RefreshTokenRequest() {}
+
+ public RefreshTokenRequest(String refreshToken) {
+     this.refreshToken = refreshToken;
+ }
+
+ public String getRefreshToken() { return refreshToken; }
+ public void setRefreshToken(String refreshToken) { this.refreshToken = refreshToken; }
+}
@@ -0,0 +1,20 @@
+package com.example.ecommerce.dto;
+
+//DTO for user role update request
+public class UserRoleUpdateRequest {
+ private String role;
+
+ public UserRoleUpdateRequest() {}
+
+ public UserRoleUpdateRequest(String role) {
+     this.role = role;
+ }
+
+ public String getRole() {
+     return role;
+ }
+
+ public void setRole(String role) {
+     this.role = role;
+ }
+}
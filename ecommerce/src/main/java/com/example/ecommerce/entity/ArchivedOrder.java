@@ -0,0 +1,76 @@
+package com.example.ecommerce.entity;
+
+import jakarta.persistence.*;
+import java.util.*;
+
+import org.springframework.data.domain.Persistable;
+
+// Cold copy of a finished order, moved out of "orders" by OrderArchiveService.
+// Keeps the original order id so links and lookups by id keep working.
+@Entity
+@Table(name = "archived_orders", indexes = {
+        @Index(name = "idx_archived_orders_user", columnList = "user_id")
+})
+public class ArchivedOrder implements Persistable<Integer> {
+
+    @Id
+    private int id;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    private Date orderDate;
+
+    private String status;
+
+    private double totalPrice;
+
+    private String razorpayOrderId;
+    private String razorpayPaymentId;
+
+    private Date archivedAt;
+
+    // Items are snapshotted with product details so they survive product deletion
+    @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
+    private List<ArchivedOrderItem> orderItems = new ArrayList<>();
+
+    // Id is copied from the live order, so tell Spring Data to persist instead of merge
+    @Transient
+    private boolean isNew = true;
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() { this.isNew = false; }
+
+    @Override
+    public Integer getId() { return id; }
+
+    @Override
+    public boolean isNew() { return isNew; }
+
+    public void setId(int id) { this.id = id; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public Date getOrderDate() { return orderDate; }
+    public void setOrderDate(Date orderDate) { this.orderDate = orderDate; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public double getTotalPrice() { return totalPrice; }
+    public void setTotalPrice(double totalPrice) { this.totalPrice = totalPrice; }
+
+    public String getRazorpayOrderId() { return razorpayOrderId; }
+    public void setRazorpayOrderId(String razorpayOrderId) { this.razorpayOrderId = razorpayOrderId; }
+
+    public String getRazorpayPaymentId() { return razorpayPaymentId; }
+    public void setRazorpayPaymentId(String razorpayPaymentId) { this.razorpayPaymentId = razorpayPaymentId; }
+
+    public Date getArchivedAt() { return archivedAt; }
+    public void setArchivedAt(Date archivedAt) { this.archivedAt = archivedAt; }
+
+    public List<ArchivedOrderItem> getOrderItems() { return orderItems; }
+    public void setOrderItems(List<ArchivedOrderItem> orderItems) { this.orderItems = orderItems; }
+}
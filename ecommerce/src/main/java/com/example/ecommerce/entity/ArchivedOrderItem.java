@@ -0,0 +1,48 @@
+package com.example.ecommerce.entity;
+
+import jakarta.persistence.*;
+
+@Entity
+@Table(name = "archived_order_item")
+public class ArchivedOrderItem {
+
+    @Id
+    private int id;
+
+    private int quantity;
+    private double price;
+
+    // Product snapshot (no FK, the product may be gone by now)
+    private Integer productId;
+    private String productName;
+    private String productDescription;
+    private double productPrice;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "order_id")
+    private ArchivedOrder order;
+
+    public int getId() { return id; }
+    public void setId(int id) { this.id = id; }
+
+    public int getQuantity() { return quantity; }
+    public void setQuantity(int quantity) { this.quantity = quantity; }
+
+    public double getPrice() { return price; }
+    public void setPrice(double price) { this.price = price; }
+
+    public Integer getProductId() { return productId; }
+    public void setProductId(Integer productId) { this.productId = productId; }
+
+    public String getProductName() { return productName; }
+    public void setProductName(String productName) { this.productName = productName; }
+
+    public String getProductDescription() { return productDescription; }
+    public void setProductDescription(String productDescription) { this.productDescription = productDescription; }
+
+    public double getProductPrice() { return productPrice; }
+    public void setProductPrice(double productPrice) { this.productPrice = productPrice; }
+
+    public ArchivedOrder getOrder() { return order; }
+    public void setOrder(ArchivedOrder order) { this.order = order; }
+}
@@ -0,0 +1,68 @@
+package com.example.ecommerce.entity;
+
+import jakarta.persistence.*;
+import java.util.Date;
+
+import org.springframework.data.domain.Persistable;
+
+// Read model of an order: one flat row per order with the items (and the
+// product details at order time) stored as a JSON document.
+// Order detail and history reads hit only this table.
+@Entity
+@Table(name = "order_views", indexes = {
+        @Index(name = "idx_order_views_user", columnList = "user_id, id"),
+        @Index(name = "idx_order_views_status", columnList = "status")
+})
+public class OrderView implements Persistable<Integer> {
+
+    @Id
+    private int id;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    private Date orderDate;
+
+    private String status;
+
+    private double totalPrice;
+
+    @Lob
+    @Column(nullable = false)
+    private String itemsJson;
+
+    private Date updatedAt;
+
+    // Id is the order id, so tell Spring Data to persist instead of merge
+    @Transient
+    private boolean isNew = true;
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() { this.isNew = false; }
+
+    @Override
+    public Integer getId() { return id; }
+    public void setId(int id) { this.id = id; }
+
+    @Override
+    public boolean isNew() { return isNew; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public Date getOrderDate() { return orderDate; }
+    public void setOrderDate(Date orderDate) { this.orderDate = orderDate; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public double getTotalPrice() { return totalPrice; }
+    public void setTotalPrice(double totalPrice) { this.totalPrice = totalPrice; }
+
+    public String getItemsJson() { return itemsJson; }
+    public void setItemsJson(String itemsJson) { this.itemsJson = itemsJson; }
+
+    public Date getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Date updatedAt) { this.updatedAt = updatedAt; }
+}
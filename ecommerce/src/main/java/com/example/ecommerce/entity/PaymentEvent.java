@@ -0,0 +1,74 @@
+package com.example.ecommerce.entity;
+
+import jakarta.persistence.*;
+import java.util.Date;
+
+// A payment webhook delivery, queued until the background consumer applies it.
+// event_id is unique so a redelivered webhook is stored only once.
+@Entity
+@Table(name = "payment_events",
+        uniqueConstraints = @UniqueConstraint(name = "uk_payment_events_event_id", columnNames = "event_id"),
+        indexes = @Index(name = "idx_payment_events_status", columnList = "status, id"))
+public class PaymentEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "event_id", nullable = false, length = 100)
+    private String eventId;
+
+    private String eventType;
+
+    private String razorpayOrderId;
+
+    private String paymentId;
+
+    @Lob
+    private String payload;
+
+    // NEW, PROCESSED, IGNORED or FAILED
+    private String status;
+
+    private int attempts;
+
+    @Column(length = 500)
+    private String lastError;
+
+    private Date receivedAt;
+
+    private Date processedAt;
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getEventId() { return eventId; }
+    public void setEventId(String eventId) { this.eventId = eventId; }
+
+    public String getEventType() { return eventType; }
+    public void setEventType(String eventType) { this.eventType = eventType; }
+
+    public String getRazorpayOrderId() { return razorpayOrderId; }
+    public void setRazorpayOrderId(String razorpayOrderId) { this.razorpayOrderId = razorpayOrderId; }
+
+    public String getPaymentId() { return paymentId; }
+    public void setPaymentId(String paymentId) { this.paymentId = paymentId; }
+
+    public String getPayload() { return payload; }
+    public void setPayload(String payload) { this.payload = payload; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+
+    public Date getReceivedAt() { return receivedAt; }
+    public void setReceivedAt(Date receivedAt) { this.receivedAt = receivedAt; }
+
+    public Date getProcessedAt() { return processedAt; }
+    public void setProcessedAt(Date processedAt) { this.processedAt = processedAt; }
+}
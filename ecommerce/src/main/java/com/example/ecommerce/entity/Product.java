@@ -17,6 +17,8 @@ public class Product {
     private String imageUrl;      // ✅ Cloudinary secure URL
     private String imagePublicId; // ✅ Cloudinary public_id (for deletion)
 
+    private Integer stock;        // units on hand, null = stock not tracked
+
     public Product() {}
 
     public Product(String name, String description, double price) {
@@ -43,4 +45,7 @@ public class Product {
 
     public String getImagePublicId() { return imagePublicId; }
     public void setImagePublicId(String imagePublicId) { this.imagePublicId = imagePublicId; }
+
+    public Integer getStock() { return stock; }
+    public void setStock(Integer stock) { this.stock = stock; }
 }
@@ -0,0 +1,39 @@
+package com.example.ecommerce.entity;
+
+import jakarta.persistence.*;
+import java.util.Date;
+
+// An access token (by its jti) that must be refused until it expires. Rows are
+// the source of the in-memory deny list on every node and are purged after expiry.
+@Entity
+@Table(name = "revoked_tokens",
+        uniqueConstraints = @UniqueConstraint(name = "uk_revoked_tokens_jti", columnNames = "jti"),
+        indexes = @Index(name = "idx_revoked_tokens_expires", columnList = "expires_at"))
+public class RevokedToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 36)
+    private String jti;
+
+    @Column(name = "expires_at", nullable = false)
+    private Date expiresAt;
+
+    public RevokedToken() {}
+
+    public RevokedToken(String jti, Date expiresAt) {
+        this.jti = jti;
+        this.expiresAt = expiresAt;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getJti() { return jti; }
+    public void setJti(String jti) { this.jti = jti; }
+
+    public Date getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(Date expiresAt) { this.expiresAt = expiresAt; }
+}
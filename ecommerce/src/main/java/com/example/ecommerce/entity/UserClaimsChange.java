@@ -0,0 +1,39 @@
+package com.example.ecommerce.entity;
+
+import jakarta.persistence.*;
+import java.util.Date;
+
+// A change to a user's role or enabled flag. Access tokens issued before changedAt
+// carry outdated claims; every node polls these rows (see UserCache) and they are
+// purged once no token from before the change can still be valid.
+@Entity
+@Table(name = "user_claims_changes",
+        indexes = @Index(name = "idx_user_claims_changes_changed", columnList = "changed_at"))
+public class UserClaimsChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "changed_at", nullable = false)
+    private Date changedAt;
+
+    public UserClaimsChange() {}
+
+    public UserClaimsChange(Long userId, Date changedAt) {
+        this.userId = userId;
+        this.changedAt = changedAt;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public Date getChangedAt() { return changedAt; }
+    public void setChangedAt(Date changedAt) { this.changedAt = changedAt; }
+}
@@ -0,0 +1,52 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.entity.ArchivedOrder;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, Integer> {
+
+    // Single archived order with its item snapshots
+    @EntityGraph(attributePaths = "orderItems")
+    Optional<ArchivedOrder> findWithItemsById(int id);
+
+    @Query("SELECT DISTINCT o FROM ArchivedOrder o LEFT JOIN FETCH o.orderItems WHERE o.id IN ?1")
+    List<ArchivedOrder> findAllWithItemsByIdIn(List<Integer> ids);
+
+    // Admin listings, items fetched in the same query (newest first)
+    @EntityGraph(attributePaths = "orderItems")
+    List<ArchivedOrder> findAllByOrderByOrderDateDesc();
+
+    @EntityGraph(attributePaths = "orderItems")
+    List<ArchivedOrder> findByStatusOrderByOrderDateDesc(String status);
+
+    // A user's archived order ids, for findAllWithItemsByIdIn
+    @Query("SELECT o.id FROM ArchivedOrder o WHERE o.userId = ?1")
+    List<Integer> findIdsByUserId(Long userId);
+
+    @Query("SELECT o.id FROM ArchivedOrder o WHERE o.userId = ?1 AND o.status = ?2")
+    List<Integer> findIdsByUserIdAndStatus(Long userId, String status);
+
+    // Keyset page of a user's archived order ids (id < cursor, newest first), same shape as OrderViewRepository's
+    @Query("SELECT o.id FROM ArchivedOrder o WHERE o.userId = ?1 AND o.id < ?2 ORDER BY o.id DESC")
+    List<Integer> findPageIdsByUserId(Long userId, int beforeId, Pageable pageable);
+
+    @Query("SELECT o.id FROM ArchivedOrder o WHERE o.userId = ?1 AND o.status = ?2 AND o.id < ?3 ORDER BY o.id DESC")
+    List<Integer> findPageIdsByUserIdAndStatus(Long userId, String status, int beforeId, Pageable pageable);
+
+    long countByStatus(String status);
+
+    @Query("SELECT SUM(o.totalPrice) FROM ArchivedOrder o WHERE o.status IN ?1")
+    Double getTotalRevenueByStatuses(List<String> statuses);
+
+    @Query("SELECT SUM(o.totalPrice) FROM ArchivedOrder o WHERE o.orderDate >= ?1 AND o.status IN ?2")
+    Double getRevenueAfterDateByStatuses(Date date, List<String> statuses);
+}
@@ -2,6 +2,15 @@ package com.example.ecommerce.repository;
 
 import com.example.ecommerce.entity.Cart;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
 public interface CartRepository extends JpaRepository<Cart, Integer> {
+
+    // Remove the products of an order from its owner's cart in one statement
+    @Modifying
+    @Query("DELETE FROM CartItem ci " +
+           "WHERE ci.cart.id = (SELECT c.id FROM Cart c WHERE c.user.id = (SELECT o.user.id FROM Order o WHERE o.id = ?1)) " +
+           "AND ci.product.id IN (SELECT oi.product.id FROM OrderItem oi WHERE oi.order.id = ?1)")
+    int deleteOrderedItems(int orderId);
 }
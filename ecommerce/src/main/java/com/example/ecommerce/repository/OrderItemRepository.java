@@ -1,8 +1,21 @@
 package com.example.ecommerce.repository;
 
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import com.example.ecommerce.entity.OrderItem;
 
 public interface OrderItemRepository extends JpaRepository<OrderItem, Integer> {
+
+    // Units per product held by orders in the given statuses
+    @Query("SELECT oi.product.id AS productId, SUM(oi.quantity) AS quantity FROM OrderItem oi " +
+           "WHERE oi.order.status IN ?1 AND oi.product.id IN ?2 GROUP BY oi.product.id")
+    List<StockLine> sumQuantityByStatusInAndProductIdIn(List<String> statuses, List<Integer> productIds);
+
+    // Units per product of the given orders, only those currently in the given status
+    @Query("SELECT oi.product.id AS productId, SUM(oi.quantity) AS quantity FROM OrderItem oi " +
+           "WHERE oi.order.id IN ?1 AND oi.order.status = ?2 GROUP BY oi.product.id")
+    List<StockLine> sumQuantityByOrderIdInAndStatus(List<Integer> orderIds, String status);
 }
\ No newline at end of file
@@ -2,9 +2,12 @@ package com.example.ecommerce.repository;
 
 import com.example.ecommerce.entity.Order;
 import com.example.ecommerce.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Date;
 import java.util.List;
@@ -13,6 +16,8 @@ import java.util.List;
 public interface OrderRepository extends JpaRepository<Order, Integer> {
 	
 	Order findByRazorpayOrderId(String razorpayOrderId);
+
+	boolean existsByRazorpayOrderId(String razorpayOrderId);
 	
     // Find all orders ordered by date (newest first)
     List<Order> findAllByOrderByOrderDateDesc();
@@ -50,5 +55,57 @@ public interface OrderRepository extends JpaRepository<Order, Integer> {
 
     // Find orders by user and status
     List<Order> findByUserAndStatusOrderByOrderDateDesc(User user, String status);
-}
 
+    // Oldest orders in the given statuses placed before the cutoff (one batch of ids)
+    @Query("SELECT o.id FROM Order o WHERE o.status IN ?1 AND o.orderDate < ?2 ORDER BY o.orderDate")
+    List<Integer> findIdsByStatusInAndOrderDateBefore(List<String> statuses, Date cutoff, Pageable pageable);
+
+    // Move an order to a new status unless it left the expected statuses meanwhile.
+    // One order per statement, so callers know exactly which orders moved.
+    @Modifying
+    @Query("UPDATE Order o SET o.status = ?2 WHERE o.id = ?1 AND o.status IN ?3")
+    int updateStatusByIdWhereStatusIn(int id, String newStatus, List<String> expectedStatuses);
+
+    // Orders that have no read-model row yet (for backfill)
+    @Query("SELECT o.id FROM Order o WHERE NOT EXISTS (SELECT v.id FROM OrderView v WHERE v.id = o.id) ORDER BY o.id")
+    List<Integer> findIdsWithoutView(Pageable pageable);
+
+    // Orders with items, products and user in one query
+    @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.orderItems oi LEFT JOIN FETCH oi.product " +
+           "LEFT JOIN FETCH o.user WHERE o.id IN ?1")
+    List<Order> findAllWithItemsByIdIn(List<Integer> ids);
+
+    // Attach the gateway order id, only while the order is still PENDING
+    @Transactional
+    @Modifying
+    @Query("UPDATE Order o SET o.razorpayOrderId = ?2, o.status = 'CREATED' WHERE o.id = ?1 AND o.status = 'PENDING'")
+    int markCreated(int id, String razorpayOrderId);
+
+    // Payment transitions: one guarded statement each, 0 rows means the order was
+    // unknown or no longer waiting for payment
+    @Modifying
+    @Query("UPDATE Order o SET o.status = 'PAID', o.razorpayPaymentId = ?2 " +
+           "WHERE o.razorpayOrderId = ?1 AND o.status IN ('CREATED', 'PENDING')")
+    int markPaid(String razorpayOrderId, String paymentId);
+
+    @Modifying
+    @Query("UPDATE Order o SET o.status = 'PAYMENT_FAILED' " +
+           "WHERE o.razorpayOrderId = ?1 AND o.status IN ('CREATED', 'PENDING')")
+    int markPaymentFailed(String razorpayOrderId);
+
+    @Modifying
+    @Query("UPDATE Order o SET o.status = 'PAID', o.razorpayPaymentId = ?2 " +
+           "WHERE o.id = ?1 AND o.status IN ('CREATED', 'PENDING')")
+    int markPaidById(int id, String paymentId);
+
+    @Query("SELECT o.id FROM Order o WHERE o.razorpayOrderId = ?1")
+    Integer findIdByRazorpayOrderId(String razorpayOrderId);
+
+    // Orders waiting on the gateway since before the cutoff, keyset-paged by id
+    @Query("SELECT o.id AS id, o.razorpayOrderId AS razorpayOrderId FROM Order o " +
+           "WHERE o.status = 'CREATED' AND o.orderDate < ?1 AND o.id > ?2 ORDER BY o.id")
+    List<PendingPayment> findCreatedBefore(Date cutoff, int afterId, Pageable pageable);
+
+    @Query("SELECT MIN(o.orderDate) FROM Order o WHERE o.status = ?1")
+    Date findOldestOrderDateByStatus(String status);
+}
@@ -0,0 +1,48 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.entity.OrderView;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface OrderViewRepository extends JpaRepository<OrderView, Integer> {
+
+    // All orders (newest first)
+    List<OrderView> findAllByOrderByOrderDateDesc();
+
+    // Orders by status (newest first)
+    List<OrderView> findByStatusOrderByOrderDateDesc(String status);
+
+    // Orders by user (newest first)
+    List<OrderView> findByUserIdOrderByOrderDateDesc(Long userId);
+
+    // Orders by user and status (newest first)
+    List<OrderView> findByUserIdAndStatusOrderByOrderDateDesc(Long userId, String status);
+
+    // Keyset page of a user's orders (id < cursor, newest first)
+    @Query("SELECT v FROM OrderView v WHERE v.userId = ?1 AND v.id < ?2 ORDER BY v.id DESC")
+    List<OrderView> findPageByUserId(Long userId, int beforeId, Pageable pageable);
+
+    @Query("SELECT v FROM OrderView v WHERE v.userId = ?1 AND v.status = ?2 AND v.id < ?3 ORDER BY v.id DESC")
+    List<OrderView> findPageByUserIdAndStatus(Long userId, String status, int beforeId, Pageable pageable);
+
+    // Keep the view in step with a status change on the order
+    @Transactional
+    @Modifying
+    @Query("UPDATE OrderView v SET v.status = ?2, v.updatedAt = ?3 WHERE v.id = ?1")
+    int updateStatus(int orderId, String status, Date updatedAt);
+
+    // Copy the current status of a batch of orders onto their views
+    @Transactional
+    @Modifying
+    @Query("UPDATE OrderView v SET v.status = ?2, v.updatedAt = ?3 WHERE v.id IN " +
+           "(SELECT o.id FROM Order o WHERE o.id IN ?1 AND o.status = ?2)")
+    int updateStatusForOrdersIn(List<Integer> orderIds, String status, Date updatedAt);
+}
@@ -0,0 +1,34 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.entity.PaymentEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface PaymentEventRepository extends JpaRepository<PaymentEvent, Long> {
+
+    // Next batch of queued events, oldest first
+    List<PaymentEvent> findByStatusAndIdGreaterThanOrderByIdAsc(String status, Long afterId, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE PaymentEvent e SET e.status = ?2, e.processedAt = ?3 WHERE e.id IN ?1")
+    int updateStatus(List<Long> ids, String status, Date processedAt);
+
+    // Take a queued event; the row stays locked until the caller's transaction ends
+    @Modifying
+    @Query("UPDATE PaymentEvent e SET e.status = ?2, e.processedAt = ?3 WHERE e.id = ?1 AND e.status = 'NEW'")
+    int claim(Long id, String status, Date processedAt);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE PaymentEvent e SET e.status = ?2, e.attempts = ?3, e.lastError = ?4 WHERE e.id = ?1")
+    int recordFailure(Long id, String status, int attempts, String lastError);
+}
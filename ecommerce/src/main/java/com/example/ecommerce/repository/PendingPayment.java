@@ -0,0 +1,9 @@
+package com.example.ecommerce.repository;
+
+// An order waiting for its gateway payment (see OrderRepository.findCreatedBefore)
+public interface PendingPayment {
+
+    Integer getId();
+
+    String getRazorpayOrderId();
+}
@@ -1,9 +1,16 @@
 package com.example.ecommerce.repository;
 
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import com.example.ecommerce.entity.Product;
 
 public interface ProductRepository extends JpaRepository<Product, Integer> {
+
+    // Durable stock levels (null stock = not tracked)
+    @Query("SELECT p.id AS productId, p.stock AS quantity FROM Product p WHERE p.id IN ?1")
+    List<StockLine> findStockByIdIn(List<Integer> ids);
 }
 
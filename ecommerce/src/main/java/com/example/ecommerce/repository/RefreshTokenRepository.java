@@ -0,0 +1,31 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.entity.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    RefreshToken findByTokenHash(String tokenHash);
+
+    // Guarded: only one of two concurrent refreshes with the same token wins
+    @Modifying
+    @Query("UPDATE RefreshToken t SET t.revokedAt = ?2 WHERE t.id = ?1 AND t.revokedAt IS NULL")
+    int revoke(Long id, Date revokedAt);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE RefreshToken t SET t.revokedAt = ?2 WHERE t.familyId = ?1 AND t.revokedAt IS NULL")
+    int revokeFamily(String familyId, Date revokedAt);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM RefreshToken t WHERE t.expiresAt < ?1")
+    int deleteExpired(Date now);
+}
@@ -0,0 +1,7 @@
+package com.example.ecommerce.repository;
+
+// Projection: a quantity of one product (stock level, or units held by orders)
+public interface StockLine {
+    Integer getProductId();
+    Number getQuantity();
+}
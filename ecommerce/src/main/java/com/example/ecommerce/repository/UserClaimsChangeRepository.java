@@ -0,0 +1,23 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.entity.UserClaimsChange;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface UserClaimsChangeRepository extends JpaRepository<UserClaimsChange, Long> {
+
+    // Changes recorded since the last sync (by any node) that still matter
+    List<UserClaimsChange> findByIdGreaterThanAndChangedAtAfterOrderByIdAsc(Long afterId, Date since);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM UserClaimsChange c WHERE c.changedAt < ?1")
+    int deleteChangedBefore(Date cutoff);
+}
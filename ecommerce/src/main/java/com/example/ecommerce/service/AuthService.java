@@ -0,0 +1,146 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.dto.AuthTokenResponse;
+import com.example.ecommerce.entity.RefreshToken;
+import com.example.ecommerce.entity.User;
+import com.example.ecommerce.repository.RefreshTokenRepository;
+import com.example.ecommerce.repository.UserRepository;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.UUID;
+
+// Token login: the password (BCrypt) is checked once per session, after that the
+// client trades its refresh token for a new short-lived access token.
+// Refresh tokens rotate on every use; a revoked token presented again means it
+// was copied, so its whole family is revoked and the user has to log in again.
+@Service
+public class AuthService {
+
+    private final AuthenticationManager authManager;
+    private final UserRepository userRepository;
+    private final UserCache userCache;
+    private final JwtService jwtService;
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final TokenDenyList tokenDenyList;
+    private final TransactionTemplate transactionTemplate;
+    private final SecureRandom random = new SecureRandom();
+
+    @Value("${jwt.refresh-token.ttl-days:14}")
+    private long refreshTokenTtlDays;
+
+    public AuthService(AuthenticationManager authManager,
+                       UserRepository userRepository,
+                       UserCache userCache,
+                       JwtService jwtService,
+                       RefreshTokenRepository refreshTokenRepository,
+                       TokenDenyList tokenDenyList,
+                       PlatformTransactionManager transactionManager) {
+        this.authManager = authManager;
+        this.userRepository = userRepository;
+        this.userCache = userCache;
+        this.jwtService = jwtService;
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.tokenDenyList = tokenDenyList;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Throws AuthenticationException for bad credentials or a disabled user
+    public AuthTokenResponse login(String username, String password) {
+        authManager.authenticate(new UsernamePasswordAuthenticationToken(username, password));
+        User user = userRepository.findByUsername(username);
+        return issue(user, UUID.randomUUID().toString());
+    }
+
+    public AuthTokenResponse refresh(String rawToken) {
+        RefreshToken token = rawToken == null ? null : refreshTokenRepository.findByTokenHash(hash(rawToken));
+        Date now = new Date();
+        if (token == null || !token.getExpiresAt().after(now)) {
+            throw new BadCredentialsException("Invalid refresh token");
+        }
+        if (token.getRevokedAt() != null) {
+            refreshTokenRepository.revokeFamily(token.getFamilyId(), now);
+            throw new BadCredentialsException("Refresh token was already used, please log in again");
+        }
+        User user = userCache.get(token.getUserId()).filter(User::isEnabled).orElse(null);
+        if (user == null) {
+            refreshTokenRepository.revokeFamily(token.getFamilyId(), now);
+            throw new BadCredentialsException("User is disabled");
+        }
+        AuthTokenResponse rotated = transactionTemplate.execute(tx ->
+                refreshTokenRepository.revoke(token.getId(), now) == 0 ? null : issue(user, token.getFamilyId()));
+        if (rotated == null) {
+            // Lost the race against another refresh with the same token
+            refreshTokenRepository.revokeFamily(token.getFamilyId(), now);
+            throw new BadCredentialsException("Refresh token was already used, please log in again");
+        }
+        return rotated;
+    }
+
+    // Ends the session: the refresh token family is revoked and the access token denied until it expires
+    public void logout(String rawRefreshToken, String accessToken) {
+        if (rawRefreshToken != null) {
+            RefreshToken token = refreshTokenRepository.findByTokenHash(hash(rawRefreshToken));
+            if (token != null) {
+                refreshTokenRepository.revokeFamily(token.getFamilyId(), new Date());
+            }
+        }
+        if (accessToken != null) {
+            try {
+                Claims claims = jwtService.verify(accessToken);
+                tokenDenyList.deny(claims.getId(), claims.getExpiration());
+            } catch (JwtException | IllegalArgumentException e) {
+                // Invalid or expired: nothing to revoke
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.refresh-token.purge-interval-ms:3600000}")
+    public void purgeExpiredRefreshTokens() {
+        refreshTokenRepository.deleteExpired(new Date());
+    }
+
+    private AuthTokenResponse issue(User user, String familyId) {
+        byte[] secret = new byte[32];
+        random.nextBytes(secret);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(secret);
+
+        RefreshToken token = new RefreshToken();
+        token.setTokenHash(hash(rawToken));
+        token.setFamilyId(familyId);
+        token.setUserId(user.getId());
+        token.setCreatedAt(new Date());
+        token.setExpiresAt(new Date(System.currentTimeMillis() + Duration.ofDays(refreshTokenTtlDays).toMillis()));
+        refreshTokenRepository.save(token);
+
+        return new AuthTokenResponse(jwtService.generateAccessToken(user), rawToken, jwtService.accessTokenTtlSeconds());
+    }
+
+    // Only the digest is stored; a leaked table does not contain usable tokens
+    private static String hash(String rawToken) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(rawToken.getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.ecommerce.service;
+
+import java.io.IOException;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Puts checkout requests (order placement, payment order creation) through
+// CheckoutAdmissionService. Requests that are not admitted get 429 with a
+// Retry-After header and their queue ticket; the client sends the ticket back
+// in X-Queue-Ticket when it retries.
+@Service
+public class CheckoutAdmissionFilter extends OncePerRequestFilter {
+
+    public static final String TICKET_HEADER = "X-Queue-Ticket";
+
+    private final CheckoutAdmissionService admissionService;
+    private final ObjectMapper objectMapper;
+
+    public CheckoutAdmissionFilter(CheckoutAdmissionService admissionService, ObjectMapper objectMapper) {
+        this.admissionService = admissionService;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!HttpMethod.POST.matches(request.getMethod())) {
+            return true;
+        }
+        String path = request.getRequestURI();
+        return !(path.startsWith("/api/orders/cart/") || path.startsWith("/api/payment/create-order/"));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        CheckoutAdmissionService.Admission admission = admissionService.enter(caller(request), ticketOf(request));
+        if (admission.outcome() != CheckoutAdmissionService.Outcome.ADMITTED) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader("Retry-After", String.valueOf(admission.retryAfterSeconds()));
+            if (admission.status() != null) {
+                response.setHeader(TICKET_HEADER, String.valueOf(admission.status().getTicket()));
+                response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                objectMapper.writeValue(response.getOutputStream(), admission.status());
+            } else {
+                response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+                response.getWriter().write("Checkout is at capacity, please retry later");
+            }
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        boolean async = false;
+        try {
+            filterChain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                // Hold the slot until the async response completes
+                async = true;
+                // (onComplete also follows a timeout or an error)
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        admissionService.exit(System.currentTimeMillis() - start);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            }
+        } finally {
+            if (!async) {
+                admissionService.exit(System.currentTimeMillis() - start);
+            }
+        }
+    }
+
+    private String caller(HttpServletRequest request) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth != null ? auth.getName() : request.getRemoteAddr();
+    }
+
+    private Long ticketOf(HttpServletRequest request) {
+        String header = request.getHeader(TICKET_HEADER);
+        if (header == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(header.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
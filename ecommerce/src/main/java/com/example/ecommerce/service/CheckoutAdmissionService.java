@@ -0,0 +1,155 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.dto.QueueStatusDTO;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Admission control for checkout: at most maxConcurrent order placements /
+// payment creations run at once. Callers that find no free slot get a
+// numbered ticket and come back when their number is admitted (first come,
+// first served). When the queue is full the request is shed outright.
+@Service
+public class CheckoutAdmissionService {
+
+    public enum Outcome { ADMITTED, QUEUED, REJECTED }
+
+    public record Admission(Outcome outcome, QueueStatusDTO status, long retryAfterSeconds) {}
+
+    private record Ticket(String owner, long issuedAt) {}
+
+    private final Semaphore slots;
+    private final int maxConcurrent;
+    private final Map<Long, Ticket> tickets = new ConcurrentHashMap<>();
+    private final AtomicLong lastIssued = new AtomicLong();
+    private final AtomicLong admittedThrough = new AtomicLong();
+    // Tickets whose turn has come but that have not entered yet
+    private final AtomicInteger admittedWaiting = new AtomicInteger();
+    // Smoothed service time of one checkout call
+    private final AtomicLong avgServiceMillis = new AtomicLong(200);
+    private final Counter shedCounter;
+    private final Counter queuedCounter;
+
+    @Value("${checkout.admission.max-queue:1000}")
+    private int maxQueue;
+
+    @Value("${checkout.admission.ticket-ttl-seconds:120}")
+    private long ticketTtlSeconds;
+
+    public CheckoutAdmissionService(@Value("${checkout.admission.max-concurrent:2}") int maxConcurrent,
+                                    MeterRegistry meterRegistry) {
+        this.maxConcurrent = maxConcurrent;
+        this.slots = new Semaphore(maxConcurrent, true);
+        this.shedCounter = Counter.builder("checkout.admission.shed")
+                .description("Checkout requests rejected because the queue was full")
+                .register(meterRegistry);
+        this.queuedCounter = Counter.builder("checkout.admission.queued")
+                .description("Checkout requests given a queue ticket")
+                .register(meterRegistry);
+        Gauge.builder("checkout.admission.waiting", tickets, Map::size)
+                .description("Tickets waiting for a checkout slot")
+                .register(meterRegistry);
+    }
+
+    // Try to enter checkout. On ADMITTED the caller must call exit() when done.
+    public Admission enter(String caller, Long ticketNumber) {
+        if (ticketNumber != null) {
+            Ticket ticket = tickets.get(ticketNumber);
+            if (ticket != null && ticket.owner().equals(caller)) {
+                advance();
+                if (ticketNumber <= admittedThrough.get() && slots.tryAcquire()) {
+                    if (tickets.remove(ticketNumber) != null) {
+                        admittedWaiting.decrementAndGet();
+                    }
+                    return new Admission(Outcome.ADMITTED, null, 0);
+                }
+                QueueStatusDTO status = statusOf(ticketNumber);
+                return new Admission(Outcome.QUEUED, status, retryAfter(status));
+            }
+        }
+
+        // Nobody waiting: take a free slot directly
+        if (tickets.isEmpty() && slots.tryAcquire()) {
+            return new Admission(Outcome.ADMITTED, null, 0);
+        }
+        if (tickets.size() >= maxQueue) {
+            shedCounter.increment();
+            return new Admission(Outcome.REJECTED, null, Math.max(1, estimateSeconds(maxQueue)));
+        }
+        long number = lastIssued.incrementAndGet();
+        tickets.put(number, new Ticket(caller, System.currentTimeMillis()));
+        queuedCounter.increment();
+        QueueStatusDTO status = statusOf(number);
+        return new Admission(Outcome.QUEUED, status, retryAfter(status));
+    }
+
+    public void exit(long serviceMillis) {
+        // EWMA with weight 1/8
+        avgServiceMillis.getAndUpdate(avg -> avg + (serviceMillis - avg) / 8);
+        slots.release();
+        advance();
+    }
+
+    // Position of a ticket for the polling endpoint (null if unknown or expired)
+    public QueueStatusDTO status(String caller, long ticketNumber) {
+        Ticket ticket = tickets.get(ticketNumber);
+        if (ticket == null || !ticket.owner().equals(caller)) {
+            return null;
+        }
+        advance();
+        return statusOf(ticketNumber);
+    }
+
+    // Tickets nobody came back for stop holding their place
+    @Scheduled(fixedDelayString = "${checkout.admission.purge-interval-ms:5000}")
+    public void purgeExpiredTickets() {
+        long cutoff = System.currentTimeMillis() - ticketTtlSeconds * 1000;
+        tickets.entrySet().removeIf(entry -> {
+            if (entry.getValue().issuedAt() >= cutoff) {
+                return false;
+            }
+            if (entry.getKey() <= admittedThrough.get()) {
+                admittedWaiting.decrementAndGet();
+            }
+            return true;
+        });
+        advance();
+    }
+
+    // Move the turn forward until every free slot has an admitted ticket (skipping purged numbers)
+    private void advance() {
+        while (true) {
+            long current = admittedThrough.get();
+            if (current >= lastIssued.get() || admittedWaiting.get() >= slots.availablePermits()) {
+                return;
+            }
+            if (admittedThrough.compareAndSet(current, current + 1) && tickets.containsKey(current + 1)) {
+                admittedWaiting.incrementAndGet();
+            }
+        }
+    }
+
+    private QueueStatusDTO statusOf(long ticketNumber) {
+        long position = Math.max(0, ticketNumber - admittedThrough.get());
+        return new QueueStatusDTO(ticketNumber, position, estimateSeconds(position), position == 0);
+    }
+
+    private long estimateSeconds(long position) {
+        return (position * avgServiceMillis.get()) / (1000L * maxConcurrent);
+    }
+
+    private long retryAfter(QueueStatusDTO status) {
+        return Math.max(1, Math.min(status.getEstimatedWaitSeconds(), 30));
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.ecommerce.service;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Gives every request a correlation id (the caller's X-Correlation-Id, or a new one),
+// puts it in the MDC for all log lines of the request and echoes it in the response.
+// Runs before the security filter chain so authentication logs carry it too.
+@Service
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CorrelationIdFilter extends OncePerRequestFilter {
+
+	public static final String HEADER = "X-Correlation-Id";
+	public static final String MDC_KEY = "correlationId";
+
+	// Caller-supplied ids end up in log lines, so only plain tokens are accepted
+	private static final Pattern VALID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+
+		// The async dispatch of a request keeps the id chosen on its first pass
+		String correlationId = (String) request.getAttribute(MDC_KEY);
+		if (correlationId == null) {
+			correlationId = request.getHeader(HEADER);
+			if (correlationId == null || !VALID.matcher(correlationId).matches()) {
+				correlationId = UUID.randomUUID().toString();
+			}
+			request.setAttribute(MDC_KEY, correlationId);
+			response.setHeader(HEADER, correlationId);
+		}
+		MDC.put(MDC_KEY, correlationId);
+		try {
+			filterChain.doFilter(request, response);
+		} finally {
+			MDC.remove(MDC_KEY);
+		}
+	}
+
+	// Async dispatches (CompletableFuture results) run on another container thread
+	@Override
+	protected boolean shouldNotFilterAsyncDispatch() {
+		return false;
+	}
+}
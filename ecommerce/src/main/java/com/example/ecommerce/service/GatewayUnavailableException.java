@@ -0,0 +1,14 @@
+package com.example.ecommerce.service;
+
+// The payment gateway could not be reached in time, or calls are being shed
+// because it is failing (circuit open) or too many calls are already in flight.
+public class GatewayUnavailableException extends RuntimeException {
+
+    public GatewayUnavailableException(String message) {
+        super(message);
+    }
+
+    public GatewayUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
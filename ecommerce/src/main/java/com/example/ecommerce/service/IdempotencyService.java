@@ -0,0 +1,160 @@
+package com.example.ecommerce.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+// Remembers the result of requests sent with an Idempotency-Key header so a
+// retried request gets the original result instead of running again.
+// Entries are scoped to the caller, expire after a TTL and the map is bounded.
+// An entry whose request is still running (including a pending async result) is kept
+// for up to idempotency.in-flight-timeout-seconds, otherwise a retry could run the
+// request a second time; after that the request is taken as dead and a retry runs again.
+//
+// The store is in memory, so the guarantee holds per instance only: behind a load
+// balancer, a retry that reaches another instance runs the request again. Such
+// deployments need sticky routing of the order and payment endpoints by user.
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    @Value("${idempotency.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    @Value("${idempotency.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${idempotency.in-flight-timeout-seconds:300}")
+    private long inFlightTimeoutSeconds;
+
+    // Run the action once per (caller, key); retries with the same key and the same
+    // request fingerprint get the stored result, concurrent retries wait for the first.
+    // Failures (including failed futures) are not stored, so a failed request can be retried with the same key.
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, String fingerprint, Supplier<T> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        String scopedKey = currentCaller() + "|" + key;
+        long now = System.currentTimeMillis();
+        Entry fresh = new Entry(fingerprint, now + ttlMinutes * 60_000, now + inFlightTimeoutSeconds * 1000);
+
+        Entry existing = entries.putIfAbsent(scopedKey, fresh);
+        if (existing != null && existing.isExpired(now)) {
+            entries.remove(scopedKey, existing);
+            existing = entries.putIfAbsent(scopedKey, fresh);
+        }
+        if (existing != null) {
+            if (!existing.fingerprint.equals(fingerprint)) {
+                throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                        "Idempotency-Key was already used for a different request");
+            }
+            return (T) await(existing);
+        }
+
+        ensureCapacity();
+        try {
+            T result = action.get();
+            if (result instanceof CompletableFuture<?> pending) {
+                // Async result: forget the key again if the future fails
+                pending.whenComplete((value, error) -> {
+                    if (error != null) {
+                        entries.remove(scopedKey, fresh);
+                    }
+                });
+            }
+            fresh.result.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            entries.remove(scopedKey, fresh);
+            fresh.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.isExpired(now));
+    }
+
+    // Keep the store bounded: drop expired (including timed-out) entries first, then arbitrary settled ones
+    private void ensureCapacity() {
+        if (entries.size() < maxEntries) {
+            return;
+        }
+        purgeExpired();
+        Iterator<Entry> it = entries.values().iterator();
+        while (entries.size() >= maxEntries * 9 / 10 && it.hasNext()) {
+            if (!it.next().isInFlight()) {
+                it.remove();
+            }
+        }
+    }
+
+    // Waits for the first request, but no longer than its in-flight timeout
+    private static Object await(Entry entry) {
+        try {
+            long remaining = Math.max(1, entry.inFlightUntil - System.currentTimeMillis());
+            return entry.result.get(remaining, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : new CompletionException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "A request with this Idempotency-Key is still being processed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted");
+        }
+    }
+
+    private String currentCaller() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth == null ? "anonymous" : auth.getName();
+    }
+
+    private static final class Entry {
+        final String fingerprint;
+        final long expiresAt;
+        final long inFlightUntil;
+        final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        Entry(String fingerprint, long expiresAt, long inFlightUntil) {
+            this.fingerprint = fingerprint;
+            this.expiresAt = expiresAt;
+            this.inFlightUntil = inFlightUntil;
+        }
+
+        // Settled entries live for the TTL, running ones for the in-flight timeout
+        boolean isExpired(long now) {
+            return isInFlight() ? inFlightUntil < now : expiresAt < now;
+        }
+
+        // Running, or returned a future that has not completed yet
+        boolean isInFlight() {
+            if (!result.isDone()) {
+                return true;
+            }
+            return !result.isCompletedExceptionally()
+                    && result.getNow(null) instanceof CompletableFuture<?> pending
+                    && !pending.isDone();
+        }
+    }
+}
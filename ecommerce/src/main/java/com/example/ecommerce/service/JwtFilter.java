@@ -1,15 +1,21 @@
 package com.example.ecommerce.service;
 
 import java.io.IOException;
+import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import org.springframework.web.filter.OncePerRequestFilter;
 import org.springframework.context.ApplicationContext;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -22,6 +28,14 @@ public class JwtFilter extends OncePerRequestFilter{
 	private JwtService jwtService;
 	@Autowired
     private ApplicationContext context;
+	@Autowired
+	private UserCache userCache;
+	@Autowired
+	private TokenDenyList tokenDenyList;
+	
+	// claims: principal from the token alone; database: load the user row per request
+	@Value("${jwt.auth.mode:claims}")
+	private String authMode;
 
 	@Override
 	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
@@ -30,14 +44,22 @@ public class JwtFilter extends OncePerRequestFilter{
 		String authHeader = request.getHeader("authorization");
 		if (authHeader!=null && authHeader.startsWith("Bearer ")){
 			String token = authHeader.substring(7);
-			String username = jwtService.extractUsername(token);
-			System.out.println("Extracted Username: " + username);
-			String role = jwtService.extractClaim(token, claims -> claims.get("role", String.class));
-			System.out.println("Role from token: " + role);
+			// One verification per request (and none for a token already in the claims cache)
+			Claims claims;
+			try {
+				claims = jwtService.verify(token);
+			} catch (JwtException | IllegalArgumentException e) {
+				claims = null; // invalid or expired: continue unauthenticated
+			}
+			if (claims != null && tokenDenyList.isDenied(claims.getId())) {
+				claims = null; // logged out (in-memory check, no database access)
+			}
+			String username = claims == null ? null : claims.get("username", String.class);
 			if(username!=null && SecurityContextHolder.getContext().getAuthentication() == null) {
-				UserDetails userDetails = context.getBean(userDetailsService.class).loadUserByUsername(username);
-				if(jwtService.validateToken(token,userDetails)) {
-					UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(userDetails,null,userDetails.getAuthorities());
+				UsernamePasswordAuthenticationToken authToken = "database".equalsIgnoreCase(authMode)
+						? fromUserRow(username)
+						: fromClaims(claims, username);
+				if (authToken != null) {
 					authToken.setDetails(request);
 					SecurityContextHolder.getContext().setAuthentication(authToken);
 				}
@@ -46,4 +68,30 @@ public class JwtFilter extends OncePerRequestFilter{
 		filterChain.doFilter(request, response);
 	}
 	
+	// Principal and authorities straight from the verified claims: no database round trip.
+	// Tokens issued before an admin changed the user's role or enabled flag are refused.
+	private UsernamePasswordAuthenticationToken fromClaims(Claims claims, String username) {
+		Long userId;
+		try {
+			userId = Long.valueOf(claims.getSubject());
+		} catch (NumberFormatException e) {
+			return null;
+		}
+		if (userCache.isStale(userId, claims.getIssuedAt())) {
+			return null;
+		}
+		String role = claims.get("authorities", String.class);
+		List<GrantedAuthority> authorities = role == null ? List.of() : List.of(new SimpleGrantedAuthority(role));
+		return new UsernamePasswordAuthenticationToken(new JwtUser(userId, username), null, authorities);
+	}
+	
+	// Previous behaviour: load the user row for every request
+	private UsernamePasswordAuthenticationToken fromUserRow(String username) {
+		UserDetails userDetails = context.getBean(userDetailsService.class).loadUserByUsername(username);
+		if (!username.equals(userDetails.getUsername()) || !userDetails.isEnabled()) {
+			return null;
+		}
+		return new UsernamePasswordAuthenticationToken(userDetails,null,userDetails.getAuthorities());
+	}
+	
 }
@@ -0,0 +1,131 @@
+package com.example.ecommerce.service;
+
+import io.jsonwebtoken.security.Keys;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// HMAC keys for signing and verifying JWTs, shared by every node. The first key is the
+// current one (signs new tokens), the rest are previous keys that still verify.
+//
+// Sources, first match wins:
+//   jwt.keys      "kid:base64key,kid:base64key" (first is current)
+//   jwt.key-file  one "kid=base64key" per line, '#' comments (first is current)
+//   jwt.secret    a passphrase, hashed with SHA-256 into a single key (kid "default")
+// With none of them the node falls back to a random key, so its tokens are node-local.
+//
+// Rotation with a rolling restart: add the new key as a previous key everywhere, then
+// move it to the front, then drop the old key once its tokens have expired.
+@Service
+public class JwtKeyRing {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtKeyRing.class);
+    private static final String DEFAULT_KID = "default";
+
+    private final Map<String, SecretKey> keys;
+    private final String currentKid;
+
+    public JwtKeyRing(@Value("${jwt.keys:}") String keyList,
+                      @Value("${jwt.key-file:}") String keyFile,
+                      @Value("${jwt.secret:}") String secret) {
+        Map<String, SecretKey> loaded = new LinkedHashMap<>();
+        if (!keyList.isBlank()) {
+            for (String entry : keyList.split(",")) {
+                if (!entry.isBlank()) {
+                    add(loaded, entry, ':');
+                }
+            }
+        } else if (!keyFile.isBlank()) {
+            for (String line : readLines(keyFile)) {
+                String trimmed = line.trim();
+                if (!trimmed.isEmpty() && !trimmed.startsWith("#")) {
+                    add(loaded, trimmed, '=');
+                }
+            }
+        } else if (!secret.isBlank()) {
+            loaded.put(DEFAULT_KID, Keys.hmacShaKeyFor(sha256(secret)));
+        } else {
+            log.warn("No jwt.keys, jwt.key-file or jwt.secret configured: using a random signing key, "
+                    + "tokens will only be valid on this node until it restarts");
+            loaded.put(DEFAULT_KID, randomKey());
+        }
+        if (loaded.isEmpty()) {
+            throw new IllegalStateException("JWT key configuration contains no keys");
+        }
+        this.keys = Collections.unmodifiableMap(loaded);
+        this.currentKid = loaded.keySet().iterator().next();
+    }
+
+    public String currentKid() {
+        return currentKid;
+    }
+
+    public SecretKey currentKey() {
+        return keys.get(currentKid);
+    }
+
+    // Key for a token's kid header; tokens without one are checked against the current key
+    public SecretKey find(String kid) {
+        return kid == null ? currentKey() : keys.get(kid);
+    }
+
+    private static void add(Map<String, SecretKey> keys, String entry, char separator) {
+        int at = entry.indexOf(separator);
+        if (at <= 0 || at == entry.length() - 1) {
+            throw new IllegalStateException("Invalid JWT key entry, expected kid" + separator + "base64key");
+        }
+        String kid = entry.substring(0, at).trim();
+        byte[] material;
+        try {
+            material = Base64.getDecoder().decode(entry.substring(at + 1).trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("JWT key '" + kid + "' is not valid base64");
+        }
+        if (material.length < 32) {
+            throw new IllegalStateException("JWT key '" + kid + "' must be at least 256 bits");
+        }
+        if (keys.putIfAbsent(kid, Keys.hmacShaKeyFor(material)) != null) {
+            throw new IllegalStateException("Duplicate JWT key id '" + kid + "'");
+        }
+    }
+
+    private static List<String> readLines(String keyFile) {
+        try {
+            return Files.readAllLines(Path.of(keyFile), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read JWT key file " + keyFile, e);
+        }
+    }
+
+    private static byte[] sha256(String secret) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(secret.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static SecretKey randomKey() {
+        try {
+            return KeyGenerator.getInstance("HmacSHA256").generateKey();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Failed to generate key", e);
+        }
+    }
+}
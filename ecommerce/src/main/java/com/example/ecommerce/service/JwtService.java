@@ -1,36 +1,78 @@
 package com.example.ecommerce.service;
-import java.security.NoSuchAlgorithmException;
+import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
-import javax.crypto.KeyGenerator;
 import javax.crypto.SecretKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
 import com.example.ecommerce.entity.User;
 
 @Service
 public class JwtService {
 	
-	private final SecretKey secretKey ;
+	private static final Logger log = LoggerFactory.getLogger(JwtService.class);
 	
-	public JwtService() {
-		this.secretKey = getKey();
+	private final JwtKeyRing keyRing;
+	// Built once; JwtParser is immutable and thread-safe. The kid header picks the key.
+	private final JwtParser jwtParser;
+	private final VerifiedClaimsCache claimsCache;
+	
+	// Access tokens from /api/auth (renewed with a refresh token)
+	@Value("${jwt.access-token.ttl-minutes:15}")
+	private long accessTokenTtlMinutes = 15;
+	
+	// Single tokens from /api/user/login
+	@Value("${jwt.token.ttl-minutes:60}")
+	private long tokenTtlMinutes = 60;
+	
+	public JwtService(JwtKeyRing keyRing, @Value("${jwt.claims-cache.max-entries:10000}") int claimsCacheSize) {
+		this.keyRing = keyRing;
+		this.jwtParser = Jwts.parserBuilder()
+				.setSigningKeyResolver(new SigningKeyResolverAdapter() {
+					@Override
+					public Key resolveSigningKey(JwsHeader header, Claims claims) {
+						SecretKey key = keyRing.find(header.getKeyId());
+						if (key == null) {
+							throw new JwtException("Unknown signing key: " + header.getKeyId());
+						}
+						return key;
+					}
+				})
+				.build();
+		this.claimsCache = new VerifiedClaimsCache(claimsCacheSize);
 	}
 	
 	public String generateToken(User user) {
+		return buildToken(user, tokenTtlMinutes);
+	}
+	
+	public String generateAccessToken(User user) {
+		return buildToken(user, accessTokenTtlMinutes);
+	}
+	
+	public long accessTokenTtlSeconds() {
+		return accessTokenTtlMinutes * 60;
+	}
+	
+	private String buildToken(User user, long ttlMinutes) {
 		Map<String,Object> claims = new HashMap<>();
 		// Add username as a claim
 		claims.put("username", user.getUsername());
 		
-		// Debug: Print the role before adding to token
-	    System.out.println("User role before token generation: " + user.getRole());
-	    System.out.println("User role toString(): " + user.getRole().toString());
-	    System.out.println("User role name(): " + user.getRole().name());
-	    
+		log.debug("Issuing token for user {} with role {}", user.getId(), user.getRole());
+		
 		// Add role as a claim
 		claims.put("authorities", user.getRole().name());
 		
@@ -38,34 +80,30 @@ public class JwtService {
 				.builder()
 				.setClaims(claims)
 				.setSubject(user.getId().toString()) // Use user ID as subject
+				.setId(UUID.randomUUID().toString()) // jti, the handle for revocation (TokenDenyList)
 				.setIssuedAt(new Date(System.currentTimeMillis()))
-				.setExpiration(new Date(System.currentTimeMillis()+1000 * 60 * 60 * 1))
-				.signWith(secretKey)
+				.setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * ttlMinutes))
+				.setHeaderParam(JwsHeader.KEY_ID, keyRing.currentKid())
+				.signWith(keyRing.currentKey())
 				.compact();
 	}
 	
-	private SecretKey getKey() {
-	    try {
-	        KeyGenerator keyGen = KeyGenerator.getInstance("HmacSHA256");
-	        SecretKey sk = keyGen.generateKey();
-	        return sk; 
-	    } catch (NoSuchAlgorithmException e) {
-	        e.printStackTrace();
-	        throw new RuntimeException("Failed to generate key", e);
-	    } 
+	// Verify the token (signature and expiry) and return its claims. A token seen
+	// before is answered from the cache without checking the signature again.
+	// Throws JwtException (or IllegalArgumentException) for an invalid token.
+	public Claims verify(String token) {
+		Claims cached = claimsCache.get(token);
+		if (cached != null) {
+			return cached;
+		}
+		Claims claims = jwtParser.parseClaimsJws(token).getBody();
+		claimsCache.put(token, claims);
+		return claims;
 	}
 	
 	public boolean validateToken(String token, UserDetails userDetails) {
 		final String userName = extractUsername(token);
-		return (userName.equals(userDetails.getUsername()) && !isTokenExpired(token));
-	}
-	
-	private boolean isTokenExpired(String token) {
-		return extractTokenExpiration(token).before(new Date());
-	}
-	
-	private Date extractTokenExpiration(String token) {
-		return extractClaim(token, Claims::getExpiration);
+		return userName.equals(userDetails.getUsername());
 	}
 	
 	public String extractUsername(String token) {
@@ -87,8 +125,6 @@ public class JwtService {
 	}
 	
 	private Claims extractAllClaims(String token) {
-		return Jwts.parserBuilder()
-				.setSigningKey(secretKey)
-				.build().parseClaimsJws(token).getBody();
+		return verify(token);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,12 @@
+package com.example.ecommerce.service;
+
+import org.springframework.security.core.AuthenticatedPrincipal;
+
+// Principal built from verified token claims (jwt.auth.mode=claims): no user row behind it
+public record JwtUser(Long id, String username) implements AuthenticatedPrincipal {
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
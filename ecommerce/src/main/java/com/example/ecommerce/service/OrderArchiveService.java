@@ -0,0 +1,127 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.entity.ArchivedOrder;
+import com.example.ecommerce.entity.ArchivedOrderItem;
+import com.example.ecommerce.entity.Order;
+import com.example.ecommerce.entity.OrderItem;
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.repository.ArchivedOrderRepository;
+import com.example.ecommerce.repository.OrderRepository;
+import com.example.ecommerce.repository.OrderViewRepository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Moves finished orders out of the hot "orders"/"order_item" tables into
+// "archived_orders"/"archived_order_item" in small batches, one transaction per batch.
+// Their order_views rows go in the same transaction: the read model only holds live
+// orders, OrderService reads archived ones from the archive tables and merges them in.
+@Service
+public class OrderArchiveService {
+
+    // Statuses an order never leaves, so it is safe to move it
+    public static final List<String> ARCHIVABLE_STATUSES = List.of("DELIVERED", "CANCELLED", "PAYMENT_FAILED", "EXPIRED");
+
+    private final OrderRepository orderRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final OrderViewRepository orderViewRepository;
+    private final ShardTemplate shardTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${order.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${order.archive.after-days:90}")
+    private int afterDays;
+
+    @Value("${order.archive.batch-size:200}")
+    private int batchSize;
+
+    @Value("${order.archive.max-batches-per-run:50}")
+    private int maxBatchesPerRun;
+
+    public OrderArchiveService(OrderRepository orderRepository,
+                               ArchivedOrderRepository archivedOrderRepository,
+                               OrderViewRepository orderViewRepository,
+                               ShardTemplate shardTemplate,
+                               PlatformTransactionManager transactionManager) {
+        this.orderRepository = orderRepository;
+        this.archivedOrderRepository = archivedOrderRepository;
+        this.orderViewRepository = orderViewRepository;
+        this.shardTemplate = shardTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Runs off-peak by default; each run is capped so it never hogs the pool
+    @Scheduled(cron = "${order.archive.cron:0 30 3 * * *}")
+    public void archiveOldOrders() {
+        if (!enabled) {
+            return;
+        }
+        Date cutoff = new Date(System.currentTimeMillis() - Duration.ofDays(afterDays).toMillis());
+        // The cap applies per shard: each shard archives its own users' orders
+        shardTemplate.forEachShard(() -> {
+            int batches = 0;
+            while (batches < maxBatchesPerRun && archiveBatch(cutoff) > 0) {
+                batches++;
+            }
+        });
+    }
+
+    // Archive one batch of orders older than the cutoff, returns how many were moved
+    public int archiveBatch(Date cutoff) {
+        Integer moved = transactionTemplate.execute(status -> {
+            List<Integer> ids = orderRepository.findIdsByStatusInAndOrderDateBefore(
+                    ARCHIVABLE_STATUSES, cutoff, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            List<Order> orders = orderRepository.findAllWithItemsByIdIn(ids);
+            archivedOrderRepository.saveAll(orders.stream()
+                    .map(this::toArchived)
+                    .collect(Collectors.toList()));
+            orderRepository.deleteAll(orders);
+            orderViewRepository.deleteAllByIdInBatch(ids);
+            return orders.size();
+        });
+        return moved == null ? 0 : moved;
+    }
+
+    private ArchivedOrder toArchived(Order order) {
+        ArchivedOrder archived = new ArchivedOrder();
+        archived.setId(order.getId());
+        archived.setUserId(order.getUser() != null ? order.getUser().getId() : null);
+        archived.setOrderDate(order.getOrderDate());
+        archived.setStatus(order.getStatus());
+        archived.setTotalPrice(order.getTotalPrice());
+        archived.setRazorpayOrderId(order.getRazorpayOrderId());
+        archived.setRazorpayPaymentId(order.getRazorpayPaymentId());
+        archived.setArchivedAt(new Date());
+
+        for (OrderItem item : order.getOrderItems()) {
+            ArchivedOrderItem archivedItem = new ArchivedOrderItem();
+            archivedItem.setId(item.getId());
+            archivedItem.setQuantity(item.getQuantity());
+            archivedItem.setPrice(item.getPrice());
+            Product product = item.getProduct();
+            if (product != null) {
+                archivedItem.setProductId(product.getId());
+                archivedItem.setProductName(product.getName());
+                archivedItem.setProductDescription(product.getDescription());
+                archivedItem.setProductPrice(product.getPrice());
+            }
+            archivedItem.setOrder(archived);
+            archived.getOrderItems().add(archivedItem);
+        }
+        return archived;
+    }
+}
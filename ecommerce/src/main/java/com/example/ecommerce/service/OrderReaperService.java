@@ -0,0 +1,195 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.repository.OrderRepository;
+import com.example.ecommerce.repository.PendingPayment;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+// Expires orders that were placed but never paid, so PENDING/CREATED only
+// holds orders that can still complete. Works in small batches, each in its
+// own short transaction, and every status update is guarded per order so an
+// order paid in the meantime is left alone and only the expired ones give
+// their stock back.
+@Service
+public class OrderReaperService {
+
+    public static final String EXPIRED = "EXPIRED";
+
+    private static final PaymentGateway.PaymentStatus NOT_STARTED =
+            new PaymentGateway.PaymentStatus(PaymentGateway.PaymentStatus.State.PENDING, null);
+
+    private final OrderRepository orderRepository;
+    private final OrderService orderService;
+    private final OrderViewService orderViewService;
+    private final StockService stockService;
+    private final PaymentGateway paymentGateway;
+    private final ShardTemplate shardTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter expiredCounter;
+    private final Counter lateCaptureCounter;
+    private final Timer runTimer;
+
+    @Value("${order.reaper.enabled:true}")
+    private boolean enabled;
+
+    // Order placed but checkout never started
+    @Value("${order.reaper.pending-timeout-minutes:30}")
+    private long pendingTimeoutMinutes;
+
+    // Razorpay order created but never paid; longer so slow payers can finish
+    @Value("${order.reaper.created-timeout-minutes:120}")
+    private long createdTimeoutMinutes;
+
+    @Value("${order.reaper.batch-size:100}")
+    private int batchSize;
+
+    @Value("${order.reaper.max-batches-per-run:20}")
+    private int maxBatchesPerRun;
+
+    @Value("${order.reaper.gateway-parallelism:8}")
+    private int gatewayParallelism;
+
+    public OrderReaperService(OrderRepository orderRepository,
+                              OrderService orderService,
+                              OrderViewService orderViewService,
+                              StockService stockService,
+                              PaymentGateway paymentGateway,
+                              ShardTemplate shardTemplate,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry) {
+        this.orderRepository = orderRepository;
+        this.orderService = orderService;
+        this.orderViewService = orderViewService;
+        this.stockService = stockService;
+        this.paymentGateway = paymentGateway;
+        this.shardTemplate = shardTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.expiredCounter = Counter.builder("orders.reaper.expired")
+                .description("Unpaid orders moved to EXPIRED")
+                .register(meterRegistry);
+        this.lateCaptureCounter = Counter.builder("orders.reaper.late-captures")
+                .description("CREATED orders found paid at the gateway instead of expired")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("orders.reaper.run")
+                .description("Duration of one reaper run")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${order.reaper.interval-ms:300000}", initialDelayString = "${order.reaper.initial-delay-ms:60000}")
+    public void expireAbandonedOrders() {
+        if (!enabled) {
+            return;
+        }
+        runTimer.record(() -> shardTemplate.forEachShard(() -> {
+            expirePending(cutoff(pendingTimeoutMinutes));
+            expireCreated(cutoff(createdTimeoutMinutes));
+        }));
+    }
+
+    private void expirePending(Date cutoff) {
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            if (expireBatch("PENDING", cutoff) == 0) {
+                return;
+            }
+        }
+    }
+
+    // Keyset paging: orders whose lookup failed stay CREATED and must not be picked up again this run
+    private void expireCreated(Date cutoff) {
+        int afterId = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            List<PendingPayment> page = orderRepository.findCreatedBefore(cutoff, afterId, PageRequest.of(0, batchSize));
+            if (page.isEmpty()) {
+                return;
+            }
+            expireCreatedBatch(page);
+            afterId = page.get(page.size() - 1).getId();
+        }
+    }
+
+    // Expire one batch, returns how many ids were examined (0 means nothing left)
+    public int expireBatch(String status, Date cutoff) {
+        Integer examined = transactionTemplate.execute(tx -> {
+            List<Integer> ids = orderRepository.findIdsByStatusInAndOrderDateBefore(
+                    List.of(status), cutoff, PageRequest.of(0, batchSize));
+            expire(ids, status);
+            return ids.size();
+        });
+        return examined == null ? 0 : examined;
+    }
+
+    // Ask the gateway about each CREATED order before giving up on it (outside any
+    // transaction): a late capture is confirmed instead of expired, and an order whose
+    // lookup fails stays CREATED until the next run.
+    public void expireCreatedBatch(List<PendingPayment> batch) {
+        Map<Integer, String> paid = new LinkedHashMap<>();
+        List<Integer> unpaid = new ArrayList<>();
+
+        for (int from = 0; from < batch.size(); from += gatewayParallelism) {
+            List<PendingPayment> chunk = batch.subList(from, Math.min(batch.size(), from + gatewayParallelism));
+            List<CompletableFuture<PaymentGateway.PaymentStatus>> lookups = chunk.stream()
+                    .map(order -> order.getRazorpayOrderId() == null
+                            ? CompletableFuture.completedFuture(NOT_STARTED)
+                            : paymentGateway.fetchPaymentStatus(order.getRazorpayOrderId()).exceptionally(error -> null))
+                    .toList();
+            for (int i = 0; i < chunk.size(); i++) {
+                PaymentGateway.PaymentStatus status = lookups.get(i).join();
+                if (status == null) {
+                    continue;
+                }
+                if (status.state() == PaymentGateway.PaymentStatus.State.PAID) {
+                    paid.put(chunk.get(i).getId(), status.paymentId());
+                } else {
+                    unpaid.add(chunk.get(i).getId());
+                }
+            }
+        }
+
+        if (!paid.isEmpty() || !unpaid.isEmpty()) {
+            transactionTemplate.executeWithoutResult(tx -> {
+                if (!paid.isEmpty()) {
+                    lateCaptureCounter.increment(orderService.confirmPayments(paid).size());
+                }
+                expire(unpaid, "CREATED");
+            });
+        }
+    }
+
+    // Guarded per order so stock is released only for the orders this call moved
+    // (joins the caller's transaction)
+    private void expire(List<Integer> ids, String fromStatus) {
+        List<Integer> expired = new ArrayList<>();
+        for (Integer id : ids) {
+            if (orderRepository.updateStatusByIdWhereStatusIn(id, EXPIRED, List.of(fromStatus)) > 0) {
+                expired.add(id);
+            }
+        }
+        if (expired.isEmpty()) {
+            return;
+        }
+        orderViewService.updateStatus(expired, EXPIRED);
+        stockService.releaseOrders(expired, EXPIRED);
+        expiredCounter.increment(expired.size());
+    }
+
+    private static Date cutoff(long timeoutMinutes) {
+        return new Date(System.currentTimeMillis() - Duration.ofMinutes(timeoutMinutes).toMillis());
+    }
+}
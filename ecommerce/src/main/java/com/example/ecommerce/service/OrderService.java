@@ -1,26 +1,34 @@
 package com.example.ecommerce.service;
 
 import com.example.ecommerce.dto.OrderDTO;
+import com.example.ecommerce.dto.OrderHistoryPageDTO;
 import com.example.ecommerce.dto.OrderItemDTO;
 import com.example.ecommerce.dto.OrderStatsDTO;
-import com.example.ecommerce.dto.ProductDTO;
+import com.example.ecommerce.entity.ArchivedOrder;
 import com.example.ecommerce.entity.Cart;
 import com.example.ecommerce.entity.CartItem;
 import com.example.ecommerce.entity.Order;
 import com.example.ecommerce.entity.OrderItem;
-import com.example.ecommerce.entity.User;
+import com.example.ecommerce.repository.ArchivedOrderRepository;
 import com.example.ecommerce.repository.CartRepository;
 import com.example.ecommerce.repository.OrderRepository;
-import com.example.ecommerce.repository.UserRepository;
+import com.example.ecommerce.dto.OrderMapper;
 import com.example.ecommerce.dto.ProductMapper;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
@@ -28,6 +36,11 @@ import java.time.ZoneId;
 @Service
 public class OrderService {
 
+    private static final Logger log = LoggerFactory.getLogger(OrderService.class);
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+    private static final Comparator<OrderDTO> NEWEST_FIRST =
+            Comparator.comparing(OrderDTO::getOrderDate, Comparator.nullsLast(Comparator.reverseOrder()));
+
     @Autowired
     private CartRepository cartRepository;
 
@@ -35,11 +48,23 @@ public class OrderService {
     private OrderRepository orderRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private ArchivedOrderRepository archivedOrderRepository;
 
     @Autowired
     private ProductMapper productMapper;
 
+    @Autowired
+    private OrderMapper orderMapper;
+
+    @Autowired
+    private OrderViewService orderViewService;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private ShardTemplate shardTemplate;
+
     // Modified to NOT clear cart until payment is verified
     @Transactional
     public OrderDTO placeOrderFromCart(int cartId, List<Integer> cartItemIds) {
@@ -84,69 +109,121 @@ public class OrderService {
                 .sum();
         order.setTotalPrice(total);
 
+        // Hold the units now; released again if this transaction rolls back
+        stockService.reserve(StockService.linesOf(order));
+
         Order savedOrder = orderRepository.save(order);
 
-        return convertToDTO(savedOrder);
+        OrderDTO placed = convertToDTO(savedOrder);
+        orderViewService.save(placed);
+        return placed;
     }
 
-    // NEW method to clear cart after successful payment
+    // Mark a Razorpay order as paid; browser verification and payment webhooks both land here.
+    // The guarded update is the transition, so concurrent confirmations cannot both win.
+    // Returns false when there is nothing to do (unknown order, already paid, or no longer payable).
     @Transactional
-    public void clearCartAfterPayment(int orderId) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new RuntimeException("Order not found"));
-        
-        // Only clear cart if payment was successful
-        if ("PAID".equals(order.getStatus())) {
-            User user = order.getUser();
-            if (user.getCart() != null) {
-                Cart cart = user.getCart();
-                // Get the ordered items and remove them from cart
-                List<Integer> orderedProductIds = order.getOrderItems().stream()
-                        .map(item -> item.getProduct().getId())
-                        .collect(Collectors.toList());
-                
-                // Remove ordered items from cart
-                cart.getItems().removeIf(cartItem -> 
-                    orderedProductIds.contains(cartItem.getProduct().getId())
-                );
-                
-                cartRepository.save(cart);
+    public boolean confirmPayment(String razorpayOrderId, String paymentId) {
+        if (orderRepository.markPaid(razorpayOrderId, paymentId) == 0) {
+            Order order = orderRepository.findByRazorpayOrderId(razorpayOrderId);
+            if (order != null && (!"PAID".equals(order.getStatus())
+                    || !Objects.equals(paymentId, order.getRazorpayPaymentId()))) {
+                log.atWarn()
+                        .addKeyValue("orderId", order.getId())
+                        .addKeyValue("razorpayOrderId", razorpayOrderId)
+                        .addKeyValue("paymentId", paymentId)
+                        .log("Payment received for order in status {}, needs manual review", order.getStatus());
             }
+            return false;
         }
+        int orderId = orderRepository.findIdByRazorpayOrderId(razorpayOrderId);
+        orderViewService.updateStatus(orderId, "PAID");
+        stockService.commitOrders(List.of(orderId), "PAID");
+
+        // Now clear the ordered products from the cart since payment is successful
+        cartRepository.deleteOrderedItems(orderId);
+        return true;
     }
 
-    // Get all orders for admin
+    // Mark a Razorpay order as failed, only while it is still waiting for payment
+    @Transactional
+    public boolean failPayment(String razorpayOrderId) {
+        if (orderRepository.markPaymentFailed(razorpayOrderId) == 0) {
+            return false;
+        }
+        int orderId = orderRepository.findIdByRazorpayOrderId(razorpayOrderId);
+        orderViewService.updateStatus(orderId, "PAYMENT_FAILED");
+        stockService.releaseOrders(List.of(orderId), "PAYMENT_FAILED");
+        return true;
+    }
+
+    // Bulk confirmPayment for orders whose id is already known (payment reconciliation).
+    // Returns the ids that actually moved to PAID.
+    @Transactional
+    public List<Integer> confirmPayments(Map<Integer, String> paymentIdByOrderId) {
+        List<Integer> paid = new ArrayList<>();
+        paymentIdByOrderId.forEach((orderId, paymentId) -> {
+            if (orderRepository.markPaidById(orderId, paymentId) > 0) {
+                paid.add(orderId);
+            }
+        });
+        if (!paid.isEmpty()) {
+            orderViewService.updateStatus(paid, "PAID");
+            stockService.commitOrders(paid, "PAID");
+            paid.forEach(cartRepository::deleteOrderedItems);
+        }
+        return paid;
+    }
+
+    // Bulk failPayment for orders whose id is already known (payment reconciliation).
+    // Guarded per order like confirmPayments: only the orders that moved give their stock back.
+    @Transactional
+    public int failPayments(List<Integer> orderIds) {
+        List<Integer> failed = new ArrayList<>();
+        for (Integer orderId : orderIds) {
+            if (orderRepository.updateStatusByIdWhereStatusIn(orderId, "PAYMENT_FAILED", List.of("CREATED", "PENDING")) > 0) {
+                failed.add(orderId);
+            }
+        }
+        if (!failed.isEmpty()) {
+            orderViewService.updateStatus(failed, "PAYMENT_FAILED");
+            stockService.releaseOrders(failed, "PAYMENT_FAILED");
+        }
+        return failed.size();
+    }
+
+    // Listings and stats below are read-only transactions, so with read replicas
+    // configured they are served by a replica (see ReadWriteRoutingDataSource).
+    // Single-order lookups stay on the primary: they are polled right after payment.
+    // Admin-wide ones run on every shard (ShardTemplate.scatterGather) and are merged here.
+    // Live orders come from the read model, archived ones from the archive tables.
+
+    // Get all orders for admin (served from the order read model)
     public List<OrderDTO> getAllOrdersForAdmin() {
-        List<Order> orders = orderRepository.findAllByOrderByOrderDateDesc();
-        return orders.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return newestFirst(shardTemplate.scatterGather(() -> withArchived(orderViewService.findAll(),
+                archivedOrderRepository.findAllByOrderByOrderDateDesc())));
     }
 
     // Get orders by status
     public List<OrderDTO> getOrdersByStatus(String status) {
-        List<Order> orders = orderRepository.findByStatusOrderByOrderDateDesc(status.toUpperCase());
-        return orders.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        String normalized = status.toUpperCase();
+        return newestFirst(shardTemplate.scatterGather(() -> withArchived(orderViewService.findByStatus(normalized),
+                archivedOrderRepository.findByStatusOrderByOrderDateDesc(normalized))));
     }
 
     // Get order by ID for specific user (security check)
     public OrderDTO getOrderByIdForUser(int orderId, Long userId) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new RuntimeException("Order not found"));
+        OrderDTO order = findOrderDTO(orderId);
         
         // Ensure order belongs to the requesting user
-        if (!order.getUser().getId().equals(userId)) {
+        if (!order.getUserId().equals(userId)) {
             throw new RuntimeException("Access denied: Order does not belong to user");
         }
         
-        return convertToDTO(order);
+        return order;
     }
     public OrderDTO getOrderByIdForAdmin(int orderId) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new RuntimeException("Order not found"));
-        return convertToDTO(order);
+        return findOrderDTO(orderId);
     }
 
     // Update order status
@@ -164,43 +241,116 @@ public class OrderService {
         order.setStatus(newStatus.toUpperCase());
         
         Order savedOrder = orderRepository.save(order);
+        orderViewService.updateStatus(orderId, savedOrder.getStatus());
+        stockService.onStatusChange(StockService.linesOf(savedOrder), oldStatus, savedOrder.getStatus());
         
-        // Clear cart if status changed to PAID
+        // Clear ordered products from the cart if status changed to PAID
         if ("PAID".equals(newStatus.toUpperCase()) && !"PAID".equals(oldStatus)) {
-            clearCartAfterPayment(orderId);
+            cartRepository.deleteOrderedItems(orderId);
         }
         
-        // Log the status change (optional)
-        System.out.println("Order " + orderId + " status changed from " + oldStatus + " to " + newStatus);
+        log.atInfo()
+                .addKeyValue("orderId", orderId)
+                .log("Order status changed from {} to {}", oldStatus, savedOrder.getStatus());
         
         return convertToDTO(savedOrder);
     }
 
     // Get orders by user ID
+    @Transactional(readOnly = true)
     public List<OrderDTO> getOrdersByUserId(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
-        List<Order> orders = orderRepository.findByUserOrderByOrderDateDesc(user);
-        return orders.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return withArchived(orderViewService.findByUserId(userId),
+                archivedWithItems(archivedOrderRepository.findIdsByUserId(userId)));
+    }
+
+    // Get orders by user ID and status, filtered in SQL
+    @Transactional(readOnly = true)
+    public List<OrderDTO> getOrdersByUserIdAndStatus(Long userId, String status) {
+        String normalized = status.toUpperCase();
+        return withArchived(orderViewService.findByUserIdAndStatus(userId, normalized),
+                archivedWithItems(archivedOrderRepository.findIdsByUserIdAndStatus(userId, normalized)));
+    }
+
+    // Get one page of a user's order history, newest first.
+    // cursor is the last order id of the previous page (null for the first page).
+    @Transactional(readOnly = true)
+    public OrderHistoryPageDTO getOrderHistoryPage(Long userId, String status, Integer cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_HISTORY_PAGE_SIZE));
+        int beforeId = cursor == null ? Integer.MAX_VALUE : cursor;
+        String normalized = status == null || status.isBlank() ? null : status.toUpperCase();
+
+        // One extra row tells us whether another page exists. Archived orders are paged
+        // with the same predicate and merged by id, so the history runs on into the archive.
+        PageRequest window = PageRequest.of(0, pageSize + 1);
+        List<OrderDTO> live = orderViewService.findPageByUserId(userId, normalized, beforeId, window);
+        List<Integer> archivedIds = normalized == null
+                ? archivedOrderRepository.findPageIdsByUserId(userId, beforeId, window)
+                : archivedOrderRepository.findPageIdsByUserIdAndStatus(userId, normalized, beforeId, window);
+        List<OrderDTO> orders = live;
+        if (!archivedIds.isEmpty()) {
+            Map<Integer, OrderDTO> merged = new LinkedHashMap<>();
+            live.forEach(order -> merged.put(order.getId(), order));
+            archivedWithItems(archivedIds).forEach(order -> merged.putIfAbsent(order.getId(), orderMapper.toDTO(order)));
+            orders = merged.values().stream()
+                    .sorted(Comparator.comparing(OrderDTO::getId).reversed())
+                    .limit(pageSize + 1L)
+                    .collect(Collectors.toList());
+        }
+        boolean hasMore = orders.size() > pageSize;
+        if (hasMore) {
+            orders = orders.subList(0, pageSize);
+        }
+        Integer nextCursor = hasMore ? orders.get(orders.size() - 1).getId() : null;
+        return new OrderHistoryPageDTO(orders, nextCursor, hasMore);
     }
 
-    // Get order statistics
+    // Get order statistics, summed over the shards
     public OrderStatsDTO getOrderStatistics() {
+        OrderStatsDTO total = new OrderStatsDTO();
+        for (OrderStatsDTO shard : shardTemplate.scatterGather(this::shardStatistics)) {
+            total.setTotalOrders(total.getTotalOrders() + shard.getTotalOrders());
+            total.setPendingOrders(total.getPendingOrders() + shard.getPendingOrders());
+            total.setPaidOrders(total.getPaidOrders() + shard.getPaidOrders());
+            total.setShippedOrders(total.getShippedOrders() + shard.getShippedOrders());
+            total.setDeliveredOrders(total.getDeliveredOrders() + shard.getDeliveredOrders());
+            total.setCancelledOrders(total.getCancelledOrders() + shard.getCancelledOrders());
+            total.setTotalRevenue(total.getTotalRevenue() + shard.getTotalRevenue());
+            total.setMonthlyRevenue(total.getMonthlyRevenue() + shard.getMonthlyRevenue());
+        }
+        return total;
+    }
+
+    // The shard holding an order (live, archived or only in the read model), null when not sharded
+    public String locateOrder(int orderId) {
+        return shardTemplate.locate(() -> orderViewService.findById(orderId).isPresent()
+                || orderRepository.existsById(orderId)
+                || archivedOrderRepository.existsById(orderId));
+    }
+
+    // The shard holding the order paid through a Razorpay order, null when not sharded
+    public String locateRazorpayOrder(String razorpayOrderId) {
+        return shardTemplate.locate(() -> orderRepository.existsByRazorpayOrderId(razorpayOrderId));
+    }
+
+    private OrderStatsDTO shardStatistics() {
         long totalOrders = orderRepository.count();
         long pendingOrders = orderRepository.countByStatus("PENDING");
         long paidOrders = orderRepository.countByStatus("PAID");
         long shippedOrders = orderRepository.countByStatus("SHIPPED");
         long deliveredOrders = orderRepository.countByStatus("DELIVERED");
         long cancelledOrders = orderRepository.countByStatus("CANCELLED");
+
+        // Archived orders are finished ones, count them too
+        totalOrders += archivedOrderRepository.count();
+        deliveredOrders += archivedOrderRepository.countByStatus("DELIVERED");
+        cancelledOrders += archivedOrderRepository.countByStatus("CANCELLED");
         
         // Calculate total revenue from paid and delivered orders
         List<Order> completedOrders = orderRepository.findByStatusIn(List.of("PAID", "SHIPPED", "DELIVERED"));
         double totalRevenue = completedOrders.stream()
                 .mapToDouble(Order::getTotalPrice)
                 .sum();
+        totalRevenue += nullToZero(archivedOrderRepository.getTotalRevenueByStatuses(List.of("DELIVERED")));
 
         // Calculate monthly revenue (current month)
         LocalDateTime startOfMonth = LocalDateTime.now().withDayOfMonth(1).withHour(0).withMinute(0).withSecond(0);
@@ -210,6 +360,7 @@ public class OrderService {
         double monthlyRevenue = monthlyOrders.stream()
                 .mapToDouble(Order::getTotalPrice)
                 .sum();
+        monthlyRevenue += nullToZero(archivedOrderRepository.getRevenueAfterDateByStatuses(monthStart, List.of("DELIVERED")));
 
         return new OrderStatsDTO(totalOrders, pendingOrders, paidOrders, shippedOrders, 
                                 deliveredOrders, cancelledOrders, totalRevenue, monthlyRevenue);
@@ -237,9 +388,49 @@ public class OrderService {
         return dto;
     }
 
+    // Helper method - Look up an order: read model first, then live and archived tables
+    private OrderDTO findOrderDTO(int orderId) {
+        return orderViewService.findById(orderId)
+                .or(() -> orderRepository.findById(orderId).map(this::convertToDTO))
+                .or(() -> archivedOrderRepository.findWithItemsById(orderId).map(orderMapper::toDTO))
+                .orElseThrow(() -> new RuntimeException("Order not found"));
+    }
+
+    // Read-model rows plus archived orders, newest first. Views written for archived
+    // orders before archiving dropped them are not listed twice.
+    private List<OrderDTO> withArchived(List<OrderDTO> live, List<ArchivedOrder> archived) {
+        if (archived.isEmpty()) {
+            return live;
+        }
+        Map<Integer, OrderDTO> merged = new LinkedHashMap<>();
+        live.forEach(order -> merged.put(order.getId(), order));
+        archived.forEach(order -> merged.putIfAbsent(order.getId(), orderMapper.toDTO(order)));
+        return merged.values().stream()
+                .sorted(NEWEST_FIRST)
+                .collect(Collectors.toList());
+    }
+
+    private List<ArchivedOrder> archivedWithItems(List<Integer> ids) {
+        return ids.isEmpty() ? List.of() : archivedOrderRepository.findAllWithItemsByIdIn(ids);
+    }
+
+    private static List<OrderDTO> newestFirst(List<List<OrderDTO>> perShard) {
+        if (perShard.size() == 1) {
+            return perShard.get(0);
+        }
+        return perShard.stream()
+                .flatMap(List::stream)
+                .sorted(NEWEST_FIRST)
+                .collect(Collectors.toList());
+    }
+
+    private double nullToZero(Double value) {
+        return value == null ? 0.0 : value;
+    }
+
     // Helper method - Validate order status
     private boolean isValidOrderStatus(String status) {
-        List<String> validStatuses = List.of("PENDING", "PAID", "PROCESSING", "SHIPPED", "DELIVERED", "CANCELLED");
+        List<String> validStatuses = List.of("PENDING", "PAID", "PROCESSING", "SHIPPED", "DELIVERED", "CANCELLED", "EXPIRED");
         return validStatuses.contains(status.toUpperCase());
     }
     
@@ -261,6 +452,8 @@ public class OrderService {
 
         order.setStatus("CANCELLED");
         Order savedOrder = orderRepository.save(order);
+        orderViewService.updateStatus(orderId, "CANCELLED");
+        stockService.onStatusChange(StockService.linesOf(savedOrder), "PENDING", "CANCELLED");
 
         return convertToDTO(savedOrder);
     }
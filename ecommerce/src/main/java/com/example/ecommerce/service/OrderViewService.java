@@ -0,0 +1,162 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.dto.OrderDTO;
+import com.example.ecommerce.dto.OrderItemDTO;
+import com.example.ecommerce.dto.OrderMapper;
+import com.example.ecommerce.entity.OrderView;
+import com.example.ecommerce.repository.OrderRepository;
+import com.example.ecommerce.repository.OrderViewRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+// Maintains the order_views read model and serves order reads from it.
+// A view row is written in the same transaction that places the order and
+// its status is patched on every status change, so reads need one table only.
+@Service
+public class OrderViewService {
+
+    private static final TypeReference<List<OrderItemDTO>> ITEM_LIST = new TypeReference<>() {};
+
+    private final OrderViewRepository orderViewRepository;
+    private final OrderRepository orderRepository;
+    private final OrderMapper orderMapper;
+    private final ObjectMapper objectMapper;
+    private final ShardTemplate shardTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${order.view.backfill-on-startup:true}")
+    private boolean backfillOnStartup;
+
+    @Value("${order.view.backfill-batch-size:200}")
+    private int backfillBatchSize;
+
+    public OrderViewService(OrderViewRepository orderViewRepository,
+                            OrderRepository orderRepository,
+                            OrderMapper orderMapper,
+                            ObjectMapper objectMapper,
+                            ShardTemplate shardTemplate,
+                            PlatformTransactionManager transactionManager) {
+        this.orderViewRepository = orderViewRepository;
+        this.orderRepository = orderRepository;
+        this.orderMapper = orderMapper;
+        this.objectMapper = objectMapper;
+        this.shardTemplate = shardTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Write the snapshot of a freshly placed order (joins the caller's transaction)
+    public void save(OrderDTO order) {
+        orderViewRepository.save(toView(order));
+    }
+
+    public void updateStatus(int orderId, String status) {
+        orderViewRepository.updateStatus(orderId, status, new Date());
+    }
+
+    // Bulk variant: only views whose order now has this status are touched (joins the caller's transaction)
+    public void updateStatus(List<Integer> orderIds, String status) {
+        orderViewRepository.updateStatusForOrdersIn(orderIds, status, new Date());
+    }
+
+    public Optional<OrderDTO> findById(int orderId) {
+        return orderViewRepository.findById(orderId).map(this::toDTO);
+    }
+
+    public List<OrderDTO> findAll() {
+        return toDTOs(orderViewRepository.findAllByOrderByOrderDateDesc());
+    }
+
+    public List<OrderDTO> findByStatus(String status) {
+        return toDTOs(orderViewRepository.findByStatusOrderByOrderDateDesc(status));
+    }
+
+    public List<OrderDTO> findByUserId(Long userId) {
+        return toDTOs(orderViewRepository.findByUserIdOrderByOrderDateDesc(userId));
+    }
+
+    public List<OrderDTO> findByUserIdAndStatus(Long userId, String status) {
+        return toDTOs(orderViewRepository.findByUserIdAndStatusOrderByOrderDateDesc(userId, status));
+    }
+
+    // Keyset page of a user's orders, status may be null
+    public List<OrderDTO> findPageByUserId(Long userId, String status, int beforeId, Pageable pageable) {
+        return toDTOs(status == null
+                ? orderViewRepository.findPageByUserId(userId, beforeId, pageable)
+                : orderViewRepository.findPageByUserIdAndStatus(userId, status, beforeId, pageable));
+    }
+
+    // Orders placed before the read model existed get their row here
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillMissingViews() {
+        if (!backfillOnStartup) {
+            return;
+        }
+        shardTemplate.forEachShard(() -> {
+            int written;
+            do {
+                written = backfillBatch();
+            } while (written > 0);
+        });
+    }
+
+    // One transaction per batch. Only live orders get a view: archived ones are
+    // served from the archive tables and their views are removed when they move.
+    private int backfillBatch() {
+        Integer written = transactionTemplate.execute(status -> {
+            List<Integer> ids = orderRepository.findIdsWithoutView(PageRequest.of(0, backfillBatchSize));
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            List<OrderDTO> orders = orderRepository.findAllWithItemsByIdIn(ids).stream()
+                    .map(orderMapper::toDTO)
+                    .collect(Collectors.toList());
+            orderViewRepository.saveAll(orders.stream().map(this::toView).collect(Collectors.toList()));
+            return orders.size();
+        });
+        return written == null ? 0 : written;
+    }
+
+    private OrderView toView(OrderDTO order) {
+        OrderView view = new OrderView();
+        view.setId(order.getId());
+        view.setUserId(order.getUserId());
+        view.setOrderDate(order.getOrderDate());
+        view.setStatus(order.getStatus());
+        view.setTotalPrice(order.getTotalPrice());
+        view.setUpdatedAt(new Date());
+        try {
+            view.setItemsJson(objectMapper.writeValueAsString(order.getOrderItems()));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize order items for order " + order.getId(), e);
+        }
+        return view;
+    }
+
+    private OrderDTO toDTO(OrderView view) {
+        try {
+            return new OrderDTO(view.getId(), view.getUserId(), view.getOrderDate(), view.getStatus(),
+                    view.getTotalPrice(), objectMapper.readValue(view.getItemsJson(), ITEM_LIST));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Corrupt order view for order " + view.getId(), e);
+        }
+    }
+
+    private List<OrderDTO> toDTOs(List<OrderView> views) {
+        return views.stream().map(this::toDTO).collect(Collectors.toList());
+    }
+}
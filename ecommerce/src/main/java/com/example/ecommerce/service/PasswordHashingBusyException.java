@@ -0,0 +1,9 @@
+package com.example.ecommerce.service;
+
+// The password hashing pool is saturated; the request should be retried later (503).
+public class PasswordHashingBusyException extends RuntimeException {
+
+    public PasswordHashingBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.ecommerce.service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+// Payment provider operations used by PaymentService. Calls are asynchronous and
+// complete with GatewayUnavailableException when the provider is down or too slow.
+public interface PaymentGateway {
+
+    CompletableFuture<GatewayOrder> createOrder(long amountPaise, String currency, String receipt,
+                                                Map<String, Object> notes);
+
+    // Outcome of the payments made against a gateway order
+    CompletableFuture<PaymentStatus> fetchPaymentStatus(String gatewayOrderId);
+
+    record GatewayOrder(String id, int amount, String currency) {
+    }
+
+    // PAID carries the captured payment id; PENDING means nothing final yet
+    // (no attempt, or an attempt still in progress)
+    record PaymentStatus(State state, String paymentId) {
+
+        public enum State { PAID, FAILED, PENDING }
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.repository.OrderRepository;
+import com.example.ecommerce.repository.PendingPayment;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Settles orders stuck in CREATED (the browser never came back to /verify and no
+// webhook arrived) by asking the gateway what happened to their payments.
+// Pages through old CREATED orders, queries the gateway a few orders at a time
+// and applies each page's PAID / PAYMENT_FAILED outcomes in one transaction.
+@Service
+public class PaymentReconciliationService {
+
+    private final OrderRepository orderRepository;
+    private final OrderService orderService;
+    private final ShardTemplate shardTemplate;
+    private final PaymentGateway paymentGateway;
+    private final TransactionTemplate transactionTemplate;
+    private final AtomicLong lagSeconds = new AtomicLong();
+    private final Counter checkedCounter;
+    private final Counter paidCounter;
+    private final Counter failedCounter;
+    private final Counter errorCounter;
+    private final Timer batchTimer;
+
+    @Value("${payment.reconcile.enabled:true}")
+    private boolean enabled;
+
+    // Leave recent orders to the browser callback and webhooks
+    @Value("${payment.reconcile.after-minutes:30}")
+    private long afterMinutes;
+
+    @Value("${payment.reconcile.page-size:50}")
+    private int pageSize;
+
+    @Value("${payment.reconcile.max-pages-per-run:20}")
+    private int maxPagesPerRun;
+
+    // Gateway calls in flight at once; keep it below razorpay.gateway.max-concurrent-calls
+    @Value("${payment.reconcile.parallelism:8}")
+    private int parallelism;
+
+    public PaymentReconciliationService(OrderRepository orderRepository,
+                                        OrderService orderService,
+                                        ShardTemplate shardTemplate,
+                                        PaymentGateway paymentGateway,
+                                        PlatformTransactionManager transactionManager,
+                                        MeterRegistry meterRegistry) {
+        this.orderRepository = orderRepository;
+        this.orderService = orderService;
+        this.shardTemplate = shardTemplate;
+        this.paymentGateway = paymentGateway;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        Gauge.builder("payments.reconcile.lag", lagSeconds, AtomicLong::get)
+                .description("Age in seconds of the oldest order waiting in CREATED")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        this.checkedCounter = Counter.builder("payments.reconcile.checked")
+                .description("Orders looked up at the gateway")
+                .register(meterRegistry);
+        this.paidCounter = Counter.builder("payments.reconcile.resolved")
+                .tag("outcome", "paid")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("payments.reconcile.resolved")
+                .tag("outcome", "failed")
+                .register(meterRegistry);
+        this.errorCounter = Counter.builder("payments.reconcile.errors")
+                .description("Gateway lookups that failed")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("payments.reconcile.batch")
+                .description("Duration of one reconciled page")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${payment.reconcile.interval-ms:300000}", initialDelayString = "${payment.reconcile.initial-delay-ms:120000}")
+    public void reconcile() {
+        if (!enabled) {
+            return;
+        }
+        Date oldest = shardTemplate.scatterGather(() -> orderRepository.findOldestOrderDateByStatus("CREATED"))
+                .stream()
+                .filter(Objects::nonNull)
+                .min(Date::compareTo)
+                .orElse(null);
+        lagSeconds.set(oldest == null ? 0 : (System.currentTimeMillis() - oldest.getTime()) / 1000);
+
+        Date cutoff = new Date(System.currentTimeMillis() - Duration.ofMinutes(afterMinutes).toMillis());
+        shardTemplate.forEachShard(() -> reconcileCreatedBefore(cutoff));
+    }
+
+    private void reconcileCreatedBefore(Date cutoff) {
+        int afterId = 0;
+        for (int page = 0; page < maxPagesPerRun; page++) {
+            List<PendingPayment> batch = orderRepository.findCreatedBefore(cutoff, afterId, PageRequest.of(0, pageSize));
+            if (batch.isEmpty() || !reconcileBatch(batch)) {
+                return;
+            }
+            afterId = batch.get(batch.size() - 1).getId();
+        }
+    }
+
+    // Look up one page of orders and apply the outcomes. Returns false when the
+    // gateway is failing every lookup, so the run stops instead of hammering it.
+    public boolean reconcileBatch(List<PendingPayment> batch) {
+        return batchTimer.record(() -> {
+            Map<Integer, String> paid = new LinkedHashMap<>();
+            List<Integer> failed = new ArrayList<>();
+            boolean gatewayResponding = true;
+
+            for (int from = 0; from < batch.size() && gatewayResponding; from += parallelism) {
+                List<PendingPayment> chunk = batch.subList(from, Math.min(batch.size(), from + parallelism));
+                List<CompletableFuture<PaymentGateway.PaymentStatus>> lookups = chunk.stream()
+                        .map(order -> paymentGateway.fetchPaymentStatus(order.getRazorpayOrderId())
+                                .exceptionally(error -> null))
+                        .toList();
+
+                int errors = 0;
+                for (int i = 0; i < chunk.size(); i++) {
+                    PaymentGateway.PaymentStatus status = lookups.get(i).join();
+                    checkedCounter.increment();
+                    if (status == null) {
+                        errors++;
+                    } else if (status.state() == PaymentGateway.PaymentStatus.State.PAID) {
+                        paid.put(chunk.get(i).getId(), status.paymentId());
+                    } else if (status.state() == PaymentGateway.PaymentStatus.State.FAILED) {
+                        failed.add(chunk.get(i).getId());
+                    }
+                }
+                errorCounter.increment(errors);
+                gatewayResponding = errors < chunk.size();
+            }
+
+            if (!paid.isEmpty() || !failed.isEmpty()) {
+                transactionTemplate.executeWithoutResult(tx -> {
+                    if (!paid.isEmpty()) {
+                        paidCounter.increment(orderService.confirmPayments(paid).size());
+                    }
+                    if (!failed.isEmpty()) {
+                        failedCounter.increment(orderService.failPayments(failed));
+                    }
+                });
+            }
+            return gatewayResponding;
+        });
+    }
+}
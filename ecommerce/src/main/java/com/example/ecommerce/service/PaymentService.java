@@ -3,32 +3,62 @@ package com.example.ecommerce.service;
 import com.example.ecommerce.dto.PaymentResponse;
 import com.example.ecommerce.entity.Order;
 import com.example.ecommerce.repository.OrderRepository;
-import com.razorpay.RazorpayClient;
-import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.apache.commons.codec.binary.Hex;
+import org.springframework.transaction.annotation.Transactional;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.annotation.PostConstruct;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class PaymentService {
 
+    private static final Logger log = LoggerFactory.getLogger(PaymentService.class);
+
     @Autowired
     private OrderRepository orderRepository;
 
     @Autowired
     private OrderService orderService;
+
+    @Autowired
+    private OrderViewService orderViewService;
+
+    @Autowired
+    private PaymentGateway paymentGateway;
+
+    @Autowired
+    private ShardTemplate shardTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Value("${razorpay.key.id}")
     private String razorpayKeyId;
 
     @Value("${razorpay.key.secret}")
     private String razorpayKeySecret;
 
-    // Create Razorpay Order and save mapping in DB
-    public PaymentResponse createOrder(double amount, int dbOrderId) throws Exception {
+    private PaymentSignatureVerifier signatureVerifier;
+
+    @PostConstruct
+    void initSignatureVerifier() {
+        signatureVerifier = new PaymentSignatureVerifier(razorpayKeySecret);
+    }
+
+    // Create the Razorpay order and save the mapping in DB. The gateway call runs off the
+    // request thread; the returned future completes once the order is marked CREATED.
+    public CompletableFuture<PaymentResponse> createOrder(double amount, int dbOrderId) {
         
         // First verify the order exists and is in PENDING state
         Order order = orderRepository.findById(dbOrderId)
@@ -43,118 +73,94 @@ public class PaymentService {
             throw new RuntimeException("Amount mismatch. Expected: " + order.getTotalPrice() + ", Provided: " + amount);
         }
 
-        try {
-            RazorpayClient razorpay = new RazorpayClient(razorpayKeyId, razorpayKeySecret);
-
-            JSONObject options = new JSONObject();
-            options.put("amount", (int)(amount * 100)); // amount in paise
-            options.put("currency", "INR");
-            options.put("receipt", "order_" + dbOrderId + "_" + System.currentTimeMillis());
-            
-            // Add notes for better tracking
-            JSONObject notes = new JSONObject();
-            notes.put("db_order_id", dbOrderId);
-            notes.put("user_id", order.getUser().getId());
-            options.put("notes", notes);
-
-            com.razorpay.Order razorpayOrder = razorpay.orders.create(options);
-
-            order.setRazorpayOrderId(razorpayOrder.get("id"));
-            order.setStatus("CREATED"); // Status when Razorpay order is created but not paid
-            orderRepository.save(order);
-
-            return new PaymentResponse(
-                    razorpayOrder.get("id"),
-                    razorpayOrder.get("amount"),
-                    razorpayOrder.get("currency"),
-                    razorpayKeyId  // needed by frontend
-            );
-        } catch (Exception e) {
-            // If Razorpay order creation fails, keep order status as PENDING
-            System.err.println("Failed to create Razorpay order: " + e.getMessage());
-            throw new RuntimeException("Failed to create payment order: " + e.getMessage(), e);
-        }
+        // Add notes for better tracking
+        Map<String, Object> notes = new LinkedHashMap<>();
+        notes.put("db_order_id", dbOrderId);
+        notes.put("user_id", order.getUser().getId());
+        String receipt = "order_" + dbOrderId + "_" + System.currentTimeMillis();
+        // The callbacks run on the gateway's threads, so carry the request's correlation id
+        // and the user's shard over
+        String correlationId = MDC.get(CorrelationIdFilter.MDC_KEY);
+        String shard = shardTemplate.currentShard();
+        Timer.Sample gatewayCall = Timer.start(meterRegistry);
+
+        return paymentGateway.createOrder(Math.round(amount * 100), "INR", receipt, notes) // amount in paise
+                .whenComplete((gatewayOrder, error) -> gatewayCall.stop(gatewayTimer("create-order", error)))
+                .thenApply(gatewayOrder -> shardTemplate.onShard(shard, () -> {
+                    // Status when Razorpay order is created but not paid; skipped if the
+                    // order was cancelled or expired while the gateway call was running
+                    if (orderRepository.markCreated(dbOrderId, gatewayOrder.id()) == 0) {
+                        throw new RuntimeException("Order " + dbOrderId + " is no longer PENDING");
+                    }
+                    orderViewService.updateStatus(dbOrderId, "CREATED");
+                    return new PaymentResponse(
+                            gatewayOrder.id(),
+                            gatewayOrder.amount(),
+                            gatewayOrder.currency(),
+                            razorpayKeyId  // needed by frontend
+                    );
+                }))
+                .whenComplete((response, error) -> {
+                    // If Razorpay order creation fails, the order stays PENDING
+                    if (error != null) {
+                        Throwable cause = error.getCause() != null ? error.getCause() : error;
+                        log.atWarn()
+                                .addKeyValue(CorrelationIdFilter.MDC_KEY, correlationId)
+                                .addKeyValue("orderId", dbOrderId)
+                                .log("Failed to create Razorpay order: {}", cause.getMessage());
+                    }
+                });
+    }
+
+    // Gateway round trip only, without the DB update that follows
+    private Timer gatewayTimer(String operation, Throwable error) {
+        return Timer.builder("payment.gateway.calls")
+                .description("Razorpay API calls made by PaymentService")
+                .tag("operation", operation)
+                .tag("outcome", error == null ? "success" : "error")
+                .register(meterRegistry);
     }
 
-    // Verify Payment Signature & Update DB
-    public boolean verifyPayment(String razorpayOrderId, String paymentId, String signature) throws Exception {
+    // Verify Payment Signature & Update DB. The state change is a single guarded update
+    // in this transaction; the order is only read when that update matched nothing.
+    @Transactional
+    public boolean verifyPayment(String razorpayOrderId, String paymentId, String signature) {
         
         if (razorpayOrderId == null || paymentId == null || signature == null) {
             throw new RuntimeException("Missing payment verification parameters");
         }
-        
-        try {
-            // Generate signature for verification
-            String data = razorpayOrderId + "|" + paymentId;
-            String generatedSignature = HmacSHA256(data, razorpayKeySecret);
-
-            if (generatedSignature.equals(signature)) {
-                // Find order by Razorpay order ID
-                Order order = orderRepository.findByRazorpayOrderId(razorpayOrderId);
-                if (order == null) {
-                    throw new RuntimeException("Order not found with razorpayOrderId: " + razorpayOrderId);
-                }
-                
-                // Check if order is in correct state for payment
-                if (!"CREATED".equals(order.getStatus()) && !"PENDING".equals(order.getStatus())) {
-                    throw new RuntimeException("Order is not in correct state for payment. Current status: " + order.getStatus());
-                }
-
-                // Update order status and payment details
-                order.setStatus("PAID");
-                order.setRazorpayPaymentId(paymentId);
-                orderRepository.save(order);
-                
-                // Now clear the cart since payment is successful
-                orderService.clearCartAfterPayment(order.getId());
-
-                System.out.println("Payment verified successfully for order: " + order.getId());
-                return true;
-            } else {
-                System.err.println("Payment signature verification failed for order: " + razorpayOrderId);
-                System.err.println("Expected: " + generatedSignature);
-                System.err.println("Received: " + signature);
-                
-                // Update order status to FAILED
-                Order order = orderRepository.findByRazorpayOrderId(razorpayOrderId);
-                if (order != null) {
-                    order.setStatus("PAYMENT_FAILED");
-                    orderRepository.save(order);
-                }
-                
-                return false;
-            }
-        } catch (Exception e) {
-            System.err.println("Error during payment verification: " + e.getMessage());
-            
-            // Update order status to FAILED on exception
-            try {
-                Order order = orderRepository.findByRazorpayOrderId(razorpayOrderId);
-                if (order != null) {
-                    order.setStatus("PAYMENT_FAILED");
-                    orderRepository.save(order);
-                }
-            } catch (Exception dbError) {
-                System.err.println("Failed to update order status to PAYMENT_FAILED: " + dbError.getMessage());
-            }
-            
-            throw new RuntimeException("Payment verification failed: " + e.getMessage(), e);
+
+        if (!signatureVerifier.verifyPayment(razorpayOrderId, paymentId, signature)) {
+            log.atWarn()
+                    .addKeyValue("razorpayOrderId", razorpayOrderId)
+                    .addKeyValue("paymentId", paymentId)
+                    .log("Payment signature verification failed");
+
+            // Update order status to FAILED (only while it is still waiting for payment)
+            orderService.failPayment(razorpayOrderId);
+            return false;
         }
-    }
 
-    // Helper method for HMAC SHA256
-    private String HmacSHA256(String data, String secret) throws Exception {
-        try {
-            Mac mac = Mac.getInstance("HmacSHA256");
-            SecretKeySpec secretKey = new SecretKeySpec(secret.getBytes(), "HmacSHA256");
-            mac.init(secretKey);
-            byte[] hash = mac.doFinal(data.getBytes());
-            return new String(Hex.encodeHex(hash));
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to generate HMAC signature: " + e.getMessage(), e);
+        // Update order status and payment details, then clear the cart
+        if (orderService.confirmPayment(razorpayOrderId, paymentId)) {
+            log.atInfo()
+                    .addKeyValue("razorpayOrderId", razorpayOrderId)
+                    .addKeyValue("paymentId", paymentId)
+                    .log("Payment verified");
+            return true;
         }
+
+        // Nothing changed: already confirmed (e.g. by the webhook), unknown, or no longer payable
+        Order order = orderRepository.findByRazorpayOrderId(razorpayOrderId);
+        if (order == null) {
+            throw new RuntimeException("Order not found with razorpayOrderId: " + razorpayOrderId);
+        }
+        if ("PAID".equals(order.getStatus()) && paymentId.equals(order.getRazorpayPaymentId())) {
+            return true;
+        }
+        throw new RuntimeException("Order is not in correct state for payment. Current status: " + order.getStatus());
     }
-    
+
     // Additional method to check payment status
     public String getPaymentStatus(int orderId) {
         Order order = orderRepository.findById(orderId)
@@ -165,14 +171,16 @@ public class PaymentService {
     // Method to handle payment failure cleanup
     public void handlePaymentFailure(String razorpayOrderId, String reason) {
         try {
-            Order order = orderRepository.findByRazorpayOrderId(razorpayOrderId);
-            if (order != null) {
-                order.setStatus("PAYMENT_FAILED");
-                orderRepository.save(order);
-                System.out.println("Payment failed for order: " + order.getId() + ". Reason: " + reason);
+            if (orderService.failPayment(razorpayOrderId)) {
+                log.atInfo()
+                        .addKeyValue("razorpayOrderId", razorpayOrderId)
+                        .log("Payment failed: {}", reason);
             }
         } catch (Exception e) {
-            System.err.println("Error handling payment failure: " + e.getMessage());
+            log.atError()
+                    .addKeyValue("razorpayOrderId", razorpayOrderId)
+                    .setCause(e)
+                    .log("Error handling payment failure");
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,131 @@
+package com.example.ecommerce.service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Verifies Razorpay HMAC-SHA256 signatures for one secret. Initialized Macs (with
+// their scratch buffers) are pooled, so a verification allocates nothing beyond the
+// UTF-8 bytes of its input. A pool instead of a ThreadLocal keeps this cheap on
+// virtual threads too. The hex signature is decoded and compared in constant time.
+public final class PaymentSignatureVerifier {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MAC_LENGTH = 32;
+    private static final byte SEPARATOR = '|';
+
+    private final SecretKeySpec key;
+    private final AtomicReferenceArray<Slot> pool;
+
+    public PaymentSignatureVerifier(String secret) {
+        if (secret == null || secret.isEmpty()) {
+            throw new IllegalArgumentException("Signature secret is not configured");
+        }
+        this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.pool = new AtomicReferenceArray<>(Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+        release(new Slot(newMac())); // fail fast on a bad key
+    }
+
+    // Checkout callback signature: HMAC of "orderId|paymentId"
+    public boolean verifyPayment(String razorpayOrderId, String paymentId, String signature) {
+        Slot slot = acquire();
+        try {
+            slot.mac.update(razorpayOrderId.getBytes(StandardCharsets.UTF_8));
+            slot.mac.update(SEPARATOR);
+            slot.mac.update(paymentId.getBytes(StandardCharsets.UTF_8));
+            return finish(slot, signature);
+        } finally {
+            release(slot);
+        }
+    }
+
+    // Webhook signature: HMAC of the raw request body
+    public boolean verify(byte[] body, String signature) {
+        Slot slot = acquire();
+        try {
+            slot.mac.update(body);
+            return finish(slot, signature);
+        } finally {
+            release(slot);
+        }
+    }
+
+    private boolean finish(Slot slot, String signature) {
+        try {
+            slot.mac.doFinal(slot.expected, 0);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to compute HMAC signature", e);
+        }
+        // Length and hex syntax are not secret, only the digest bytes are
+        if (signature == null || !decodeHex(signature, slot.provided)) {
+            return false;
+        }
+        int diff = 0;
+        for (int i = 0; i < MAC_LENGTH; i++) {
+            diff |= slot.expected[i] ^ slot.provided[i];
+        }
+        return diff == 0;
+    }
+
+    private static boolean decodeHex(String hex, byte[] out) {
+        if (hex.length() != MAC_LENGTH * 2) {
+            return false;
+        }
+        for (int i = 0; i < MAC_LENGTH; i++) {
+            int high = Character.digit(hex.charAt(2 * i), 16);
+            int low = Character.digit(hex.charAt(2 * i + 1), 16);
+            if (high < 0 || low < 0) {
+                return false;
+            }
+            out[i] = (byte) ((high << 4) | low);
+        }
+        return true;
+    }
+
+    private Slot acquire() {
+        int size = pool.length();
+        int start = ThreadLocalRandom.current().nextInt(size);
+        for (int i = 0; i < size; i++) {
+            Slot slot = pool.getAndSet((start + i) % size, null);
+            if (slot != null) {
+                return slot;
+            }
+        }
+        // Pool is empty under a burst; the extra Mac is pooled afterwards if there is room
+        return new Slot(newMac());
+    }
+
+    private void release(Slot slot) {
+        slot.mac.reset();
+        int size = pool.length();
+        int start = ThreadLocalRandom.current().nextInt(size);
+        for (int i = 0; i < size; i++) {
+            if (pool.compareAndSet((start + i) % size, null, slot)) {
+                return;
+            }
+        }
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to initialize HMAC-SHA256", e);
+        }
+    }
+
+    private static final class Slot {
+        final Mac mac;
+        final byte[] expected = new byte[MAC_LENGTH];
+        final byte[] provided = new byte[MAC_LENGTH];
+
+        Slot(Mac mac) {
+            this.mac = mac;
+        }
+    }
+}
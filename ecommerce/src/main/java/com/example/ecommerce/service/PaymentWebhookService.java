@@ -0,0 +1,228 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.entity.PaymentEvent;
+import com.example.ecommerce.repository.PaymentEventRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Razorpay webhooks: the endpoint only verifies the signature and appends the
+// event to payment_events, a scheduled consumer then applies queued events in
+// batches through OrderService. Orders get confirmed even if the browser never
+// calls /api/payment/verify.
+// A payment.failed event only records a failed attempt: the customer can retry on
+// the same Razorpay order and a later capture must still confirm it. Orders whose
+// attempts all failed are settled by PaymentReconciliationService, which asks the gateway.
+@Service
+public class PaymentWebhookService {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentWebhookService.class);
+
+    static final String NEW = "NEW";
+    static final String PROCESSED = "PROCESSED";
+    static final String IGNORED = "IGNORED";
+    static final String FAILED = "FAILED";
+
+    private static final Set<String> SUCCESS_EVENTS = Set.of("payment.captured", "order.paid");
+    private static final String FAILURE_EVENT = "payment.failed";
+
+    private final PaymentEventRepository paymentEventRepository;
+    private final OrderService orderService;
+    private final ShardTemplate shardTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${razorpay.webhook.secret:}")
+    private String webhookSecret;
+
+    // Null while no webhook secret is configured, every delivery is then rejected
+    private PaymentSignatureVerifier signatureVerifier;
+
+    @Value("${payment.webhook.batch-size:100}")
+    private int batchSize;
+
+    @Value("${payment.webhook.max-batches-per-run:10}")
+    private int maxBatchesPerRun;
+
+    @Value("${payment.webhook.max-attempts:5}")
+    private int maxAttempts;
+
+    public PaymentWebhookService(PaymentEventRepository paymentEventRepository,
+                                 OrderService orderService,
+                                 ShardTemplate shardTemplate,
+                                 ObjectMapper objectMapper,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry) {
+        this.paymentEventRepository = paymentEventRepository;
+        this.orderService = orderService;
+        this.shardTemplate = shardTemplate;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void initSignatureVerifier() {
+        if (!webhookSecret.isBlank()) {
+            signatureVerifier = new PaymentSignatureVerifier(webhookSecret);
+        }
+    }
+
+    // Verify and queue one webhook delivery. Returns false if the signature does not match.
+    public boolean receive(byte[] body, String signature, String eventId) {
+        if (signatureVerifier == null || !signatureVerifier.verify(body, signature)) {
+            return false;
+        }
+
+        JsonNode json;
+        try {
+            json = objectMapper.readTree(body);
+        } catch (IOException e) {
+            throw new RuntimeException("Invalid webhook payload");
+        }
+        String type = json.path("event").asText();
+        JsonNode payment = json.path("payload").path("payment").path("entity");
+        String paymentId = payment.path("id").asText(null);
+        String razorpayOrderId = payment.path("order_id").asText(
+                json.path("payload").path("order").path("entity").path("id").asText(null));
+
+        PaymentEvent event = new PaymentEvent();
+        // Razorpay sends the same event id on redelivery; without it, one event per payment
+        event.setEventId(eventId != null && !eventId.isBlank()
+                ? eventId
+                : type + ":" + (paymentId != null ? paymentId : razorpayOrderId));
+        event.setEventType(type);
+        event.setRazorpayOrderId(razorpayOrderId);
+        event.setPaymentId(paymentId);
+        event.setPayload(new String(body, StandardCharsets.UTF_8));
+        event.setStatus(NEW);
+        event.setReceivedAt(new Date());
+        // Queued on the shard holding the order, so applying it stays a one-shard transaction
+        String shard = razorpayOrderId == null ? null : orderService.locateRazorpayOrder(razorpayOrderId);
+        return shardTemplate.onShard(shard, () -> queue(event));
+    }
+
+    private boolean queue(PaymentEvent event) {
+        try {
+            paymentEventRepository.save(event);
+            meterRegistry.counter("payment.webhook.received", "outcome", "queued").increment();
+        } catch (DataIntegrityViolationException e) {
+            // Already queued by an earlier delivery
+            meterRegistry.counter("payment.webhook.received", "outcome", "duplicate").increment();
+        }
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${payment.webhook.poll-interval-ms:2000}")
+    public void processQueuedEvents() {
+        shardTemplate.forEachShard(() -> {
+            long afterId = 0;
+            for (int batch = 0; batch < maxBatchesPerRun && afterId >= 0; batch++) {
+                afterId = processBatch(afterId);
+            }
+        });
+    }
+
+    // Apply one batch of queued events with ids above afterId.
+    // Returns the last id seen, or -1 when the queue is drained.
+    public long processBatch(long afterId) {
+        List<PaymentEvent> events = paymentEventRepository.findByStatusAndIdGreaterThanOrderByIdAsc(
+                NEW, afterId, PageRequest.of(0, batchSize));
+        if (events.isEmpty()) {
+            return -1;
+        }
+
+        // Only captures change an order, once per Razorpay order in the batch;
+        // failed attempts are marked processed without touching the order
+        Map<String, PaymentEvent> decisive = new LinkedHashMap<>();
+        List<Long> ignored = new ArrayList<>();
+        List<Long> processed = new ArrayList<>();
+        int failedAttempts = 0;
+        for (PaymentEvent event : events) {
+            if (event.getRazorpayOrderId() == null) {
+                ignored.add(event.getId());
+            } else if (isSuccess(event)) {
+                if (decisive.putIfAbsent(event.getRazorpayOrderId(), event) != null) {
+                    processed.add(event.getId());
+                }
+            } else if (FAILURE_EVENT.equals(event.getEventType())) {
+                processed.add(event.getId());
+                failedAttempts++;
+            } else {
+                ignored.add(event.getId());
+            }
+        }
+        meterRegistry.counter("payment.webhook.applied", "outcome", "attempt_failed").increment(failedAttempts);
+        Date now = new Date();
+        if (!ignored.isEmpty()) {
+            paymentEventRepository.updateStatus(ignored, IGNORED, now);
+        }
+        if (!processed.isEmpty()) {
+            paymentEventRepository.updateStatus(processed, PROCESSED, now);
+        }
+
+        for (PaymentEvent event : decisive.values()) {
+            // The webhook event id correlates everything logged while applying it
+            try (MDC.MDCCloseable correlation = MDC.putCloseable(CorrelationIdFilter.MDC_KEY, "webhook-" + event.getEventId())) {
+                apply(event);
+            }
+        }
+        return events.get(events.size() - 1).getId();
+    }
+
+    // Each event gets its own transaction so one bad event does not hold up the batch.
+    // The claim locks the event row, so another node polling the same queue skips it.
+    private void apply(PaymentEvent event) {
+        try {
+            transactionTemplate.executeWithoutResult(tx -> {
+                if (paymentEventRepository.claim(event.getId(), PROCESSED, new Date()) == 0) {
+                    return;
+                }
+                boolean changed = orderService.confirmPayment(event.getRazorpayOrderId(), event.getPaymentId());
+                String outcome = changed ? PROCESSED : IGNORED;
+                if (!changed) {
+                    paymentEventRepository.updateStatus(List.of(event.getId()), IGNORED, new Date());
+                }
+                meterRegistry.counter("payment.webhook.applied", "outcome", outcome.toLowerCase()).increment();
+            });
+        } catch (RuntimeException e) {
+            int attempts = event.getAttempts() + 1;
+            String status = attempts >= maxAttempts ? FAILED : NEW;
+            String message = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+            paymentEventRepository.recordFailure(event.getId(), status, attempts,
+                    message.length() > 500 ? message.substring(0, 500) : message);
+            meterRegistry.counter("payment.webhook.applied", "outcome", "error").increment();
+            log.atWarn()
+                    .addKeyValue("razorpayOrderId", event.getRazorpayOrderId())
+                    .addKeyValue("attempts", attempts)
+                    .log("Failed to apply payment event: {}", message);
+        }
+    }
+
+    private boolean isSuccess(PaymentEvent event) {
+        return SUCCESS_EVENTS.contains(event.getEventType());
+    }
+}
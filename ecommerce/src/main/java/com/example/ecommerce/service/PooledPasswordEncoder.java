@@ -0,0 +1,115 @@
+package com.example.ecommerce.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// BCrypt on a small, bounded pool instead of the request threads, so a login burst
+// can use at most `threads` cores and leaves the rest of the API responsive.
+// When the queue is full (or a hash waits too long) callers get
+// PasswordHashingBusyException, which the controllers turn into a 503.
+// A timed-out hash that is still queued is cancelled and purged from the queue, so it
+// never runs. One already running cannot be stopped (BCrypt ignores interrupts): it
+// keeps its thread until it finishes, at most one hash per pool thread.
+// upgradeEncoding reports hashes below the configured strength, so
+// DaoAuthenticationProvider rehashes them after a successful login.
+@Service
+public class PooledPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long waitTimeoutMs;
+    private final Counter rejectedCounter;
+
+    @Autowired
+    public PooledPasswordEncoder(@Value("${password.hash.strength:12}") int strength,
+                                 @Value("${password.hash.threads:0}") int threads,
+                                 @Value("${password.hash.queue-capacity:64}") int queueCapacity,
+                                 @Value("${password.hash.wait-timeout-ms:5000}") long waitTimeoutMs,
+                                 MeterRegistry meterRegistry) {
+        this(new BCryptPasswordEncoder(strength), threads, queueCapacity, waitTimeoutMs, meterRegistry);
+    }
+
+    PooledPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, long waitTimeoutMs,
+                          MeterRegistry meterRegistry) {
+        // 0 = half the cores, leaving the other half for regular requests
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.delegate = delegate;
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                Thread.ofPlatform().name("password-hash-", 0).daemon().factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.waitTimeoutMs = waitTimeoutMs;
+        this.rejectedCounter = Counter.builder("password.hash.rejected")
+                .description("Password hashes refused because the hashing pool was saturated")
+                .register(meterRegistry);
+        Gauge.builder("password.hash.queue", executor, pool -> pool.getQueue().size())
+                .description("Password hashes waiting for a hashing thread")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    // Skip the upgrade while hashes are queued; the rehash would be one more job on
+    // a busy pool and could fail an otherwise good login. A later login upgrades it.
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return executor.getQueue().isEmpty() && delegate.upgradeEncoding(encodedPassword);
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private <T> T run(Callable<T> task) {
+        Future<T> result;
+        try {
+            result = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new PasswordHashingBusyException("Too many logins in progress, try again shortly");
+        }
+        try {
+            return result.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            executor.purge(); // frees the queue slot now rather than when a thread reaches it
+            rejectedCounter.increment();
+            throw new PasswordHashingBusyException("Password check timed out, try again shortly");
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingBusyException("Password check was interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+}
@@ -5,8 +5,12 @@ import com.cloudinary.utils.ObjectUtils;
 import com.example.ecommerce.entity.Product;
 import com.example.ecommerce.repository.ProductRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
@@ -17,19 +21,21 @@ public class ProductService {
 
     private final ProductRepository productRepository;
     private final Cloudinary cloudinary;
+    private final StockService stockService;
+    private final MeterRegistry meterRegistry;
 
-    public ProductService(ProductRepository productRepository, Cloudinary cloudinary) {
+    public ProductService(ProductRepository productRepository, Cloudinary cloudinary, StockService stockService,
+                          MeterRegistry meterRegistry) {
         this.productRepository = productRepository;
         this.cloudinary = cloudinary;
+        this.stockService = stockService;
+        this.meterRegistry = meterRegistry;
     }
 
     // Save product with optional image
     public Product saveProduct(Product product, MultipartFile imageFile) throws IOException {
         if (imageFile != null && !imageFile.isEmpty()) {
-            Map uploadResult = cloudinary.uploader().upload(
-                    imageFile.getBytes(),
-                    ObjectUtils.asMap("folder", "ecommerce/products")
-            );
+            Map uploadResult = upload(imageFile.getBytes());
             product.setImageUrl((String) uploadResult.get("secure_url"));
             product.setImagePublicId((String) uploadResult.get("public_id"));
         }
@@ -37,6 +43,7 @@ public class ProductService {
     }
 
     // Get all products
+    @Transactional(readOnly = true)
     public List<Product> getAllProducts() {
         return productRepository.findAll();
     }
@@ -46,9 +53,10 @@ public class ProductService {
         if (productRepository.existsById(id)) {
             Product product = productRepository.findById(id).orElseThrow();
             if (product.getImagePublicId() != null) {
-                cloudinary.uploader().destroy(product.getImagePublicId(), ObjectUtils.emptyMap());
+                destroyImage(product.getImagePublicId());
             }
             productRepository.deleteById(id);
+            stockService.invalidate(id);
             return true;
         }
         return false;
@@ -62,19 +70,51 @@ public class ProductService {
         existingProduct.setName(updatedProduct.getName());
         existingProduct.setPrice(updatedProduct.getPrice());
         existingProduct.setDescription(updatedProduct.getDescription());
+        existingProduct.setStock(updatedProduct.getStock());
 
         if (newImage != null && !newImage.isEmpty()) {
             if (existingProduct.getImagePublicId() != null) {
-                cloudinary.uploader().destroy(existingProduct.getImagePublicId(), ObjectUtils.emptyMap());
+                destroyImage(existingProduct.getImagePublicId());
             }
-            Map uploadResult = cloudinary.uploader().upload(
-                    newImage.getBytes(),
-                    ObjectUtils.asMap("folder", "ecommerce/products")
-            );
+            Map uploadResult = upload(newImage.getBytes());
             existingProduct.setImageUrl((String) uploadResult.get("secure_url"));
             existingProduct.setImagePublicId((String) uploadResult.get("public_id"));
         }
 
-        return productRepository.save(existingProduct);
+        Product saved = productRepository.save(existingProduct);
+        // The admin's stock level is the new truth, rebuild the counter from it
+        stockService.invalidate(id);
+        return saved;
+    }
+
+    private Map upload(byte[] image) throws IOException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            Map result = cloudinary.uploader().upload(image, ObjectUtils.asMap("folder", "ecommerce/products"));
+            outcome = "success";
+            return result;
+        } finally {
+            sample.stop(cloudinaryTimer("upload", outcome));
+        }
+    }
+
+    private void destroyImage(String publicId) throws IOException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            cloudinary.uploader().destroy(publicId, ObjectUtils.emptyMap());
+            outcome = "success";
+        } finally {
+            sample.stop(cloudinaryTimer("destroy", outcome));
+        }
+    }
+
+    private Timer cloudinaryTimer(String operation, String outcome) {
+        return Timer.builder("cloudinary.calls")
+                .description("Cloudinary image API calls")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
     }
-}
+}
\ No newline at end of file
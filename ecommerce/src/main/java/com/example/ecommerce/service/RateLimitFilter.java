@@ -0,0 +1,113 @@
+package com.example.ecommerce.service;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import com.example.ecommerce.config.RateLimitProperties;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Per-user and per-IP token bucket limits for the routes listed under
+// rate-limit.policies. Runs after JwtFilter so the user id is known. Every
+// matching policy must have a token; otherwise the request gets 429 with
+// Retry-After. The client IP is request.getRemoteAddr(): behind a proxy set
+// server.forward-headers-strategy so that it is the real client. Paths under
+// rate-limit.exclude-paths (the payment webhook) are never limited.
+@Service
+public class RateLimitFilter extends OncePerRequestFilter {
+
+	private record Route(RateLimitProperties.Policy policy, PathPattern pattern) {}
+
+	private final RateLimitProperties properties;
+	private final List<Route> routes;
+	private final List<PathPattern> excluded;
+	private final TokenBuckets buckets;
+	private final MeterRegistry meterRegistry;
+
+	public RateLimitFilter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+		this.properties = properties;
+		this.routes = properties.getPolicies().stream()
+				.map(policy -> new Route(policy, PathPatternParser.defaultInstance.parse(policy.getPath())))
+				.toList();
+		this.excluded = properties.getExcludePaths().stream()
+				.map(PathPatternParser.defaultInstance::parse)
+				.toList();
+		this.buckets = new TokenBuckets(properties.getMaxBuckets());
+		this.meterRegistry = meterRegistry;
+		Gauge.builder("http.rate_limit.buckets", buckets, TokenBuckets::size)
+				.description("Rate limit buckets held in memory")
+				.register(meterRegistry);
+	}
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		if (!properties.isEnabled() || routes.isEmpty()) {
+			return true;
+		}
+		PathContainer path = PathContainer.parsePath(request.getRequestURI());
+		return excluded.stream().anyMatch(pattern -> pattern.matches(path));
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+
+		PathContainer path = PathContainer.parsePath(request.getRequestURI());
+		long now = System.nanoTime();
+		for (int i = 0; i < routes.size(); i++) {
+			RateLimitProperties.Policy policy = routes.get(i).policy();
+			if (!routes.get(i).pattern().matches(path)
+					|| (policy.getMethod() != null && !policy.getMethod().equalsIgnoreCase(request.getMethod()))) {
+				continue;
+			}
+			long waitNanos = buckets.tryAcquire(i + ":" + keyOf(policy, request),
+					policy.getCapacity(), policy.getRefillPerSecond(), now);
+			if (waitNanos > 0) {
+				meterRegistry.counter("http.rate_limit.throttled", "policy", nameOf(policy, i)).increment();
+				response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+				response.setHeader("Retry-After", String.valueOf(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1)));
+				response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+				response.getWriter().write("Too many requests, please retry later");
+				return;
+			}
+		}
+		filterChain.doFilter(request, response);
+	}
+
+	// Buckets that have filled up again hold no state
+	@Scheduled(fixedDelayString = "${rate-limit.sweep-interval-ms:60000}")
+	public void sweep() {
+		buckets.evictIdle(System.nanoTime());
+	}
+
+	private String keyOf(RateLimitProperties.Policy policy, HttpServletRequest request) {
+		if (policy.getKey() == RateLimitProperties.Policy.Key.USER) {
+			Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+			if (auth != null && auth.isAuthenticated()) {
+				return auth.getPrincipal() instanceof JwtUser user ? "u" + user.id() : "u" + auth.getName();
+			}
+		}
+		return "ip" + request.getRemoteAddr();
+	}
+
+	private static String nameOf(RateLimitProperties.Policy policy, int index) {
+		return policy.getName() != null ? policy.getName() : "policy-" + index;
+	}
+}
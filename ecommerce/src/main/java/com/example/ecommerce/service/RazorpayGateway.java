@@ -0,0 +1,192 @@
+package com.example.ecommerce.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Razorpay REST client. One HttpClient (and its connection pool) serves the whole app.
+// Calls run on virtual threads with a hard timeout, a bulkhead caps the calls in
+// flight and a circuit breaker fails fast while the gateway keeps failing.
+@Service
+public class RazorpayGateway implements PaymentGateway {
+
+    private final ObjectMapper objectMapper;
+    private final ExecutorService executor;
+    private final HttpClient httpClient;
+    private final URI baseUri;
+    private final String authorization;
+    private final Duration requestTimeout;
+    private final Semaphore bulkhead;
+    private final CircuitBreaker circuitBreaker;
+
+    public RazorpayGateway(ObjectMapper objectMapper,
+                           @Value("${razorpay.api.base-url:https://api.razorpay.com}") String baseUrl,
+                           @Value("${razorpay.key.id}") String keyId,
+                           @Value("${razorpay.key.secret}") String keySecret,
+                           @Value("${razorpay.gateway.connect-timeout-ms:2000}") long connectTimeoutMs,
+                           @Value("${razorpay.gateway.request-timeout-ms:5000}") long requestTimeoutMs,
+                           @Value("${razorpay.gateway.max-concurrent-calls:20}") int maxConcurrentCalls,
+                           @Value("${razorpay.gateway.circuit.failure-threshold:5}") int failureThreshold,
+                           @Value("${razorpay.gateway.circuit.open-ms:30000}") long openMillis) {
+        this.objectMapper = objectMapper;
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .executor(executor)
+                .build();
+        this.baseUri = URI.create(baseUrl.endsWith("/") ? baseUrl : baseUrl + "/");
+        this.authorization = "Basic " + Base64.getEncoder()
+                .encodeToString((keyId + ":" + keySecret).getBytes(StandardCharsets.UTF_8));
+        this.requestTimeout = Duration.ofMillis(requestTimeoutMs);
+        this.bulkhead = new Semaphore(Math.max(1, maxConcurrentCalls));
+        this.circuitBreaker = new CircuitBreaker(failureThreshold, openMillis);
+    }
+
+    @Override
+    public CompletableFuture<GatewayOrder> createOrder(long amountPaise, String currency, String receipt,
+                                                       Map<String, Object> notes) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("amount", amountPaise);
+        body.put("currency", currency);
+        body.put("receipt", receipt);
+        body.put("notes", notes);
+        return post("v1/orders", body).thenApply(json -> new GatewayOrder(
+                json.path("id").asText(),
+                json.path("amount").asInt(),
+                json.path("currency").asText()));
+    }
+
+    // Captured payment wins; only failed attempts means failed; anything else is still pending
+    @Override
+    public CompletableFuture<PaymentStatus> fetchPaymentStatus(String gatewayOrderId) {
+        String path = "v1/orders/" + URLEncoder.encode(gatewayOrderId, StandardCharsets.UTF_8) + "/payments";
+        return get(path).thenApply(json -> {
+            boolean pending = false;
+            boolean failed = false;
+            for (JsonNode payment : json.path("items")) {
+                String status = payment.path("status").asText();
+                if ("captured".equals(status)) {
+                    return new PaymentStatus(PaymentStatus.State.PAID, payment.path("id").asText());
+                }
+                if ("failed".equals(status)) {
+                    failed = true;
+                } else {
+                    pending = true;
+                }
+            }
+            return new PaymentStatus(failed && !pending ? PaymentStatus.State.FAILED : PaymentStatus.State.PENDING, null);
+        });
+    }
+
+    CircuitBreaker.State circuitState() {
+        return circuitBreaker.state();
+    }
+
+    @PreDestroy
+    public void close() {
+        httpClient.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    private CompletableFuture<JsonNode> get(String path) {
+        HttpRequest request = HttpRequest.newBuilder(baseUri.resolve(path))
+                .timeout(requestTimeout)
+                .header("Authorization", authorization)
+                .GET()
+                .build();
+        return send(request);
+    }
+
+    private CompletableFuture<JsonNode> post(String path, Object body) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(new RuntimeException("Failed to encode gateway request", e));
+        }
+        HttpRequest request = HttpRequest.newBuilder(baseUri.resolve(path))
+                .timeout(requestTimeout)
+                .header("Authorization", authorization)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(payload))
+                .build();
+        return send(request);
+    }
+
+    private CompletableFuture<JsonNode> send(HttpRequest request) {
+        // Bulkhead first so a rejected call never takes the half-open trial slot
+        if (!bulkhead.tryAcquire()) {
+            return CompletableFuture.failedFuture(
+                    new GatewayUnavailableException("Too many payment gateway calls in flight, try again shortly"));
+        }
+        if (!circuitBreaker.allowRequest()) {
+            bulkhead.release();
+            return CompletableFuture.failedFuture(
+                    new GatewayUnavailableException("Payment gateway is unavailable, try again shortly"));
+        }
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .orTimeout(requestTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .handle((response, error) -> {
+                    bulkhead.release();
+                    if (error != null) {
+                        circuitBreaker.onFailure();
+                        throw new GatewayUnavailableException("Payment gateway call failed: " + describe(error), error);
+                    }
+                    return read(response);
+                });
+    }
+
+    private JsonNode read(HttpResponse<String> response) {
+        int status = response.statusCode();
+        if (status >= 500) {
+            circuitBreaker.onFailure();
+            throw new GatewayUnavailableException("Payment gateway returned HTTP " + status);
+        }
+        // Anything below 500 means the gateway itself is healthy
+        circuitBreaker.onSuccess();
+        if (status == 429) {
+            throw new GatewayUnavailableException("Payment gateway is rate limiting requests");
+        }
+        JsonNode json;
+        try {
+            json = objectMapper.readTree(response.body());
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Unreadable payment gateway response (HTTP " + status + ")", e);
+        }
+        if (status >= 400) {
+            String description = json.path("error").path("description").asText("HTTP " + status);
+            throw new RuntimeException("Payment gateway rejected the request: " + description);
+        }
+        return json;
+    }
+
+    private static String describe(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof TimeoutException || cause instanceof HttpTimeoutException) {
+            return "timed out";
+        }
+        return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.ecommerce.service;
+
+import java.util.Map;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Service;
+
+// Counts the SQL statements Hibernate prepares and the entities it loads on the current
+// thread while a scope is open (see SqlStatisticsFilter). Hibernate's own Statistics are
+// totals for the whole SessionFactory, so they cannot tell which request did the work.
+// Work handed to other threads (scatter-gather over shards, gateway callbacks) is not counted.
+@Service
+public class RequestSqlCounter implements StatementInspector, PostLoadEventListener, HibernatePropertiesCustomizer {
+
+    public static final class Counts {
+        private int statements;
+        private int entitiesLoaded;
+
+        public int statements() {
+            return statements;
+        }
+
+        public int entitiesLoaded() {
+            return entitiesLoaded;
+        }
+    }
+
+    private final ThreadLocal<Counts> current = new ThreadLocal<>();
+
+    // Starts counting for this thread; the caller must close() in a finally block
+    public Counts open() {
+        Counts counts = new Counts();
+        current.set(counts);
+        return counts;
+    }
+
+    public void close() {
+        current.remove();
+    }
+
+    @Override
+    public String inspect(String sql) {
+        Counts counts = current.get();
+        if (counts != null) {
+            counts.statements++;
+        }
+        return sql;
+    }
+
+    @Override
+    public void onPostLoad(PostLoadEvent event) {
+        Counts counts = current.get();
+        if (counts != null) {
+            counts.entitiesLoaded++;
+        }
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.ecommerce.service;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.server.PathContainer;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import com.example.ecommerce.config.ShardContext;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Sends a signed-in user's own order, cart and payment requests to the shard that
+// owns the user. Other routes (auth, catalog, admin) stay on the home shard; admin
+// order routes pick shards themselves. Runs after JwtFilter so the user is known.
+@Service
+public class ShardContextFilter extends OncePerRequestFilter {
+
+	private final ShardTemplate shardTemplate;
+	private final List<PathPattern> routedPaths;
+
+	public ShardContextFilter(ShardTemplate shardTemplate,
+			@Value("${sharding.routed-paths:/api/orders/**,/api/cart/**,/api/checkout/**,/api/payment/create-order/**,/api/payment/verify}") List<String> routedPaths) {
+		this.shardTemplate = shardTemplate;
+		this.routedPaths = routedPaths.stream()
+				.map(path -> PathPatternParser.defaultInstance.parse(path.trim()))
+				.toList();
+	}
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		return !shardTemplate.isSharded();
+	}
+
+	// Async dispatches run on another thread and need the shard again
+	@Override
+	protected boolean shouldNotFilterAsyncDispatch() {
+		return false;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+
+		Long userId = currentUserId();
+		PathContainer path = PathContainer.parsePath(request.getRequestURI());
+		if (userId == null || routedPaths.stream().noneMatch(pattern -> pattern.matches(path))) {
+			filterChain.doFilter(request, response);
+			return;
+		}
+		try (ShardContext.Scope scope = ShardContext.open(shardTemplate.shardFor(userId))) {
+			filterChain.doFilter(request, response);
+		}
+	}
+
+	private static Long currentUserId() {
+		Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+		if (auth == null || !auth.isAuthenticated() || auth instanceof AnonymousAuthenticationToken) {
+			return null;
+		}
+		if (auth.getPrincipal() instanceof JwtUser user) {
+			return user.id();
+		}
+		return auth.getPrincipal() instanceof userPrincipal principal ? principal.getUser().getId() : null;
+	}
+}
@@ -0,0 +1,161 @@
+package com.example.ecommerce.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import org.slf4j.MDC;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.ecommerce.config.ShardContext;
+import com.example.ecommerce.config.ShardRing;
+
+import jakarta.annotation.PreDestroy;
+
+// Runs work on the right shard. Without sharding configured (no ShardRing bean) there
+// is one database: everything runs inline on the caller's thread and the shard name
+// is null, so callers need no special case.
+// Work for one shard must not be started inside a transaction already bound to
+// another shard: the connection, and so the shard, is fixed by the first statement.
+@Service
+public class ShardTemplate {
+
+    private final ShardRing ring;
+    private final TransactionTemplate readOnlyTx;
+    private final TransactionTemplate homeTx;
+    private final ExecutorService workers;
+
+    @Autowired
+    public ShardTemplate(ObjectProvider<ShardRing> ring, PlatformTransactionManager transactionManager) {
+        this(ring.getIfAvailable(), transactionManager);
+    }
+
+    ShardTemplate(ShardRing ring, PlatformTransactionManager transactionManager) {
+        this.ring = ring;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.homeTx = new TransactionTemplate(transactionManager);
+        this.homeTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.workers = this.ring == null ? null : Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    public boolean isSharded() {
+        return ring != null;
+    }
+
+    // The shard owning a user's orders and cart, null when not sharded
+    public String shardFor(Long userId) {
+        return ring == null || userId == null ? null : ring.shardFor(userId);
+    }
+
+    public String currentShard() {
+        return ShardContext.current();
+    }
+
+    public <T> T forUser(Long userId, Supplier<T> work) {
+        return onShard(shardFor(userId), work);
+    }
+
+    // A null shard leaves the caller's routing as it is
+    public <T> T onShard(String shard, Supplier<T> work) {
+        if (shard == null) {
+            return work.get();
+        }
+        try (ShardContext.Scope scope = ShardContext.open(shard)) {
+            return work.get();
+        }
+    }
+
+    // Work on the unsharded tables (e.g. products.stock) from inside a shard's transaction:
+    // runs and commits in its own transaction on the home shard, the caller's one is
+    // suspended meanwhile. Without sharding it joins the caller's transaction.
+    public <T> T onHomeShard(Supplier<T> work) {
+        if (ring == null) {
+            return work.get();
+        }
+        try (ShardContext.Scope scope = ShardContext.open(null)) {
+            return homeTx.execute(status -> work.get());
+        }
+    }
+
+    // One shard after the other on the caller's thread, for background jobs.
+    // The job opens its own transactions, so each one stays on a single shard.
+    public void forEachShard(Runnable job) {
+        if (ring == null) {
+            job.run();
+            return;
+        }
+        for (String shard : ring.shards()) {
+            try (ShardContext.Scope scope = ShardContext.open(shard)) {
+                job.run();
+            }
+        }
+    }
+
+    // Runs a read-only query on every shard in parallel, one transaction per shard,
+    // and returns the results (null ones included) in shard order for the caller to merge
+    public <T> List<T> scatterGather(Supplier<T> query) {
+        if (ring == null) {
+            T result = readOnlyTx.execute(status -> query.get());
+            return Collections.singletonList(result);
+        }
+        Map<String, String> mdc = MDC.getCopyOfContextMap();
+        List<CompletableFuture<T>> results = new ArrayList<>();
+        for (String shard : ring.shards()) {
+            results.add(CompletableFuture.supplyAsync(() -> {
+                if (mdc != null) {
+                    MDC.setContextMap(mdc);
+                }
+                try (ShardContext.Scope scope = ShardContext.open(shard)) {
+                    return readOnlyTx.execute(status -> query.get());
+                } finally {
+                    MDC.clear();
+                }
+            }, workers));
+        }
+        List<T> gathered = new ArrayList<>(results.size());
+        try {
+            for (CompletableFuture<T> result : results) {
+                gathered.add(result.join());
+            }
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+        return gathered;
+    }
+
+    // The first shard where the probe holds, e.g. the one holding an order id.
+    // Null when not sharded or not found; onShard(null, ...) then runs on the home
+    // shard, where the lookup fails the same way it would without sharding.
+    public String locate(BooleanSupplier probe) {
+        if (ring == null) {
+            return null;
+        }
+        List<Boolean> found = scatterGather(probe::getAsBoolean);
+        for (int i = 0; i < found.size(); i++) {
+            if (found.get(i)) {
+                return ring.shards().get(i);
+            }
+        }
+        return null;
+    }
+
+    @PreDestroy
+    public void close() {
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.ecommerce.service;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Records the SQL statements and entity loads of each request per endpoint
+// (http.server.requests.sql.statements / .entities.loaded, tagged like http.server.requests).
+// A request above the statement threshold is counted on http.server.requests.n_plus_one
+// and logged as a likely N+1, at most once per log interval for each endpoint.
+// Runs right after CorrelationIdFilter so the JWT user lookup is counted as well.
+@Service
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class SqlStatisticsFilter extends OncePerRequestFilter {
+
+	private static final Logger log = LoggerFactory.getLogger(SqlStatisticsFilter.class);
+
+	private final RequestSqlCounter counter;
+	private final MeterRegistry meterRegistry;
+	private final boolean enabled;
+	private final int statementThreshold;
+	private final long logIntervalMillis;
+	// endpoint -> when it was last logged as a likely N+1
+	private final Map<String, Long> lastLoggedAt = new ConcurrentHashMap<>();
+
+	@Autowired
+	public SqlStatisticsFilter(RequestSqlCounter counter, EntityManagerFactory entityManagerFactory,
+			MeterRegistry meterRegistry,
+			@Value("${metrics.request-sql.enabled:true}") boolean enabled,
+			@Value("${metrics.request-sql.statement-threshold:25}") int statementThreshold,
+			@Value("${metrics.request-sql.log-interval-ms:60000}") long logIntervalMs) {
+		this(counter, meterRegistry, enabled, statementThreshold, logIntervalMs);
+		entityManagerFactory.unwrap(SessionFactoryImplementor.class).getServiceRegistry()
+				.getService(EventListenerRegistry.class)
+				.appendListeners(EventType.POST_LOAD, counter);
+	}
+
+	SqlStatisticsFilter(RequestSqlCounter counter, MeterRegistry meterRegistry, boolean enabled,
+			int statementThreshold, long logIntervalMs) {
+		this.counter = counter;
+		this.meterRegistry = meterRegistry;
+		this.enabled = enabled;
+		this.statementThreshold = statementThreshold;
+		this.logIntervalMillis = logIntervalMs;
+	}
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		return !enabled;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+
+		RequestSqlCounter.Counts counts = counter.open();
+		try {
+			filterChain.doFilter(request, response);
+		} finally {
+			counter.close();
+			record(request, counts);
+		}
+	}
+
+	private void record(HttpServletRequest request, RequestSqlCounter.Counts counts) {
+		// The route pattern, never the raw path, keeps the number of series bounded
+		Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+		String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+		String method = request.getMethod();
+		DistributionSummary.builder("http.server.requests.sql.statements")
+				.description("JDBC statements prepared per request")
+				.tags("method", method, "uri", uri)
+				.register(meterRegistry)
+				.record(counts.statements());
+		DistributionSummary.builder("http.server.requests.entities.loaded")
+				.description("Entities loaded by Hibernate per request")
+				.tags("method", method, "uri", uri)
+				.register(meterRegistry)
+				.record(counts.entitiesLoaded());
+		if (counts.statements() <= statementThreshold) {
+			return;
+		}
+		meterRegistry.counter("http.server.requests.n_plus_one", "method", method, "uri", uri).increment();
+		String endpoint = method + " " + uri;
+		long now = System.currentTimeMillis();
+		Long last = lastLoggedAt.get(endpoint);
+		if (last != null && now - last < logIntervalMillis) {
+			return;
+		}
+		lastLoggedAt.put(endpoint, now);
+		log.atWarn()
+				.addKeyValue("endpoint", endpoint)
+				.addKeyValue("statements", counts.statements())
+				.addKeyValue("entitiesLoaded", counts.entitiesLoaded())
+				.log("Likely N+1: {} ran {} SQL statements and loaded {} entities", endpoint,
+						counts.statements(), counts.entitiesLoaded());
+	}
+}
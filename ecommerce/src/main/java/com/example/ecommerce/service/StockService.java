@@ -0,0 +1,380 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.entity.Order;
+import com.example.ecommerce.entity.OrderItem;
+import com.example.ecommerce.repository.OrderItemRepository;
+import com.example.ecommerce.repository.ProductRepository;
+import com.example.ecommerce.repository.StockLine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Stock reservations for products with a tracked stock level.
+//
+// Each product has an in-memory StripedStockCounter of units still available
+// (stock on hand minus units held by PENDING/CREATED orders), so checkout
+// never locks the product row. Lifecycle per order:
+//   placed              -> reserve (counter down, undone if the transaction rolls back)
+//   PAID / fulfilled    -> commit  (queued, then "stock = stock - n" in batched writes)
+//   cancelled / failed  -> release (counter up)
+// The counters are rebuilt from the database when first used and reconciled
+// periodically, so a restart or a missed event does not leak units for good.
+//
+// The counters live in one JVM: with several app instances each would sell the
+// full stock. Those deployments set stock.reservations=database, where every
+// reservation is a guarded "stock = stock - n WHERE stock >= n" in the order's
+// transaction, products.stock holds the units still available, and released
+// units go back in the transaction that releases them. No counters are used then.
+//
+// With sharding, products live on the home shard while orders live on the user's shard,
+// so stock is read and written on the home shard in its own transaction: a reservation
+// commits first and is given back if the order's transaction then rolls back, and
+// released units go back once the release has committed.
+@Service
+public class StockService {
+
+    private static final Set<String> RESERVED = Set.of("PENDING", "CREATED");
+    private static final Set<String> SOLD = Set.of("PAID", "PROCESSING", "SHIPPED", "DELIVERED");
+    private static final Set<String> RELEASED = Set.of("CANCELLED", "PAYMENT_FAILED", "EXPIRED");
+
+    // Marker for products whose stock is null (not tracked)
+    private static final StripedStockCounter UNTRACKED = new StripedStockCounter(0, 1);
+
+    private final Map<Integer, StripedStockCounter> counters = new ConcurrentHashMap<>();
+    private final Map<Integer, LongAdder> pendingCommits = new ConcurrentHashMap<>();
+
+    private final ProductRepository productRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardTemplate shardTemplate;
+    private final Counter rejectedCounter;
+
+    @Value("${stock.stripes:0}")
+    private int configuredStripes;
+
+    // memory (single instance only) or database
+    @Value("${stock.reservations:memory}")
+    private String reservations;
+
+    public StockService(ProductRepository productRepository,
+                        OrderItemRepository orderItemRepository,
+                        JdbcTemplate jdbcTemplate,
+                        ShardTemplate shardTemplate,
+                        MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardTemplate = shardTemplate;
+        this.rejectedCounter = Counter.builder("stock.reservations.rejected")
+                .description("Order placements refused for lack of stock")
+                .register(meterRegistry);
+    }
+
+    // Units per product of an order
+    public static Map<Integer, Integer> linesOf(Order order) {
+        Map<Integer, Integer> lines = new LinkedHashMap<>();
+        for (OrderItem item : order.getOrderItems()) {
+            if (item.getProduct() != null) {
+                lines.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+            }
+        }
+        return lines;
+    }
+
+    // Take units for a new order; throws if any product is short.
+    // If the surrounding transaction rolls back the units are given back.
+    public void reserve(Map<Integer, Integer> lines) {
+        if (inDatabase() && shardTemplate.isSharded()) {
+            shardTemplate.onHomeShard(() -> {
+                reserveInDatabase(lines);
+                return null;
+            });
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        if (status != STATUS_COMMITTED) {
+                            shardTemplate.onHomeShard(() -> addToStock(lines));
+                        }
+                    }
+                });
+            }
+            return;
+        }
+        if (inDatabase()) {
+            reserveInDatabase(lines);
+            return;
+        }
+        List<Map.Entry<StripedStockCounter, Integer>> taken = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> line : lines.entrySet()) {
+            StripedStockCounter counter = counterFor(line.getKey());
+            if (counter == UNTRACKED) {
+                continue;
+            }
+            if (!counter.tryReserve(line.getValue())) {
+                taken.forEach(t -> t.getKey().release(t.getValue()));
+                rejectedCounter.increment();
+                throw new RuntimeException("Insufficient stock for product: " + line.getKey());
+            }
+            taken.add(Map.entry(counter, line.getValue()));
+        }
+        if (taken.isEmpty()) {
+            return;
+        }
+        taken.forEach(t -> t.getKey().inFlight.incrementAndGet());
+        Runnable finish = () -> taken.forEach(t -> t.getKey().inFlight.decrementAndGet());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        taken.forEach(t -> t.getKey().release(t.getValue()));
+                    }
+                    finish.run();
+                }
+            });
+        } else {
+            finish.run();
+        }
+    }
+
+    // Apply the stock effect of an order moving between statuses, after commit.
+    // Other admin corrections (e.g. back to PENDING) leave stock alone; reconcile() repairs counters.
+    public void onStatusChange(Map<Integer, Integer> lines, String oldStatus, String newStatus) {
+        if (oldStatus == null || newStatus == null || lines.isEmpty()) {
+            return;
+        }
+        String from = oldStatus.toUpperCase();
+        String to = newStatus.toUpperCase();
+        if (inDatabase()) {
+            // Units left products.stock when reserved; only a release gives them back
+            if ((RESERVED.contains(from) || SOLD.contains(from)) && RELEASED.contains(to)) {
+                returnToStock(lines);
+            }
+            return;
+        }
+        if (RESERVED.contains(from) && SOLD.contains(to)) {
+            afterCommit(() -> lines.forEach(this::queueCommit));
+        } else if (RESERVED.contains(from) && RELEASED.contains(to)) {
+            afterCommit(() -> lines.forEach(this::release));
+        } else if (SOLD.contains(from) && RELEASED.contains(to)) {
+            // Sold units come back: undo the durable decrement and make them available
+            afterCommit(() -> lines.forEach((productId, quantity) -> {
+                queueCommit(productId, -quantity);
+                release(productId, quantity);
+            }));
+        }
+    }
+
+    // Release the units of orders that were just moved to a released status
+    public void releaseOrders(List<Integer> orderIds, String releasedStatus) {
+        if (orderIds.isEmpty() || (counters.isEmpty() && !inDatabase())) {
+            return;
+        }
+        List<StockLine> lines = orderItemRepository.sumQuantityByOrderIdInAndStatus(orderIds, releasedStatus);
+        if (inDatabase()) {
+            Map<Integer, Integer> units = new LinkedHashMap<>();
+            lines.forEach(line -> units.put(line.getProductId(), line.getQuantity().intValue()));
+            returnToStock(units);
+            return;
+        }
+        afterCommit(() -> lines.forEach(line -> release(line.getProductId(), line.getQuantity().intValue())));
+    }
+
+    // Queue the durable decrement for orders that were just moved to a sold status
+    public void commitOrders(List<Integer> orderIds, String soldStatus) {
+        if (orderIds.isEmpty() || inDatabase()) {
+            return;
+        }
+        List<StockLine> lines = orderItemRepository.sumQuantityByOrderIdInAndStatus(orderIds, soldStatus);
+        afterCommit(() -> lines.forEach(line -> queueCommit(line.getProductId(), line.getQuantity().longValue())));
+    }
+
+    // Forget a product's counter, e.g. after an admin sets a new stock level
+    public void invalidate(int productId) {
+        counters.remove(productId);
+        pendingCommits.remove(productId);
+    }
+
+    // Write sold units to products.stock in one JDBC batch
+    @Scheduled(fixedDelayString = "${stock.flush-interval-ms:2000}")
+    public void flush() {
+        List<Object[]> batch = new ArrayList<>();
+        Map<Integer, Long> drained = new HashMap<>();
+        pendingCommits.forEach((productId, adder) -> {
+            long units = adder.sumThenReset();
+            if (units != 0) {
+                drained.put(productId, units);
+                batch.add(new Object[] { units, productId });
+            }
+        });
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate("UPDATE products SET stock = stock - ? WHERE id = ? AND stock IS NOT NULL", batch);
+        } catch (RuntimeException e) {
+            // Put the units back so the next flush retries them
+            drained.forEach(this::queueCommit);
+            throw e;
+        }
+    }
+
+    // Rebuild counters from stock on hand and units held by open orders.
+    // Skips a product while reservations are in flight or its counter moved during the read.
+    @Scheduled(fixedDelayString = "${stock.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        flush();
+        List<Integer> productIds = new ArrayList<>();
+        Map<Integer, Long> before = new HashMap<>();
+        counters.forEach((productId, counter) -> {
+            if (counter != UNTRACKED && counter.inFlight.get() == 0) {
+                productIds.add(productId);
+                before.put(productId, counter.available());
+            }
+        });
+        if (productIds.isEmpty()) {
+            return;
+        }
+        Map<Integer, Long> targets = loadAvailable(productIds);
+        targets.forEach((productId, target) -> {
+            StripedStockCounter counter = counters.get(productId);
+            if (counter == null || counter == UNTRACKED || counter.inFlight.get() != 0) {
+                return;
+            }
+            long seen = before.get(productId);
+            if (counter.available() == seen && seen != target) {
+                counter.reset(target);
+            }
+        });
+    }
+
+    // Guarded decrement per product, in id order so concurrent checkouts lock rows in the
+    // same order. Joins the order's transaction; without one, units taken are put back on failure.
+    private void reserveInDatabase(Map<Integer, Integer> lines) {
+        Map<Integer, Integer> taken = new LinkedHashMap<>();
+        for (Map.Entry<Integer, Integer> line : new TreeMap<>(lines).entrySet()) {
+            int updated = jdbcTemplate.update(
+                    "UPDATE products SET stock = stock - ? WHERE id = ? AND stock >= ?",
+                    line.getValue(), line.getKey(), line.getValue());
+            if (updated > 0) {
+                taken.put(line.getKey(), line.getValue());
+                continue;
+            }
+            List<Integer> stock = jdbcTemplate.queryForList("SELECT stock FROM products WHERE id = ?",
+                    Integer.class, line.getKey());
+            if (stock.isEmpty() || stock.get(0) == null) {
+                continue;
+            }
+            if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+                returnToStock(taken);
+            }
+            rejectedCounter.increment();
+            throw new RuntimeException("Insufficient stock for product: " + line.getKey());
+        }
+    }
+
+    // Joins the caller's transaction, so the units come back with the status change
+    private void returnToStock(Map<Integer, Integer> lines) {
+        if (lines.isEmpty()) {
+            return;
+        }
+        if (shardTemplate.isSharded()) {
+            afterCommit(() -> shardTemplate.onHomeShard(() -> addToStock(lines)));
+            return;
+        }
+        addToStock(lines);
+    }
+
+    private int[] addToStock(Map<Integer, Integer> lines) {
+        List<Object[]> batch = new ArrayList<>();
+        new TreeMap<>(lines).forEach((productId, quantity) -> batch.add(new Object[] { quantity, productId }));
+        return jdbcTemplate.batchUpdate("UPDATE products SET stock = stock + ? WHERE id = ? AND stock IS NOT NULL", batch);
+    }
+
+    private boolean inDatabase() {
+        return "database".equalsIgnoreCase(reservations);
+    }
+
+    private void release(Integer productId, Integer quantity) {
+        StripedStockCounter counter = counters.get(productId);
+        if (counter != null && counter != UNTRACKED) {
+            counter.release(quantity);
+        }
+    }
+
+    private void queueCommit(Integer productId, long quantity) {
+        pendingCommits.computeIfAbsent(productId, id -> new LongAdder()).add(quantity);
+    }
+
+    // Loaded outside the map so no database call runs under a map lock
+    private StripedStockCounter counterFor(int productId) {
+        StripedStockCounter counter = counters.get(productId);
+        if (counter != null) {
+            return counter;
+        }
+        Long available = loadAvailable(List.of(productId)).get(productId);
+        StripedStockCounter loaded = available == null ? UNTRACKED : new StripedStockCounter(available, stripes());
+        StripedStockCounter raced = counters.putIfAbsent(productId, loaded);
+        return raced != null ? raced : loaded;
+    }
+
+    // Available = stock on hand - sold units not flushed yet - units held by open orders.
+    // Products with untracked (null) stock are absent from the result.
+    private Map<Integer, Long> loadAvailable(List<Integer> productIds) {
+        Map<Integer, Long> available = new HashMap<>();
+        for (StockLine line : shardTemplate.onHomeShard(() -> productRepository.findStockByIdIn(productIds))) {
+            if (line.getQuantity() != null) {
+                LongAdder pending = pendingCommits.get(line.getProductId());
+                available.put(line.getProductId(),
+                        line.getQuantity().longValue() - (pending == null ? 0 : pending.sum()));
+            }
+        }
+        if (available.isEmpty()) {
+            return available;
+        }
+        // Open orders live on the shard of their user, so sum the holds of every shard
+        List<Integer> tracked = new ArrayList<>(available.keySet());
+        for (List<StockLine> shardHolds : shardTemplate.scatterGather(() ->
+                orderItemRepository.sumQuantityByStatusInAndProductIdIn(List.copyOf(RESERVED), tracked))) {
+            for (StockLine held : shardHolds) {
+                available.computeIfPresent(held.getProductId(), (id, units) -> units - held.getQuantity().longValue());
+            }
+        }
+        return available;
+    }
+
+    private int stripes() {
+        return configuredStripes > 0 ? configuredStripes : Math.min(16, Runtime.getRuntime().availableProcessors());
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.ecommerce.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Available units of one product split over several padded cells, so
+// concurrent checkouts of a hot product CAS on different cache lines.
+// A reservation takes units from a single cell; only when no cell holds
+// enough does it fall back to draining all cells under a lock.
+final class StripedStockCounter {
+
+    // 8 longs = 64 bytes, one cache line per cell
+    private static final int PAD = 8;
+
+    private final AtomicLongArray cells;
+    private final int stripes;
+    private final ReentrantLock drainLock = new ReentrantLock();
+
+    // Reservations whose order transaction has not finished yet
+    final AtomicInteger inFlight = new AtomicInteger();
+
+    StripedStockCounter(long available, int stripes) {
+        this.stripes = Math.max(1, stripes);
+        this.cells = new AtomicLongArray(this.stripes * PAD);
+        spread(Math.max(0, available));
+    }
+
+    boolean tryReserve(int quantity) {
+        int start = ThreadLocalRandom.current().nextInt(stripes);
+        for (int i = 0; i < stripes; i++) {
+            int index = ((start + i) % stripes) * PAD;
+            long current;
+            while ((current = cells.get(index)) >= quantity) {
+                if (cells.compareAndSet(index, current, current - quantity)) {
+                    return true;
+                }
+            }
+        }
+        return reserveSlow(quantity);
+    }
+
+    void release(int quantity) {
+        cells.addAndGet(ThreadLocalRandom.current().nextInt(stripes) * PAD, quantity);
+    }
+
+    long available() {
+        long sum = 0;
+        for (int i = 0; i < stripes; i++) {
+            sum += cells.get(i * PAD);
+        }
+        return sum;
+    }
+
+    // Replace the available amount with a reconciled value
+    void reset(long available) {
+        drainLock.lock();
+        try {
+            drain();
+            spread(Math.max(0, available));
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    // Units are scattered over cells: collect them and reserve from the total
+    private boolean reserveSlow(int quantity) {
+        drainLock.lock();
+        try {
+            long total = drain();
+            boolean reserved = total >= quantity;
+            spread(reserved ? total - quantity : total);
+            return reserved;
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    private long drain() {
+        long total = 0;
+        for (int i = 0; i < stripes; i++) {
+            total += cells.getAndSet(i * PAD, 0);
+        }
+        return total;
+    }
+
+    private void spread(long units) {
+        long share = units / stripes;
+        long remainder = units % stripes;
+        for (int i = 0; i < stripes; i++) {
+            cells.addAndGet(i * PAD, share + (i < remainder ? 1 : 0));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.ecommerce.service;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Token buckets keyed by string, one AtomicLong each and no locks. A bucket is
+// stored as the time at which it will be full again (GCRA): taking a token
+// pushes that time one refill interval forward, and the request is refused
+// when it would end up more than capacity intervals ahead of now.
+// A bucket whose full-again time has passed carries no state, so it can be
+// dropped at any time; that is how the map stays bounded.
+final class TokenBuckets {
+
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final int maxBuckets;
+
+    TokenBuckets(int maxBuckets) {
+        this.maxBuckets = Math.max(1, maxBuckets);
+    }
+
+    // 0 if a token was taken, otherwise the nanoseconds until one is available
+    long tryAcquire(String key, int capacity, double refillPerSecond, long nowNanos) {
+        long interval = (long) (1_000_000_000L / refillPerSecond);
+        long burst = interval * Math.max(1, capacity);
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxBuckets) {
+                evictIdle(nowNanos);
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(nowNanos));
+        }
+        while (true) {
+            long fullAt = bucket.get();
+            long next = Math.max(fullAt, nowNanos) + interval;
+            if (next - nowNanos > burst) {
+                return next - nowNanos - burst;
+            }
+            if (bucket.compareAndSet(fullAt, next)) {
+                return 0;
+            }
+        }
+    }
+
+    // Drop full buckets; if that is not enough (many distinct keys at once), drop
+    // arbitrary ones: those keys just start again with a full bucket
+    void evictIdle(long nowNanos) {
+        buckets.values().removeIf(bucket -> bucket.get() - nowNanos <= 0);
+        Iterator<AtomicLong> it = buckets.values().iterator();
+        while (buckets.size() >= maxBuckets * 9 / 10 && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    int size() {
+        return buckets.size();
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.entity.RevokedToken;
+import com.example.ecommerce.repository.RevokedTokenRepository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Revoked access tokens (by jti) that JwtFilter must refuse until they expire.
+// The per-request check is in memory: a Bloom filter answers "not revoked" for
+// almost every token with a few bit reads, and the exact jti map settles the
+// rare filter hits so a false positive never rejects a valid token.
+// revoked_tokens is the shared source: each node loads it at startup and polls
+// for other nodes' revocations, so no request ever waits on the database.
+@Service
+public class TokenDenyList {
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    // jti -> expiry (epoch millis)
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    private final Object filterLock = new Object();
+    // A lock rather than synchronized: sync() blocks on the database, which would pin a virtual thread
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private volatile BloomFilter filter;
+    private long lastSyncedId;
+
+    @Value("${jwt.deny-list.expected-entries:100000}")
+    private int expectedEntries = 100000;
+
+    @Value("${jwt.deny-list.false-positive-rate:0.01}")
+    private double falsePositiveRate = 0.01;
+
+    public TokenDenyList(RevokedTokenRepository revokedTokenRepository, MeterRegistry meterRegistry) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        Gauge.builder("jwt.deny-list.size", revoked, Map::size)
+                .description("Revoked access tokens that have not expired yet")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void load() {
+        filter = new BloomFilter(expectedEntries, falsePositiveRate);
+        sync();
+    }
+
+    public boolean isDenied(String jti) {
+        return jti != null && filter.mightContain(jti) && revoked.containsKey(jti);
+    }
+
+    // Refuse the token with this jti on every node until it expires
+    public void deny(String jti, Date expiresAt) {
+        if (jti == null || expiresAt == null || expiresAt.getTime() <= System.currentTimeMillis()) {
+            return;
+        }
+        add(jti, expiresAt.getTime());
+        try {
+            revokedTokenRepository.save(new RevokedToken(jti, expiresAt));
+        } catch (DataIntegrityViolationException e) {
+            // Already revoked
+        }
+    }
+
+    // Pick up revocations made on other nodes
+    @Scheduled(fixedDelayString = "${jwt.deny-list.sync-interval-ms:5000}")
+    public void sync() {
+        syncLock.lock();
+        try {
+            List<RevokedToken> rows = revokedTokenRepository.findByIdGreaterThanAndExpiresAtAfterOrderByIdAsc(
+                    lastSyncedId, new Date());
+            for (RevokedToken row : rows) {
+                add(row.getJti(), row.getExpiresAt().getTime());
+                lastSyncedId = row.getId();
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    // A Bloom filter cannot forget, so expired tokens are dropped by building a new one
+    @Scheduled(fixedDelayString = "${jwt.deny-list.rebuild-interval-ms:300000}")
+    public void rebuild() {
+        long now = System.currentTimeMillis();
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+        synchronized (filterLock) {
+            BloomFilter fresh = new BloomFilter(Math.max(expectedEntries, revoked.size() * 2), falsePositiveRate);
+            revoked.keySet().forEach(fresh::put);
+            filter = fresh;
+        }
+        revokedTokenRepository.deleteExpired(new Date(now));
+    }
+
+    private void add(String jti, long expiresAt) {
+        synchronized (filterLock) {
+            revoked.put(jti, expiresAt);
+            filter.put(jti);
+        }
+    }
+}
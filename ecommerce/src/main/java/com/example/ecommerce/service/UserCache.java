@@ -0,0 +1,150 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.entity.User;
+import com.example.ecommerce.entity.UserClaimsChange;
+import com.example.ecommerce.repository.UserClaimsChangeRepository;
+import com.example.ecommerce.repository.UserRepository;
+
+import jakarta.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Short-lived cache of User rows for code that needs more than the token claims.
+// evict() is called when a user's role or enabled flag changes; it also marks the
+// user's older tokens as stale so claims-based authentication stops honouring them.
+// The marker is written to user_claims_changes in the caller's transaction and every
+// node polls that table, like TokenDenyList does, so isStale() never hits the database
+// and other nodes drop the cached row and the old tokens within one sync interval.
+@Service
+public class UserCache {
+
+    // Access tokens live far less than a day, older markers can go
+    private static final long MARKER_RETENTION_MILLIS = 24 * 60 * 60 * 1000L;
+
+    private final UserRepository userRepository;
+    private final UserClaimsChangeRepository claimsChangeRepository;
+    private final Map<Long, Entry> users = new ConcurrentHashMap<>();
+    private final Map<Long, Long> changedAt = new ConcurrentHashMap<>();
+    // A lock rather than synchronized: sync() blocks on the database, which would pin a virtual thread
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private long lastSyncedId;
+
+    @Value("${user.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${user.cache.max-entries:10000}")
+    private int maxEntries;
+
+    public UserCache(UserRepository userRepository, UserClaimsChangeRepository claimsChangeRepository) {
+        this.userRepository = userRepository;
+        this.claimsChangeRepository = claimsChangeRepository;
+    }
+
+    @PostConstruct
+    void load() {
+        sync();
+    }
+
+    // Detached entity: lazy associations (cart) are not available
+    public Optional<User> get(Long userId) {
+        long now = System.currentTimeMillis();
+        Entry entry = users.get(userId);
+        if (entry != null && entry.expiresAt > now) {
+            return Optional.of(entry.user);
+        }
+        Optional<User> user = userRepository.findById(userId);
+        if (user.isPresent()) {
+            ensureCapacity();
+            users.put(userId, new Entry(user.get(), now + ttlSeconds * 1000));
+        } else {
+            users.remove(userId);
+        }
+        return user;
+    }
+
+    // Joins the caller's transaction: the marker is saved, and applied on this node, only
+    // if the change commits, so a rolled-back change does not log the user out
+    public void evict(Long userId) {
+        // Tokens carry iat in whole seconds
+        long changed = System.currentTimeMillis() / 1000 * 1000;
+        users.remove(userId);
+        claimsChangeRepository.save(new UserClaimsChange(userId, new Date(changed)));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    markChanged(userId, changed);
+                }
+            });
+        } else {
+            markChanged(userId, changed);
+        }
+    }
+
+    // True when the token was issued before the user's last role/enabled change
+    public boolean isStale(Long userId, Date issuedAt) {
+        Long changed = changedAt.get(userId);
+        return changed != null && (issuedAt == null || issuedAt.getTime() < changed);
+    }
+
+    // Pick up changes made on other nodes
+    @Scheduled(fixedDelayString = "${user.cache.sync-interval-ms:5000}")
+    public void sync() {
+        syncLock.lock();
+        try {
+            List<UserClaimsChange> rows = claimsChangeRepository.findByIdGreaterThanAndChangedAtAfterOrderByIdAsc(
+                    lastSyncedId, new Date(System.currentTimeMillis() - MARKER_RETENTION_MILLIS));
+            for (UserClaimsChange row : rows) {
+                markChanged(row.getUserId(), row.getChangedAt().getTime());
+                lastSyncedId = row.getId();
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${user.cache.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        users.values().removeIf(entry -> entry.expiresAt <= now);
+        changedAt.values().removeIf(changed -> changed < now - MARKER_RETENTION_MILLIS);
+    }
+
+    // Shared markers outlive every token they could apply to, then go
+    @Scheduled(fixedDelayString = "${user.cache.marker-purge-interval-ms:3600000}")
+    public void purgeMarkers() {
+        claimsChangeRepository.deleteChangedBefore(new Date(System.currentTimeMillis() - MARKER_RETENTION_MILLIS));
+    }
+
+    private void markChanged(Long userId, long changed) {
+        users.remove(userId);
+        changedAt.merge(userId, changed, Math::max);
+    }
+
+    private void ensureCapacity() {
+        if (users.size() < maxEntries) {
+            return;
+        }
+        purgeExpired();
+        Iterator<Entry> it = users.values().iterator();
+        while (users.size() >= maxEntries * 9 / 10 && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    private record Entry(User user, long expiresAt) {
+    }
+}
@@ -3,8 +3,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import com.example.ecommerce.entity.Role;
 import com.example.ecommerce.entity.User;
 import com.example.ecommerce.repository.UserRepository;
 
@@ -20,7 +22,11 @@ public class UserService {
 	@Autowired
 	private JwtService jwtService;
 	
-	BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(12);
+	@Autowired
+	private UserCache userCache;
+	
+	@Autowired
+	private PasswordEncoder encoder;
 	
 	public User register(User user) {
 		user.setPassword(encoder.encode(user.getPassword()));
@@ -48,8 +54,28 @@ public class UserService {
 		return userRepo.findByUsername(username);
 	}
 	
-	// Add this method if you need it for other features
+	// Add this method if you need it for other features (served from the user cache)
 	public User findById(Long id) {
-		return userRepo.findById(id).orElse(null);
+		return userCache.get(id).orElse(null);
+	}
+	
+	@Transactional
+	public void updateRole(Long id, String role) {
+		User user = userRepo.findById(id).orElseThrow(() -> new RuntimeException("User not found"));
+		try {
+			user.setRole(Role.valueOf(role.toUpperCase()));
+		} catch (IllegalArgumentException | NullPointerException e) {
+			throw new RuntimeException("Invalid role: " + role);
+		}
+		userRepo.save(user);
+		userCache.evict(id);
+	}
+	
+	@Transactional
+	public void setEnabled(Long id, boolean enabled) {
+		User user = userRepo.findById(id).orElseThrow(() -> new RuntimeException("User not found"));
+		user.setEnabled(enabled);
+		userRepo.save(user);
+		userCache.evict(id);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,106 @@
+package com.example.ecommerce.service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+
+// Reports virtual threads pinned to their carrier thread, e.g. blocking on I/O inside a
+// synchronized block of a driver. A pinned virtual thread holds one of the few carrier
+// threads, so enough of them stall every other virtual thread. Listens to the JFR
+// jdk.VirtualThreadPinned event in-process: every pin longer than the threshold is
+// recorded on jvm.threads.virtual.pinned, and the stack is logged at most once per
+// log interval for each call site.
+@Service
+@ConditionalOnProperty(name = "threads.pinning-monitor.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 12;
+
+    private final Duration threshold;
+    private final long logIntervalMillis;
+    private final Timer pinnedTimer;
+    // call site -> when its stack was last logged (events arrive on the stream's one thread)
+    private final Map<String, Long> lastLoggedAt = new HashMap<>();
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry,
+                                       @Value("${threads.pinning-monitor.threshold-ms:20}") long thresholdMs,
+                                       @Value("${threads.pinning-monitor.log-interval-ms:60000}") long logIntervalMs) {
+        this.threshold = Duration.ofMillis(thresholdMs);
+        this.logIntervalMillis = logIntervalMs;
+        this.pinnedTimer = Timer.builder("jvm.threads.virtual.pinned")
+                .description("Virtual threads blocked while pinned to their carrier thread")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    void onPinned(RecordedEvent event) {
+        pinnedTimer.record(event.getDuration());
+        List<RecordedFrame> frames = event.getStackTrace() == null ? List.of() : event.getStackTrace().getFrames();
+        String site = callSite(frames);
+        long now = System.currentTimeMillis();
+        Long last = lastLoggedAt.get(site);
+        if (last != null && now - last < logIntervalMillis) {
+            return;
+        }
+        lastLoggedAt.put(site, now);
+        log.atWarn()
+                .addKeyValue("site", site)
+                .addKeyValue("pinnedMs", event.getDuration().toMillis())
+                .log("Virtual thread pinned to its carrier for {} ms at\n\t{}", event.getDuration().toMillis(),
+                        frames.stream().limit(LOGGED_FRAMES).map(VirtualThreadPinningMonitor::format)
+                                .collect(Collectors.joining("\n\t")));
+    }
+
+    // First frame outside the JDK: the code that held the monitor (or called into native code)
+    static String callSite(List<RecordedFrame> frames) {
+        for (RecordedFrame frame : frames) {
+            String type = frame.getMethod().getType().getName();
+            if (!type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+                return format(frame);
+            }
+        }
+        return frames.isEmpty() ? "unknown" : format(frames.get(0));
+    }
+
+    private static String format(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+
+    long pinnedCount() {
+        return pinnedTimer.count();
+    }
+}
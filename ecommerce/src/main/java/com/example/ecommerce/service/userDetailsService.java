@@ -1,7 +1,10 @@
 package com.example.ecommerce.service;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -10,7 +13,9 @@ import com.example.ecommerce.entity.User;
 import com.example.ecommerce.repository.UserRepository;
 
 @Service
-public class userDetailsService implements UserDetailsService {
+public class userDetailsService implements UserDetailsService, UserDetailsPasswordService {
+	
+	private static final Logger log = LoggerFactory.getLogger(userDetailsService.class);
 	
 	@Autowired
 	private UserRepository userRepo;
@@ -18,10 +23,18 @@ public class userDetailsService implements UserDetailsService {
 	public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
 		User user = userRepo.findByUsername(username);
 		if (user == null) {
-			System.out.println("user not found!!");
+			log.debug("Login for unknown user");
 			throw new UsernameNotFoundException("user not found");
 		}
 		return new userPrincipal(user);
 	}
+	
+	// Called after a successful login when the stored hash is below the configured strength
+	@Override
+	public UserDetails updatePassword(UserDetails user, String newPassword) {
+		User dbUser = userRepo.findByUsername(user.getUsername());
+		dbUser.setPassword(newPassword);
+		return new userPrincipal(userRepo.save(dbUser));
+	}
 }
 
@@ -17,6 +17,10 @@ public class userPrincipal implements UserDetails {
 		this.user =user;
 	}
 
+	public User getUser() {
+		return user;
+	}
+
 	@Override
 	public Collection<? extends GrantedAuthority> getAuthorities() {
 		// TODO Auto-generated method stub
@@ -55,8 +59,7 @@ public class userPrincipal implements UserDetails {
 
 	@Override
 	public boolean isEnabled() {
-		// TODO Auto-generated method stub
-		return true;
+		return user.isEnabled();
 	}
 
 	@Override
@@ -0,0 +1,80 @@
+package com.example.ecommerce.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Separate in-memory databases stand in for the primary and the replicas;
+// each one only knows its own name, so a query shows where a transaction was routed.
+class ReadWriteRoutingDataSourceTests {
+
+	private final AtomicReference<String> caller = new AtomicReference<>();
+
+	@Test
+	void readOnlyTransactionsGoToReplicasRoundRobin() {
+		Routing routing = routing(database("primary"), database("replica-a"), database("replica-b"));
+
+		assertEquals("primary", routing.read(false));
+		assertEquals(List.of("replica-a", "replica-b", "replica-a"),
+				List.of(routing.read(true), routing.read(true), routing.read(true)));
+	}
+
+	@Test
+	void callerReadsFromPrimaryRightAfterOwnWrite() {
+		Routing routing = routing(database("primary"), database("replica-a"));
+
+		caller.set("alice");
+		assertEquals("primary", routing.read(false)); // alice writes
+		assertEquals("primary", routing.read(true));
+
+		caller.set("bob");
+		assertEquals("replica-a", routing.read(true));
+	}
+
+	@Test
+	void unhealthyReplicaIsSkippedUntilItRecovers() {
+		DriverManagerDataSource down = new DriverManagerDataSource("jdbc:h2:mem:missing;IFEXISTS=TRUE", "sa", "");
+		Routing routing = routing(database("primary"), down, database("replica-b"));
+
+		routing.dataSource.checkReplicas();
+
+		assertEquals(1, routing.dataSource.healthyReplicas());
+		assertEquals(List.of("replica-b", "replica-b"), List.of(routing.read(true), routing.read(true)));
+	}
+
+	private Routing routing(DataSource primary, DataSource... replicas) {
+		ReadWriteRoutingDataSource dataSource =
+				new ReadWriteRoutingDataSource(primary, List.of(replicas), caller::get, 60_000);
+		LazyConnectionDataSourceProxy lazy = new LazyConnectionDataSourceProxy(dataSource);
+		return new Routing(dataSource, new DataSourceTransactionManager(lazy), new JdbcTemplate(lazy));
+	}
+
+	private static DataSource database(String name) {
+		DriverManagerDataSource dataSource =
+				new DriverManagerDataSource("jdbc:h2:mem:" + name + "-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1", "sa", "");
+		JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+		jdbc.execute("CREATE TABLE node (name VARCHAR(20))");
+		jdbc.update("INSERT INTO node VALUES (?)", name);
+		return dataSource;
+	}
+
+	private record Routing(ReadWriteRoutingDataSource dataSource, DataSourceTransactionManager txManager,
+			JdbcTemplate jdbc) {
+
+		String read(boolean readOnly) {
+			TransactionTemplate tx = new TransactionTemplate(txManager);
+			tx.setReadOnly(readOnly);
+			return tx.execute(status -> jdbc.queryForObject("SELECT name FROM node", String.class));
+		}
+	}
+}
@@ -0,0 +1,47 @@
+package com.example.ecommerce.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+
+class SamplingTurboFilterTests {
+
+	private final LoggerContext context = new LoggerContext();
+
+	@Test
+	void samplesInfoOfConfiguredCategoriesOnly() {
+		SamplingTurboFilter filter = new SamplingTurboFilter();
+		filter.setRates("org.hibernate.SQL=0, com.example.noisy=0.5");
+
+		assertEquals(FilterReply.DENY, decide(filter, "org.hibernate.SQL", Level.DEBUG));
+		assertEquals(FilterReply.NEUTRAL, decide(filter, "org.hibernate.SQL", Level.WARN));
+		assertEquals(FilterReply.NEUTRAL, decide(filter, "org.hibernate.SQLQuery", Level.DEBUG));
+		assertEquals(FilterReply.NEUTRAL, decide(filter, "com.example.other", Level.INFO));
+
+		int kept = 0;
+		for (int i = 0; i < 10_000; i++) {
+			if (decide(filter, "com.example.noisy.Service", Level.INFO) == FilterReply.NEUTRAL) {
+				kept++;
+			}
+		}
+		assertTrue(kept > 4_000 && kept < 6_000, "kept " + kept);
+	}
+
+	@Test
+	void longestPrefixWins() {
+		SamplingTurboFilter filter = new SamplingTurboFilter();
+		filter.setRates("com.example=0,com.example.keep=1");
+
+		assertEquals(FilterReply.DENY, decide(filter, "com.example.Other", Level.INFO));
+		assertEquals(FilterReply.NEUTRAL, decide(filter, "com.example.keep.Service", Level.INFO));
+	}
+
+	private FilterReply decide(SamplingTurboFilter filter, String logger, Level level) {
+		return filter.decide(null, context.getLogger(logger), level, "message", null, null);
+	}
+}
@@ -0,0 +1,33 @@
+package com.example.ecommerce.config;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+// Public port 8081, actuator on 9090
+class SecurityConfigTests {
+
+	@Test
+	void prometheusIsOpenOnlyOnTheManagementPort() {
+		RequestMatcher scrape = SecurityConfig.prometheusScrape(8081, 9090);
+
+		assertTrue(scrape.matches(request(9090, "/actuator/prometheus")));
+		assertFalse(scrape.matches(request(8081, "/actuator/prometheus")));
+		assertFalse(scrape.matches(request(9090, "/actuator/metrics")));
+	}
+
+	@Test
+	void nothingIsOpenWhenActuatorSharesThePublicPort() {
+		assertFalse(SecurityConfig.prometheusScrape(8081, -1).matches(request(8081, "/actuator/prometheus")));
+		assertFalse(SecurityConfig.prometheusScrape(8081, 8081).matches(request(8081, "/actuator/prometheus")));
+	}
+
+	private static MockHttpServletRequest request(int localPort, String uri) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+		request.setLocalPort(localPort);
+		return request;
+	}
+}
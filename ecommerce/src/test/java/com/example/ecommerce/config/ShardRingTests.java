@@ -0,0 +1,46 @@
+package com.example.ecommerce.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class ShardRingTests {
+
+	private static final int USERS = 30_000;
+
+	@Test
+	void spreadsUsersEvenlyAndStably() {
+		ShardRing ring = new ShardRing(List.of("shard-0", "shard-1", "shard-2"), 160);
+		Map<String, Integer> perShard = new HashMap<>();
+		for (long userId = 1; userId <= USERS; userId++) {
+			perShard.merge(ring.shardFor(userId), 1, Integer::sum);
+		}
+		assertEquals(3, perShard.size());
+		perShard.values().forEach(users -> assertTrue(Math.abs(users - USERS / 3) < USERS / 3 * 0.15, "users " + users));
+
+		ShardRing same = new ShardRing(List.of("shard-0", "shard-1", "shard-2"), 160);
+		assertEquals(ring.shardFor(42), same.shardFor(42));
+	}
+
+	@Test
+	void addingAShardOnlyMovesUsersOntoIt() {
+		ShardRing three = new ShardRing(List.of("shard-0", "shard-1", "shard-2"), 160);
+		ShardRing four = new ShardRing(List.of("shard-0", "shard-1", "shard-2", "shard-3"), 160);
+		int moved = 0;
+		for (long userId = 1; userId <= USERS; userId++) {
+			String before = three.shardFor(userId);
+			String after = four.shardFor(userId);
+			if (!before.equals(after)) {
+				assertEquals("shard-3", after);
+				moved++;
+			}
+		}
+		// About a quarter, against three quarters with hash % shards
+		assertTrue(moved > USERS / 4 * 0.8 && moved < USERS / 4 * 1.2, "moved " + moved);
+	}
+}
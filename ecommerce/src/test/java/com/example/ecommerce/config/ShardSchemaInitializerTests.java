@@ -0,0 +1,61 @@
+package com.example.ecommerce.config;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+// Users' rows are placed with a two-shard ring, then checked against other rings
+class ShardSchemaInitializerTests {
+
+	private final Map<String, DataSource> databases = new LinkedHashMap<>();
+
+	@Test
+	void acceptsRowsOnTheirUsersShard() {
+		ShardRing ring = new ShardRing(List.of("shard-0", "shard-1"), 64);
+		place(ring, "shard-0", "shard-1", "shard-2");
+
+		assertDoesNotThrow(() -> ShardSchemaInitializer.verifyPlacement(databases, ring));
+	}
+
+	@Test
+	void refusesARingThatMovesUsers() {
+		place(new ShardRing(List.of("shard-0", "shard-1"), 64), "shard-0", "shard-1", "shard-2");
+		ShardRing grown = new ShardRing(List.of("shard-0", "shard-1", "shard-2"), 64);
+
+		IllegalStateException refused = assertThrows(IllegalStateException.class,
+				() -> ShardSchemaInitializer.verifyPlacement(databases, grown));
+		assertTrue(refused.getMessage().contains("-> shard-2"), refused.getMessage());
+	}
+
+	// One order and one cart per user on the shard the ring picks
+	private void place(ShardRing ring, String... names) {
+		for (String name : names) {
+			databases.put(name, database(name));
+		}
+		for (long userId = 1; userId <= 50; userId++) {
+			JdbcTemplate owner = new JdbcTemplate(databases.get(ring.shardFor(userId)));
+			owner.update("INSERT INTO orders (user_id) VALUES (?)", userId);
+			owner.update("INSERT INTO cart (user_id) VALUES (?)", userId);
+		}
+	}
+
+	private static DataSource database(String name) {
+		DriverManagerDataSource dataSource =
+				new DriverManagerDataSource("jdbc:h2:mem:" + name + "-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1", "sa", "");
+		JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+		for (String table : List.of("orders", "cart", "archived_orders", "order_views")) {
+			jdbc.execute("CREATE TABLE " + table + " (id INT AUTO_INCREMENT PRIMARY KEY, user_id BIGINT)");
+		}
+		return dataSource;
+	}
+}
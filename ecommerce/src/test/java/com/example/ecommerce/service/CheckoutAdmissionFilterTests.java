@@ -0,0 +1,113 @@
+package com.example.ecommerce.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.ecommerce.service.CheckoutAdmissionService.Admission;
+import com.example.ecommerce.service.CheckoutAdmissionService.Outcome;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CheckoutAdmissionFilterTests {
+
+	private final CheckoutAdmissionService admissionService = admissionService();
+	private final CheckoutAdmissionFilter filter = new CheckoutAdmissionFilter(admissionService, new ObjectMapper());
+
+	@Test
+	void queuedRequestGets429WithRetryAfterAndTicket() throws Exception {
+		admissionService.enter("someone-else", null);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		boolean[] called = { false };
+
+		filter.doFilter(checkout(), response, (req, res) -> called[0] = true);
+
+		assertEquals(429, response.getStatus());
+		assertFalse(called[0]);
+		assertTrue(Long.parseLong(response.getHeader("Retry-After")) >= 1);
+		assertEquals("1", response.getHeader(CheckoutAdmissionFilter.TICKET_HEADER));
+		assertTrue(response.getContentAsString().contains("\"position\":1"));
+	}
+
+	@Test
+	void fullQueueGets429WithoutTicket() throws Exception {
+		ReflectionTestUtils.setField(admissionService, "maxQueue", 0);
+		admissionService.enter("someone-else", null);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		filter.doFilter(checkout(), response, (req, res) -> { });
+
+		assertEquals(429, response.getStatus());
+		assertNotNull(response.getHeader("Retry-After"));
+		assertNull(response.getHeader(CheckoutAdmissionFilter.TICKET_HEADER));
+	}
+
+	@Test
+	void releasesTheSlotWhenTheRequestReturns() throws Exception {
+		filter.doFilter(checkout(), new MockHttpServletResponse(), (req, res) -> { });
+
+		assertEquals(Outcome.ADMITTED, admissionService.enter("next", null).outcome());
+	}
+
+	@Test
+	void releasesTheSlotWhenTheChainFails() {
+		FilterChain failing = (req, res) -> {
+			throw new ServletException("boom");
+		};
+
+		assertThrows(ServletException.class, () -> filter.doFilter(checkout(), new MockHttpServletResponse(), failing));
+
+		assertEquals(Outcome.ADMITTED, admissionService.enter("next", null).outcome());
+	}
+
+	@Test
+	void holdsTheSlotUntilTheAsyncResponseCompletes() throws Exception {
+		MockHttpServletRequest request = checkout();
+		request.setAsyncSupported(true);
+
+		filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+
+		Admission waiting = admissionService.enter("next", null);
+		assertEquals(Outcome.QUEUED, waiting.outcome());
+
+		((MockAsyncContext) request.getAsyncContext()).complete();
+
+		assertEquals(Outcome.ADMITTED, admissionService.enter("next", waiting.status().getTicket()).outcome());
+	}
+
+	@Test
+	void otherRequestsPassThrough() throws Exception {
+		admissionService.enter("someone-else", null);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		boolean[] called = { false };
+
+		filter.doFilter(new MockHttpServletRequest("GET", "/api/orders/cart/1"), response, (req, res) -> called[0] = true);
+
+		assertTrue(called[0]);
+		assertEquals(200, response.getStatus());
+	}
+
+	private static MockHttpServletRequest checkout() {
+		return new MockHttpServletRequest("POST", "/api/orders/cart/1");
+	}
+
+	private static CheckoutAdmissionService admissionService() {
+		CheckoutAdmissionService service = new CheckoutAdmissionService(1, new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(service, "maxQueue", 10);
+		ReflectionTestUtils.setField(service, "ticketTtlSeconds", 120L);
+		return service;
+	}
+}
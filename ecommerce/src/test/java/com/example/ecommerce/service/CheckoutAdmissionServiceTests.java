@@ -0,0 +1,90 @@
+package com.example.ecommerce.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.ecommerce.service.CheckoutAdmissionService.Admission;
+import com.example.ecommerce.service.CheckoutAdmissionService.Outcome;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CheckoutAdmissionServiceTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Test
+	void admitsQueuedCallersInTicketOrder() {
+		CheckoutAdmissionService service = service(1, 10);
+		assertEquals(Outcome.ADMITTED, service.enter("alice", null).outcome());
+		Admission bob = service.enter("bob", null);
+		Admission carol = service.enter("carol", null);
+		assertEquals(Outcome.QUEUED, bob.outcome());
+		assertEquals(1, bob.status().getPosition());
+		assertEquals(2, carol.status().getPosition());
+
+		service.exit(100);
+
+		// The free slot belongs to bob: carol and newcomers keep waiting
+		assertEquals(Outcome.QUEUED, service.enter("carol", carol.status().getTicket()).outcome());
+		assertEquals(Outcome.QUEUED, service.enter("dave", null).outcome());
+		assertTrue(service.status("bob", bob.status().getTicket()).isAdmitted());
+		assertEquals(Outcome.ADMITTED, service.enter("bob", bob.status().getTicket()).outcome());
+
+		service.exit(100);
+		assertEquals(Outcome.ADMITTED, service.enter("carol", carol.status().getTicket()).outcome());
+	}
+
+	@Test
+	void ticketsOnlyCountForTheirOwner() {
+		CheckoutAdmissionService service = service(1, 10);
+		service.enter("alice", null);
+		Admission bob = service.enter("bob", null);
+		service.exit(100);
+
+		Admission mallory = service.enter("mallory", bob.status().getTicket());
+
+		assertEquals(Outcome.QUEUED, mallory.outcome());
+		assertEquals(bob.status().getTicket() + 1, mallory.status().getTicket());
+		assertNull(service.status("mallory", bob.status().getTicket()));
+	}
+
+	@Test
+	void shedsRequestsWhenTheQueueIsFull() {
+		CheckoutAdmissionService service = service(1, 1);
+		service.enter("alice", null);
+		service.enter("bob", null);
+
+		Admission carol = service.enter("carol", null);
+
+		assertEquals(Outcome.REJECTED, carol.outcome());
+		assertNull(carol.status());
+		assertTrue(carol.retryAfterSeconds() >= 1);
+		assertEquals(1, meterRegistry.get("checkout.admission.shed").counter().count());
+	}
+
+	@Test
+	void expiredTicketsGiveUpTheirTurn() throws Exception {
+		CheckoutAdmissionService service = service(1, 10);
+		ReflectionTestUtils.setField(service, "ticketTtlSeconds", 0L);
+		service.enter("alice", null);
+		Admission bob = service.enter("bob", null);
+		service.exit(100);
+		Thread.sleep(5);
+
+		service.purgeExpiredTickets();
+
+		assertNull(service.status("bob", bob.status().getTicket()));
+		assertEquals(Outcome.ADMITTED, service.enter("carol", null).outcome());
+	}
+
+	private CheckoutAdmissionService service(int maxConcurrent, int maxQueue) {
+		CheckoutAdmissionService service = new CheckoutAdmissionService(maxConcurrent, meterRegistry);
+		ReflectionTestUtils.setField(service, "maxQueue", maxQueue);
+		ReflectionTestUtils.setField(service, "ticketTtlSeconds", 120L);
+		return service;
+	}
+}
@@ -0,0 +1,187 @@
+package com.example.ecommerce.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+class IdempotencyServiceTests {
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	private final AtomicInteger runs = new AtomicInteger();
+
+	@AfterEach
+	void shutdown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void concurrentDuplicatesRunOnceAndShareTheResult() throws Exception {
+		IdempotencyService service = service(60);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		Future<String> first = executor.submit(() -> service.execute("key-1", "cart:1", () -> {
+			started.countDown();
+			await(release);
+			return "order-" + runs.incrementAndGet();
+		}));
+		started.await(5, TimeUnit.SECONDS);
+		Future<String> second = executor.submit(() -> service.execute("key-1", "cart:1", () -> "order-" + runs.incrementAndGet()));
+		Thread.sleep(50);
+		release.countDown();
+
+		assertEquals("order-1", first.get(5, TimeUnit.SECONDS));
+		assertEquals("order-1", second.get(5, TimeUnit.SECONDS));
+		assertEquals(1, runs.get());
+	}
+
+	@Test
+	void failedFirstAttemptCanBeRetriedWithTheSameKey() {
+		IdempotencyService service = service(60);
+
+		assertThrows(IllegalStateException.class, () -> service.execute("key-1", "cart:1", () -> {
+			runs.incrementAndGet();
+			throw new IllegalStateException("gateway down");
+		}));
+		String retried = service.execute("key-1", "cart:1", () -> "order-" + runs.incrementAndGet());
+
+		assertEquals("order-2", retried);
+		assertEquals("order-2", service.execute("key-1", "cart:1", () -> "order-" + runs.incrementAndGet()));
+	}
+
+	@Test
+	void failedAsyncResultCanBeRetriedWithTheSameKey() {
+		IdempotencyService service = service(60);
+		CompletableFuture<String> failed = new CompletableFuture<>();
+
+		service.execute("key-1", "cart:1", () -> failed);
+		failed.completeExceptionally(new IllegalStateException("gateway down"));
+		CompletableFuture<String> retried = service.execute("key-1", "cart:1", () -> CompletableFuture.completedFuture("order-2"));
+
+		assertEquals("order-2", retried.join());
+	}
+
+	@Test
+	void sameKeyForADifferentRequestIsRejected() {
+		IdempotencyService service = service(60);
+		service.execute("key-1", "cart:1", () -> "order-1");
+
+		ResponseStatusException e = assertThrows(ResponseStatusException.class,
+				() -> service.execute("key-1", "cart:2", () -> "order-2"));
+
+		assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, e.getStatusCode());
+	}
+
+	@Test
+	void inFlightRequestIsNotReplacedWhenItsTtlRunsOut() throws Exception {
+		IdempotencyService service = service(0);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		Future<String> first = executor.submit(() -> service.execute("key-1", "cart:1", () -> {
+			started.countDown();
+			await(release);
+			return "order-" + runs.incrementAndGet();
+		}));
+		started.await(5, TimeUnit.SECONDS);
+		Thread.sleep(20);
+		service.purgeExpired();
+		Future<String> second = executor.submit(() -> service.execute("key-1", "cart:1", () -> "order-" + runs.incrementAndGet()));
+		Thread.sleep(50);
+		release.countDown();
+
+		assertEquals("order-1", first.get(5, TimeUnit.SECONDS));
+		assertEquals("order-1", second.get(5, TimeUnit.SECONDS));
+		assertEquals(1, runs.get());
+	}
+
+	@Test
+	void pendingAsyncResultIsNotReplacedWhenItsTtlRunsOut() throws Exception {
+		IdempotencyService service = service(0);
+		CompletableFuture<String> pending = new CompletableFuture<>();
+		service.execute("key-1", "cart:1", () -> pending);
+		Thread.sleep(20);
+		service.purgeExpired();
+
+		CompletableFuture<String> retried = service.execute("key-1", "cart:1", () -> CompletableFuture.completedFuture("order-2"));
+
+		assertSame(pending, retried);
+	}
+
+	@Test
+	void requestThatNeverFinishesIsReleasedAfterTheInFlightTimeout() throws Exception {
+		IdempotencyService service = service(60, 0);
+		CompletableFuture<String> stuck = new CompletableFuture<>();
+		service.execute("key-1", "cart:1", () -> stuck);
+		Thread.sleep(20);
+		service.purgeExpired();
+
+		CompletableFuture<String> retried = service.execute("key-1", "cart:1", () -> CompletableFuture.completedFuture("order-2"));
+
+		assertEquals("order-2", retried.join());
+	}
+
+	@Test
+	void waitingRetryGivesUpAfterTheInFlightTimeout() throws Exception {
+		IdempotencyService service = service(60, 1);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		executor.submit(() -> service.execute("key-1", "cart:1", () -> {
+			started.countDown();
+			await(release);
+			return "order-1";
+		}));
+		started.await(5, TimeUnit.SECONDS);
+
+		ResponseStatusException e = assertThrows(ResponseStatusException.class,
+				() -> service.execute("key-1", "cart:1", () -> "order-" + runs.incrementAndGet()));
+
+		assertEquals(HttpStatus.CONFLICT, e.getStatusCode());
+		assertEquals(0, runs.get());
+		release.countDown();
+	}
+
+	@Test
+	void settledEntryExpiresAfterItsTtl() throws Exception {
+		IdempotencyService service = service(0);
+		service.execute("key-1", "cart:1", () -> "order-" + runs.incrementAndGet());
+		Thread.sleep(20);
+
+		assertEquals("order-2", service.execute("key-1", "cart:1", () -> "order-" + runs.incrementAndGet()));
+	}
+
+	private static IdempotencyService service(long ttlMinutes) {
+		return service(ttlMinutes, 60);
+	}
+
+	private static IdempotencyService service(long ttlMinutes, long inFlightTimeoutSeconds) {
+		IdempotencyService service = new IdempotencyService();
+		ReflectionTestUtils.setField(service, "ttlMinutes", ttlMinutes);
+		ReflectionTestUtils.setField(service, "maxEntries", 100);
+		ReflectionTestUtils.setField(service, "inFlightTimeoutSeconds", inFlightTimeoutSeconds);
+		return service;
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
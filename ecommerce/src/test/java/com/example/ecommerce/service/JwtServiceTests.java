@@ -0,0 +1,71 @@
+package com.example.ecommerce.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.ecommerce.entity.Role;
+import com.example.ecommerce.entity.User;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+
+class JwtServiceTests {
+
+	@Test
+	void verifiesOnceThenServesClaimsFromCache() {
+		JwtService jwtService = new JwtService(ring("k1"), 100);
+		String token = jwtService.generateToken(user());
+
+		Claims first = jwtService.verify(token);
+		Claims second = jwtService.verify(token);
+
+		assertEquals("alice", first.get("username", String.class));
+		assertEquals("ROLE_USER", jwtService.extractRole(token));
+		assertSame(first, second);
+	}
+
+	@Test
+	void rejectsTamperedToken() {
+		JwtService jwtService = new JwtService(ring("k1"), 100);
+		String token = jwtService.generateToken(user());
+		String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+		assertThrows(JwtException.class, () -> jwtService.verify(tampered));
+	}
+
+	@Test
+	void acceptsTokensSignedWithPreviousKeyAfterRotation() {
+		String k1 = key();
+		String k2 = key();
+		JwtService oldNode = new JwtService(new JwtKeyRing("k1:" + k1, "", ""), 100);
+		JwtService rotatedNode = new JwtService(new JwtKeyRing("k2:" + k2 + ",k1:" + k1, "", ""), 100);
+		JwtService otherCluster = new JwtService(new JwtKeyRing("k1:" + key(), "", ""), 100);
+		String token = oldNode.generateToken(user());
+
+		assertEquals("alice", rotatedNode.verify(token).get("username", String.class));
+		assertThrows(JwtException.class, () -> otherCluster.verify(token));
+		assertThrows(JwtException.class, () -> oldNode.verify(rotatedNode.generateToken(user())));
+	}
+
+	private static JwtKeyRing ring(String kid) {
+		return new JwtKeyRing(kid + ":" + key(), "", "");
+	}
+
+	private static String key() {
+		byte[] key = new byte[32];
+		new SecureRandom().nextBytes(key);
+		return Base64.getEncoder().encodeToString(key);
+	}
+
+	private static User user() {
+		User user = new User("alice", "alice@example.com", "secret", Role.ROLE_USER, true);
+		user.setId(7L);
+		return user;
+	}
+}
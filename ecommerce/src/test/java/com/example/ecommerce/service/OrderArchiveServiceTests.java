@@ -0,0 +1,152 @@
+package com.example.ecommerce.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.ecommerce.dto.OrderMapper;
+import com.example.ecommerce.dto.ProductMapper;
+import com.example.ecommerce.entity.ArchivedOrder;
+import com.example.ecommerce.entity.Order;
+import com.example.ecommerce.entity.OrderItem;
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.entity.User;
+import com.example.ecommerce.repository.ArchivedOrderRepository;
+import com.example.ecommerce.repository.OrderRepository;
+import com.example.ecommerce.repository.OrderViewRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ OrderArchiveService.class, OrderViewService.class, ShardTemplate.class,
+		OrderMapper.class, ProductMapper.class, ObjectMapper.class })
+class OrderArchiveServiceTests {
+
+	@Autowired
+	private OrderArchiveService archiveService;
+
+	@Autowired
+	private OrderViewService orderViewService;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private ArchivedOrderRepository archivedOrderRepository;
+
+	@Autowired
+	private OrderViewRepository orderViewRepository;
+
+	@Autowired
+	private OrderMapper orderMapper;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Test
+	void movesFinishedOrdersWithTheirItemsAndDropsTheirViews() {
+		User user = user();
+		Product product = product();
+		Order delivered = order(user, product, "DELIVERED", daysAgo(120));
+		Order paid = order(user, product, "PAID", daysAgo(120));
+		Order recent = order(user, product, "CANCELLED", daysAgo(1));
+		for (Order order : List.of(delivered, paid, recent)) {
+			orderViewService.save(orderMapper.toDTO(order));
+		}
+		entityManager.flush();
+		entityManager.clear();
+
+		assertEquals(1, archiveService.archiveBatch(daysAgo(90)));
+		entityManager.flush();
+		entityManager.clear();
+
+		assertFalse(orderRepository.existsById(delivered.getId()));
+		assertFalse(orderViewRepository.existsById(delivered.getId()));
+		ArchivedOrder archived = archivedOrderRepository.findWithItemsById(delivered.getId()).orElseThrow();
+		assertEquals("DELIVERED", archived.getStatus());
+		assertEquals(user.getId(), archived.getUserId());
+		assertEquals(1, archived.getOrderItems().size());
+		assertEquals(product.getName(), archived.getOrderItems().get(0).getProductName());
+
+		// Not finished or not old enough: stays live with its view
+		assertTrue(orderRepository.existsById(paid.getId()));
+		assertTrue(orderViewRepository.existsById(paid.getId()));
+		assertTrue(orderRepository.existsById(recent.getId()));
+		assertTrue(orderViewRepository.existsById(recent.getId()));
+
+		assertEquals(0, archiveService.archiveBatch(daysAgo(90)));
+	}
+
+	@Test
+	void backfillWritesViewsForLiveOrdersOnly() {
+		User user = user();
+		Product product = product();
+		Order live = order(user, product, "PAID", daysAgo(1));
+		Order old = order(user, product, "DELIVERED", daysAgo(120));
+		entityManager.flush();
+		entityManager.clear();
+		archiveService.archiveBatch(daysAgo(90));
+
+		orderViewService.backfillMissingViews();
+		entityManager.flush();
+		entityManager.clear();
+
+		assertEquals("PAID", orderViewService.findById(live.getId()).orElseThrow().getStatus());
+		assertEquals(1, orderViewService.findById(live.getId()).orElseThrow().getOrderItems().size());
+		assertFalse(orderViewRepository.existsById(old.getId()));
+		assertTrue(archivedOrderRepository.existsById(old.getId()));
+
+		// Nothing left to write on the next start
+		long views = orderViewRepository.count();
+		orderViewService.backfillMissingViews();
+		assertEquals(views, orderViewRepository.count());
+	}
+
+	private User user() {
+		User user = new User();
+		user.setUsername("alice");
+		user.setEmail("alice@example.com");
+		user.setPassword("secret");
+		return entityManager.persist(user);
+	}
+
+	private Product product() {
+		Product product = new Product();
+		product.setName("Kettle");
+		product.setDescription("1.5 l");
+		product.setPrice(25.0);
+		return entityManager.persist(product);
+	}
+
+	private Order order(User user, Product product, String status, Date orderDate) {
+		Order order = new Order();
+		order.setUser(user);
+		order.setStatus(status);
+		order.setOrderDate(orderDate);
+		order.setTotalPrice(50.0);
+		OrderItem item = new OrderItem();
+		item.setProduct(product);
+		item.setQuantity(2);
+		item.setPrice(25.0);
+		item.setOrder(order);
+		order.getOrderItems().add(item);
+		return entityManager.persist(order);
+	}
+
+	private static Date daysAgo(int days) {
+		return new Date(System.currentTimeMillis() - Duration.ofDays(days).toMillis());
+	}
+}
@@ -0,0 +1,130 @@
+package com.example.ecommerce.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.example.ecommerce.repository.OrderRepository;
+import com.example.ecommerce.repository.PendingPayment;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class OrderReaperServiceTests {
+
+	private static final List<String> CREATED = List.of("CREATED");
+
+	private final OrderRepository orderRepository = mock(OrderRepository.class);
+	private final OrderService orderService = mock(OrderService.class);
+	private final OrderViewService orderViewService = mock(OrderViewService.class);
+	private final StockService stockService = mock(StockService.class);
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	// Stub gateway: order_1 was captured late, order_2 is still open, order_3 cannot be looked up
+	private final PaymentGateway gateway = new PaymentGateway() {
+		@Override
+		public CompletableFuture<GatewayOrder> createOrder(long amountPaise, String currency, String receipt,
+				Map<String, Object> notes) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public CompletableFuture<PaymentStatus> fetchPaymentStatus(String gatewayOrderId) {
+			return switch (gatewayOrderId) {
+				case "order_1" -> CompletableFuture.completedFuture(new PaymentStatus(PaymentStatus.State.PAID, "pay_1"));
+				case "order_2" -> CompletableFuture.completedFuture(new PaymentStatus(PaymentStatus.State.PENDING, null));
+				default -> CompletableFuture.failedFuture(new GatewayUnavailableException("timeout"));
+			};
+		}
+	};
+
+	private OrderReaperService reaper;
+
+	@BeforeEach
+	void setUp() {
+		reaper = new OrderReaperService(orderRepository, orderService, orderViewService, stockService, gateway,
+				mock(ShardTemplate.class), mock(PlatformTransactionManager.class), meterRegistry);
+		ReflectionTestUtils.setField(reaper, "batchSize", 100);
+		ReflectionTestUtils.setField(reaper, "gatewayParallelism", 2);
+	}
+
+	@Test
+	void releasesStockOnlyForOrdersItExpired() {
+		when(orderRepository.findIdsByStatusInAndOrderDateBefore(eq(List.of("PENDING")), any(), any()))
+				.thenReturn(List.of(1, 2));
+		when(orderRepository.updateStatusByIdWhereStatusIn(1, "EXPIRED", List.of("PENDING"))).thenReturn(1);
+		// Order 2 was paid between the select and the update
+		when(orderRepository.updateStatusByIdWhereStatusIn(2, "EXPIRED", List.of("PENDING"))).thenReturn(0);
+
+		assertEquals(2, reaper.expireBatch("PENDING", new Date()));
+
+		verify(orderViewService).updateStatus(List.of(1), "EXPIRED");
+		verify(stockService).releaseOrders(List.of(1), "EXPIRED");
+		assertEquals(1, meterRegistry.get("orders.reaper.expired").counter().count());
+	}
+
+	@Test
+	void releasesNothingWhenNoOrderMoved() {
+		when(orderRepository.findIdsByStatusInAndOrderDateBefore(eq(List.of("PENDING")), any(), any()))
+				.thenReturn(List.of(2));
+
+		reaper.expireBatch("PENDING", new Date());
+
+		verify(stockService, never()).releaseOrders(anyList(), any());
+	}
+
+	@Test
+	void confirmsLateCapturesAndSkipsFailedLookups() {
+		when(orderService.confirmPayments(Map.of(1, "pay_1"))).thenReturn(List.of(1));
+		when(orderRepository.updateStatusByIdWhereStatusIn(2, "EXPIRED", CREATED)).thenReturn(1);
+
+		reaper.expireCreatedBatch(List.of(pending(1, "order_1"), pending(2, "order_2"), pending(3, "order_3"),
+				pending(4, null)));
+
+		verify(orderService).confirmPayments(Map.of(1, "pay_1"));
+		verify(orderRepository, never()).updateStatusByIdWhereStatusIn(1, "EXPIRED", CREATED);
+		verify(orderRepository, never()).updateStatusByIdWhereStatusIn(3, "EXPIRED", CREATED);
+		// No gateway order to ask about: expired without a lookup (guard returns 0 here)
+		verify(orderRepository).updateStatusByIdWhereStatusIn(4, "EXPIRED", CREATED);
+		verify(stockService).releaseOrders(List.of(2), "EXPIRED");
+		assertEquals(1, meterRegistry.get("orders.reaper.late-captures").counter().count());
+	}
+
+	@Test
+	void leavesEverythingWhenTheGatewayIsDown() {
+		reaper.expireCreatedBatch(List.of(pending(3, "order_3"), pending(5, "order_5")));
+
+		verify(orderService, never()).confirmPayments(anyMap());
+		verify(orderRepository, never()).updateStatusByIdWhereStatusIn(anyInt(), any(), anyList());
+	}
+
+	private static PendingPayment pending(int id, String razorpayOrderId) {
+		return new PendingPayment() {
+			@Override
+			public Integer getId() {
+				return id;
+			}
+
+			@Override
+			public String getRazorpayOrderId() {
+				return razorpayOrderId;
+			}
+		};
+	}
+}
@@ -0,0 +1,190 @@
+package com.example.ecommerce.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import com.example.ecommerce.dto.OrderDTO;
+import com.example.ecommerce.dto.OrderHistoryPageDTO;
+import com.example.ecommerce.dto.OrderMapper;
+import com.example.ecommerce.dto.ProductMapper;
+import com.example.ecommerce.entity.Order;
+import com.example.ecommerce.entity.OrderItem;
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.entity.User;
+import com.example.ecommerce.repository.OrderRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// Database-backed stock, so units given back are visible in products.stock
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = "stock.reservations=database")
+@Import({ OrderService.class, OrderViewService.class, OrderArchiveService.class, StockService.class, ShardTemplate.class,
+		OrderMapper.class, ProductMapper.class, ObjectMapper.class, SimpleMeterRegistry.class })
+class OrderServiceTests {
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private OrderArchiveService archiveService;
+
+	@Autowired
+	private OrderViewService orderViewService;
+
+	@Autowired
+	private OrderMapper orderMapper;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Test
+	void failPaymentsReleasesStockOnlyForOrdersItMoved() {
+		User user = user("alice");
+		// 2 units held by the open order; the failed order's 3 units were given back already
+		Product product = product(8);
+		Order open = order(user, product, "CREATED", 2);
+		Order alreadyFailed = order(user, product, "PAYMENT_FAILED", 3);
+		entityManager.flush();
+		entityManager.clear();
+
+		assertEquals(1, orderService.failPayments(List.of(open.getId(), alreadyFailed.getId())));
+		entityManager.flush();
+		entityManager.clear();
+
+		assertEquals("PAYMENT_FAILED", orderRepository.findById(open.getId()).orElseThrow().getStatus());
+		assertEquals(10, jdbcTemplate.queryForObject("SELECT stock FROM products WHERE id = ?", Integer.class,
+				product.getId()));
+
+		// Running the same batch again (e.g. a second reconciler) releases nothing
+		assertEquals(0, orderService.failPayments(List.of(open.getId(), alreadyFailed.getId())));
+		assertEquals(10, jdbcTemplate.queryForObject("SELECT stock FROM products WHERE id = ?", Integer.class,
+				product.getId()));
+	}
+
+	@Test
+	void listingsIncludeArchivedOrders() {
+		User user = user("bob");
+		Product product = product(null);
+		Order delivered = withView(order(user, product, "DELIVERED", 1, daysAgo(120)));
+		Order paid = withView(order(user, product, "PAID", 1, daysAgo(1)));
+		entityManager.flush();
+		entityManager.clear();
+		assertEquals(1, archiveService.archiveBatch(daysAgo(90)));
+		entityManager.flush();
+		entityManager.clear();
+
+		assertEquals(List.of(paid.getId(), delivered.getId()), ids(orderService.getOrdersByUserId(user.getId())));
+		assertEquals(List.of(delivered.getId()),
+				ids(orderService.getOrdersByUserIdAndStatus(user.getId(), "delivered")));
+		List<Integer> all = ids(orderService.getAllOrdersForAdmin());
+		assertTrue(all.contains(delivered.getId()) && all.contains(paid.getId()));
+		assertTrue(ids(orderService.getOrdersByStatus("DELIVERED")).contains(delivered.getId()));
+		// Archived items carry their product snapshot
+		OrderDTO archived = orderService.getOrdersByUserId(user.getId()).get(1);
+		assertEquals("Kettle", archived.getOrderItems().get(0).getProduct().getName());
+	}
+
+	@Test
+	void historyPagesRunOnIntoTheArchive() {
+		User user = user("carol");
+		Product product = product(null);
+		// Oldest ids first: three orders that get archived, then two live ones
+		Order old1 = withView(order(user, product, "DELIVERED", 1, daysAgo(130)));
+		Order old2 = withView(order(user, product, "CANCELLED", 1, daysAgo(120)));
+		Order old3 = withView(order(user, product, "DELIVERED", 1, daysAgo(110)));
+		Order new1 = withView(order(user, product, "PAID", 1, daysAgo(2)));
+		Order new2 = withView(order(user, product, "DELIVERED", 1, daysAgo(1)));
+		entityManager.flush();
+		entityManager.clear();
+		assertEquals(3, archiveService.archiveBatch(daysAgo(90)));
+		entityManager.flush();
+		entityManager.clear();
+
+		// The first page crosses from live orders into archived ones
+		OrderHistoryPageDTO first = orderService.getOrderHistoryPage(user.getId(), null, null, 3);
+		assertEquals(List.of(new2.getId(), new1.getId(), old3.getId()), ids(first.getOrders()));
+		assertTrue(first.isHasMore());
+		OrderHistoryPageDTO second = orderService.getOrderHistoryPage(user.getId(), null, first.getNextCursor(), 3);
+		assertEquals(List.of(old2.getId(), old1.getId()), ids(second.getOrders()));
+		assertFalse(second.isHasMore());
+
+		// The status filter applies to both
+		OrderHistoryPageDTO delivered = orderService.getOrderHistoryPage(user.getId(), "delivered", null, 2);
+		assertEquals(List.of(new2.getId(), old3.getId()), ids(delivered.getOrders()));
+		assertTrue(delivered.isHasMore());
+		assertEquals(List.of(old1.getId()), ids(orderService.getOrderHistoryPage(user.getId(), "delivered",
+				delivered.getNextCursor(), 2).getOrders()));
+	}
+
+	private Order withView(Order order) {
+		orderViewService.save(orderMapper.toDTO(order));
+		return order;
+	}
+
+	private static List<Integer> ids(List<OrderDTO> orders) {
+		return orders.stream().map(OrderDTO::getId).toList();
+	}
+
+	private static Date daysAgo(int days) {
+		return new Date(System.currentTimeMillis() - Duration.ofDays(days).toMillis());
+	}
+
+	private User user(String name) {
+		User user = new User();
+		user.setUsername(name);
+		user.setEmail(name + "@example.com");
+		user.setPassword("secret");
+		return entityManager.persist(user);
+	}
+
+	private Product product(Integer stock) {
+		Product product = new Product();
+		product.setName("Kettle");
+		product.setPrice(25.0);
+		product.setStock(stock);
+		return entityManager.persist(product);
+	}
+
+	private Order order(User user, Product product, String status, int quantity) {
+		return order(user, product, status, quantity, new Date());
+	}
+
+	private Order order(User user, Product product, String status, int quantity, Date orderDate) {
+		Order order = new Order();
+		order.setUser(user);
+		order.setStatus(status);
+		order.setOrderDate(orderDate);
+		order.setTotalPrice(quantity * product.getPrice());
+		OrderItem item = new OrderItem();
+		item.setProduct(product);
+		item.setQuantity(quantity);
+		item.setPrice(product.getPrice());
+		item.setOrder(order);
+		order.getOrderItems().add(item);
+		return entityManager.persist(order);
+	}
+}
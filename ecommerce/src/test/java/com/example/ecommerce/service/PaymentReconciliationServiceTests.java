@@ -0,0 +1,101 @@
+package com.example.ecommerce.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.example.ecommerce.repository.OrderRepository;
+import com.example.ecommerce.repository.PendingPayment;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class PaymentReconciliationServiceTests {
+
+	private final OrderRepository orderRepository = mock(OrderRepository.class);
+	private final OrderService orderService = mock(OrderService.class);
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	// Stub gateway: order_1 was paid, order_2 failed, order_3 is still open
+	private final PaymentGateway gateway = new PaymentGateway() {
+		@Override
+		public CompletableFuture<GatewayOrder> createOrder(long amountPaise, String currency, String receipt,
+				Map<String, Object> notes) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public CompletableFuture<PaymentStatus> fetchPaymentStatus(String gatewayOrderId) {
+			return CompletableFuture.completedFuture(switch (gatewayOrderId) {
+				case "order_1" -> new PaymentStatus(PaymentStatus.State.PAID, "pay_1");
+				case "order_2" -> new PaymentStatus(PaymentStatus.State.FAILED, null);
+				default -> new PaymentStatus(PaymentStatus.State.PENDING, null);
+			});
+		}
+	};
+
+	private PaymentReconciliationService service;
+
+	@BeforeEach
+	void setUp() {
+		service = new PaymentReconciliationService(orderRepository, orderService, mock(ShardTemplate.class), gateway,
+				mock(PlatformTransactionManager.class), meterRegistry);
+		ReflectionTestUtils.setField(service, "parallelism", 2);
+	}
+
+	@Test
+	void appliesPaidAndFailedOutcomesInBulk() {
+		when(orderService.confirmPayments(Map.of(1, "pay_1"))).thenReturn(List.of(1));
+		when(orderService.failPayments(List.of(2))).thenReturn(1);
+
+		service.reconcileBatch(List.of(pending(1, "order_1"), pending(2, "order_2"), pending(3, "order_3")));
+
+		verify(orderService).confirmPayments(Map.of(1, "pay_1"));
+		verify(orderService).failPayments(List.of(2));
+		assertEquals(3, meterRegistry.get("payments.reconcile.checked").counter().count());
+		assertEquals(1, meterRegistry.get("payments.reconcile.resolved").tag("outcome", "paid").counter().count());
+	}
+
+	@Test
+	void stopsWhenTheGatewayIsDown() {
+		PaymentGateway down = mock(PaymentGateway.class);
+		when(down.fetchPaymentStatus(any())).thenReturn(
+				CompletableFuture.failedFuture(new GatewayUnavailableException("down")));
+		service = new PaymentReconciliationService(orderRepository, orderService, mock(ShardTemplate.class), down,
+				mock(PlatformTransactionManager.class), meterRegistry);
+		ReflectionTestUtils.setField(service, "parallelism", 2);
+
+		boolean more = service.reconcileBatch(List.of(pending(1, "order_1"), pending(2, "order_2"), pending(3, "order_3")));
+
+		assertFalse(more);
+		verify(down, never()).fetchPaymentStatus("order_3");
+		verify(orderService, never()).failPayments(anyList());
+	}
+
+	private static PendingPayment pending(int id, String razorpayOrderId) {
+		return new PendingPayment() {
+			@Override
+			public Integer getId() {
+				return id;
+			}
+
+			@Override
+			public String getRazorpayOrderId() {
+				return razorpayOrderId;
+			}
+		};
+	}
+}
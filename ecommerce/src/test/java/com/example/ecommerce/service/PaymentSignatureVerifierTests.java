@@ -0,0 +1,44 @@
+package com.example.ecommerce.service;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.jupiter.api.Test;
+
+class PaymentSignatureVerifierTests {
+
+	private final PaymentSignatureVerifier verifier = new PaymentSignatureVerifier("s3cret");
+
+	@Test
+	void acceptsSignatureOfOrderAndPaymentId() throws Exception {
+		String signature = hmacHex("order_1|pay_1");
+
+		assertTrue(verifier.verifyPayment("order_1", "pay_1", signature));
+		assertTrue(verifier.verifyPayment("order_1", "pay_1", signature.toUpperCase()));
+		assertFalse(verifier.verifyPayment("order_1", "pay_2", signature));
+	}
+
+	@Test
+	void rejectsTamperedOrMalformedSignatures() throws Exception {
+		byte[] body = "{\"event\":\"payment.captured\"}".getBytes(StandardCharsets.UTF_8);
+		String signature = hmacHex(new String(body, StandardCharsets.UTF_8));
+
+		assertTrue(verifier.verify(body, signature));
+		assertFalse(verifier.verify(body, signature.substring(1) + "0"));
+		assertFalse(verifier.verify(body, signature.substring(2)));
+		assertFalse(verifier.verify(body, "zz" + signature.substring(2)));
+		assertFalse(verifier.verify(body, null));
+	}
+
+	private static String hmacHex(String data) throws Exception {
+		Mac mac = Mac.getInstance("HmacSHA256");
+		mac.init(new SecretKeySpec("s3cret".getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+		return HexFormat.of().formatHex(mac.doFinal(data.getBytes(StandardCharsets.UTF_8)));
+	}
+}
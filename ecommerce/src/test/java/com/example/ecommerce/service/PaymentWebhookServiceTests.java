@@ -0,0 +1,93 @@
+package com.example.ecommerce.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.example.ecommerce.entity.PaymentEvent;
+import com.example.ecommerce.repository.PaymentEventRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class PaymentWebhookServiceTests {
+
+	private final PaymentEventRepository repository = mock(PaymentEventRepository.class);
+	private final OrderService orderService = mock(OrderService.class);
+
+	private PaymentWebhookService service;
+
+	@BeforeEach
+	void setUp() {
+		service = new PaymentWebhookService(repository, orderService, mock(ShardTemplate.class), new ObjectMapper(),
+				mock(PlatformTransactionManager.class), new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(service, "batchSize", 100);
+		ReflectionTestUtils.setField(service, "maxAttempts", 5);
+		when(repository.claim(anyLong(), anyString(), any())).thenReturn(1);
+	}
+
+	@Test
+	void failedAttemptLeavesTheOrderPayable() {
+		queued(event(1, "payment.failed", "order_1", "pay_1"));
+
+		service.processBatch(0);
+
+		verify(orderService, never()).failPayment(anyString());
+		verify(repository).updateStatus(eq(List.of(1L)), eq("PROCESSED"), any());
+	}
+
+	@Test
+	void captureAfterAFailedAttemptInAnotherBatchConfirmsTheOrder() {
+		queued(event(1, "payment.failed", "order_1", "pay_1"));
+		service.processBatch(0);
+		queued(event(2, "payment.captured", "order_1", "pay_2"));
+		when(orderService.confirmPayment("order_1", "pay_2")).thenReturn(true);
+
+		service.processBatch(1);
+
+		verify(orderService).confirmPayment("order_1", "pay_2");
+		verify(orderService, never()).failPayment(anyString());
+	}
+
+	@Test
+	void repeatedCapturesInOneBatchAreAppliedOnce() {
+		queued(event(1, "payment.captured", "order_1", "pay_1"), event(2, "order.paid", "order_1", "pay_1"),
+				event(3, "refund.created", "order_1", null));
+		when(orderService.confirmPayment("order_1", "pay_1")).thenReturn(true);
+
+		service.processBatch(0);
+
+		verify(orderService, times(1)).confirmPayment("order_1", "pay_1");
+		verify(repository).updateStatus(eq(List.of(2L)), eq("PROCESSED"), any());
+		verify(repository).updateStatus(eq(List.of(3L)), eq("IGNORED"), any());
+	}
+
+	private void queued(PaymentEvent... events) {
+		when(repository.findByStatusAndIdGreaterThanOrderByIdAsc(eq("NEW"), anyLong(), any()))
+				.thenReturn(List.of(events));
+	}
+
+	private static PaymentEvent event(long id, String type, String razorpayOrderId, String paymentId) {
+		PaymentEvent event = new PaymentEvent();
+		event.setId(id);
+		event.setEventId("evt_" + id);
+		event.setEventType(type);
+		event.setRazorpayOrderId(razorpayOrderId);
+		event.setPaymentId(paymentId);
+		event.setStatus("NEW");
+		return event;
+	}
+}
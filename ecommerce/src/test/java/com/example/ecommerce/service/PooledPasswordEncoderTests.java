@@ -0,0 +1,125 @@
+package com.example.ecommerce.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class PooledPasswordEncoderTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Test
+	void shedsHashesWhenPoolAndQueueAreFull() throws Exception {
+		CountDownLatch running = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		PasswordEncoder blocking = new BCryptPasswordEncoder(4) {
+			@Override
+			public boolean matches(CharSequence rawPassword, String encodedPassword) {
+				running.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return true;
+			}
+		};
+		PooledPasswordEncoder encoder = new PooledPasswordEncoder(blocking, 1, 1, 5000, meterRegistry);
+		ExecutorService callers = Executors.newFixedThreadPool(2);
+		try {
+			callers.submit(() -> encoder.matches("a", "x")); // occupies the only thread
+			assertTrue(running.await(5, TimeUnit.SECONDS));
+			callers.submit(() -> encoder.matches("b", "x")); // waits in the queue
+			while (meterRegistry.get("password.hash.queue").gauge().value() < 1) {
+				Thread.sleep(5);
+			}
+
+			assertThrows(PasswordHashingBusyException.class, () -> encoder.matches("c", "x"));
+			assertEquals(1, meterRegistry.get("password.hash.rejected").counter().count());
+		} finally {
+			release.countDown();
+			callers.shutdown();
+			encoder.close();
+		}
+	}
+
+	@Test
+	void timedOutHashLeavesTheQueueAndNeverRuns() throws Exception {
+		CountDownLatch running = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger calls = new AtomicInteger();
+		PasswordEncoder blocking = new BCryptPasswordEncoder(4) {
+			@Override
+			public boolean matches(CharSequence rawPassword, String encodedPassword) {
+				calls.incrementAndGet();
+				running.countDown();
+				// Like BCrypt, runs to the end even when interrupted
+				boolean interrupted = false;
+				while (release.getCount() > 0) {
+					try {
+						release.await();
+					} catch (InterruptedException e) {
+						interrupted = true;
+					}
+				}
+				if (interrupted) {
+					Thread.currentThread().interrupt();
+				}
+				return true;
+			}
+		};
+		PooledPasswordEncoder encoder = new PooledPasswordEncoder(blocking, 1, 1, 50, meterRegistry);
+		ExecutorService callers = Executors.newSingleThreadExecutor();
+		try {
+			callers.submit(() -> encoder.matches("a", "x")); // occupies the only thread
+			assertTrue(running.await(5, TimeUnit.SECONDS));
+
+			assertThrows(PasswordHashingBusyException.class, () -> encoder.matches("b", "x"));
+			assertEquals(0, meterRegistry.get("password.hash.queue").gauge().value());
+
+			release.countDown();
+			callers.shutdown();
+			assertTrue(callers.awaitTermination(5, TimeUnit.SECONDS));
+			Thread.sleep(50);
+			assertEquals(1, calls.get());
+		} finally {
+			release.countDown();
+			encoder.close();
+		}
+	}
+
+	@Test
+	void rehashesWeakerHashOnSuccessfulLogin() {
+		PooledPasswordEncoder encoder = new PooledPasswordEncoder(5, 1, 4, 5000, meterRegistry);
+		InMemoryUserDetailsManager users = new InMemoryUserDetailsManager(User.withUsername("alice")
+				.password(new BCryptPasswordEncoder(4).encode("secret"))
+				.roles("USER")
+				.build());
+		DaoAuthenticationProvider provider = new DaoAuthenticationProvider(encoder);
+		provider.setUserDetailsService(users);
+		provider.setUserDetailsPasswordService(users);
+
+		provider.authenticate(new UsernamePasswordAuthenticationToken("alice", "secret"));
+
+		String stored = users.loadUserByUsername("alice").getPassword();
+		assertTrue(stored.startsWith("$2a$05$"), stored);
+		assertTrue(encoder.matches("secret", stored));
+		encoder.close();
+	}
+}
@@ -0,0 +1,64 @@
+package com.example.ecommerce.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.bind.PropertySourcesPlaceholdersResolver;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.PropertiesPropertySourceLoader;
+import org.springframework.core.env.MutablePropertySources;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.example.ecommerce.config.RateLimitProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// The policies as shipped in application.properties, from one client IP
+class RateLimitFilterTests {
+
+	private final RateLimitFilter filter = new RateLimitFilter(shippedProperties(), new SimpleMeterRegistry());
+
+	@Test
+	void catchAllLimitsApiCallsFromOneIp() throws Exception {
+		int limited = 0;
+		for (int i = 0; i < 300; i++) {
+			limited += post("/api/product/list") == 429 ? 1 : 0;
+		}
+		assertTrue(limited > 0, "limited " + limited);
+	}
+
+	@Test
+	void paymentWebhookIsNeverLimited() throws Exception {
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(200, post("/api/payment/webhook"), "webhook post " + i);
+		}
+	}
+
+	private int post(String uri) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+		request.setRemoteAddr("203.0.113.7");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, new MockFilterChain());
+		return response.getStatus();
+	}
+
+	private static RateLimitProperties shippedProperties() {
+		MutablePropertySources sources = new MutablePropertySources();
+		try {
+			new PropertiesPropertySourceLoader().load("application", new ClassPathResource("application.properties"))
+					.forEach(sources::addLast);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		Binder binder = new Binder(ConfigurationPropertySources.from(sources),
+				new PropertySourcesPlaceholdersResolver(sources));
+		return binder.bind("rate-limit", RateLimitProperties.class).get();
+	}
+}
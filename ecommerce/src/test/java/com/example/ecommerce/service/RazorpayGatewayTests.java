@@ -0,0 +1,142 @@
+package com.example.ecommerce.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+class RazorpayGatewayTests {
+
+	private HttpServer server;
+	private RazorpayGateway gateway;
+
+	@AfterEach
+	void stop() {
+		if (gateway != null) {
+			gateway.close();
+		}
+		if (server != null) {
+			server.stop(0);
+		}
+	}
+
+	@Test
+	void createsOrderAgainstStubGateway() {
+		AtomicReference<String> authorization = new AtomicReference<>();
+		AtomicReference<String> body = new AtomicReference<>();
+		startStub(exchange -> {
+			authorization.set(exchange.getRequestHeaders().getFirst("Authorization"));
+			body.set(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+			respond(exchange, 200, "{\"id\":\"order_test1\",\"amount\":1999,\"currency\":\"INR\"}");
+		});
+		gateway = gateway(1000, 5);
+
+		PaymentGateway.GatewayOrder order = gateway.createOrder(1999, "INR", "r1", Map.of("db_order_id", 7)).join();
+
+		assertEquals("order_test1", order.id());
+		assertEquals(1999, order.amount());
+		assertEquals("INR", order.currency());
+		assertTrue(authorization.get().startsWith("Basic "));
+		assertTrue(body.get().contains("\"amount\":1999"));
+	}
+
+	@Test
+	void reportsCapturedPaymentOfAnOrder() {
+		startStub(exchange -> respond(exchange, 200, "{\"count\":2,\"items\":["
+				+ "{\"id\":\"pay_1\",\"status\":\"failed\"},"
+				+ "{\"id\":\"pay_2\",\"status\":\"captured\"}]}"));
+		gateway = gateway(1000, 5);
+
+		PaymentGateway.PaymentStatus status = gateway.fetchPaymentStatus("order_test1").join();
+
+		assertEquals(PaymentGateway.PaymentStatus.State.PAID, status.state());
+		assertEquals("pay_2", status.paymentId());
+	}
+
+	@Test
+	void opensCircuitAfterRepeatedFailuresAndFailsFast() {
+		AtomicInteger calls = new AtomicInteger();
+		startStub(exchange -> {
+			calls.incrementAndGet();
+			respond(exchange, 503, "{}");
+		});
+		gateway = gateway(1000, 2);
+
+		for (int i = 0; i < 2; i++) {
+			assertGatewayUnavailable(() -> gateway.createOrder(100, "INR", "r", Map.of()).join());
+		}
+		assertEquals(CircuitBreaker.State.OPEN, gateway.circuitState());
+
+		assertGatewayUnavailable(() -> gateway.createOrder(100, "INR", "r", Map.of()).join());
+		assertEquals(2, calls.get());
+	}
+
+	@Test
+	void slowGatewayTimesOut() {
+		startStub(exchange -> {
+			try {
+				Thread.sleep(2000);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			respond(exchange, 200, "{}");
+		});
+		gateway = gateway(200, 5);
+
+		long start = System.nanoTime();
+		assertGatewayUnavailable(() -> gateway.createOrder(100, "INR", "r", Map.of()).join());
+		assertTrue(System.nanoTime() - start < 1_500_000_000L);
+	}
+
+	private RazorpayGateway gateway(long requestTimeoutMs, int failureThreshold) {
+		String baseUrl = "http://localhost:" + server.getAddress().getPort();
+		return new RazorpayGateway(new ObjectMapper(), baseUrl, "key", "secret",
+				500, requestTimeoutMs, 4, failureThreshold, 60_000);
+	}
+
+	private void startStub(StubHandler handler) {
+		try {
+			server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.createContext("/v1/orders", handler::handle);
+		server.start();
+	}
+
+	private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+		byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().add("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	private static void assertGatewayUnavailable(Runnable call) {
+		CompletionException e = assertThrows(CompletionException.class, call::run);
+		assertInstanceOf(GatewayUnavailableException.class, e.getCause());
+	}
+
+	private interface StubHandler {
+		void handle(HttpExchange exchange) throws IOException;
+	}
+}
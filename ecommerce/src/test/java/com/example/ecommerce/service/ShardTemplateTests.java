@@ -0,0 +1,92 @@
+package com.example.ecommerce.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.example.ecommerce.config.ShardRing;
+import com.example.ecommerce.config.ShardRoutingDataSource;
+
+// Three in-memory databases stand in for the shards, each with its own orders table
+class ShardTemplateTests {
+
+	private final Map<String, DataSource> databases = new LinkedHashMap<>();
+
+	@Test
+	void writesGoToTheUsersShardAndScatterGatherSeesAll() {
+		ShardTemplate shards = sharded("shard-0", "shard-1", "shard-2");
+		JdbcTemplate jdbc = jdbc();
+		for (long userId = 1; userId <= 30; userId++) {
+			long id = userId;
+			shards.forUser(id, () -> jdbc.update("INSERT INTO orders (id, user_id) VALUES (?, ?)", id * 100, id));
+		}
+
+		for (long userId = 1; userId <= 30; userId++) {
+			JdbcTemplate owner = new JdbcTemplate(databases.get(shards.shardFor(userId)));
+			assertEquals(1, owner.queryForObject("SELECT COUNT(*) FROM orders WHERE user_id = ?", Integer.class, userId));
+		}
+		List<Integer> counts = shards.scatterGather(() -> jdbc.queryForObject("SELECT COUNT(*) FROM orders", Integer.class));
+		assertEquals(3, counts.size());
+		assertEquals(30, counts.stream().mapToInt(Integer::intValue).sum());
+	}
+
+	@Test
+	void locateFindsTheShardHoldingARow() {
+		ShardTemplate shards = sharded("shard-0", "shard-1", "shard-2");
+		JdbcTemplate jdbc = jdbc();
+		shards.forUser(7L, () -> jdbc.update("INSERT INTO orders (id, user_id) VALUES (700, 7)"));
+
+		assertEquals(shards.shardFor(7L), shards.locate(() -> exists(jdbc, 700)));
+		assertNull(shards.locate(() -> exists(jdbc, 800)));
+	}
+
+	@Test
+	void withoutShardsEverythingRunsInline() {
+		DataSource single = database("single");
+		ShardTemplate shards = new ShardTemplate((ShardRing) null, new DataSourceTransactionManager(single));
+		JdbcTemplate jdbc = new JdbcTemplate(single);
+
+		shards.forUser(7L, () -> jdbc.update("INSERT INTO orders (id, user_id) VALUES (700, 7)"));
+
+		assertNull(shards.shardFor(7L));
+		assertNull(shards.locate(() -> exists(jdbc, 700)));
+		assertEquals(List.of(1), shards.scatterGather(() -> jdbc.queryForObject("SELECT COUNT(*) FROM orders", Integer.class)));
+	}
+
+	private ShardTemplate sharded(String... names) {
+		for (String name : names) {
+			databases.put(name, database(name));
+		}
+		return new ShardTemplate(new ShardRing(List.of(names), 64), new DataSourceTransactionManager(routed()));
+	}
+
+	private DataSource routed() {
+		return new LazyConnectionDataSourceProxy(new ShardRoutingDataSource(databases, "shard-0"));
+	}
+
+	private JdbcTemplate jdbc() {
+		return new JdbcTemplate(routed());
+	}
+
+	private static boolean exists(JdbcTemplate jdbc, int orderId) {
+		return jdbc.queryForObject("SELECT COUNT(*) FROM orders WHERE id = ?", Integer.class, orderId) > 0;
+	}
+
+	private static DataSource database(String name) {
+		DriverManagerDataSource dataSource =
+				new DriverManagerDataSource("jdbc:h2:mem:" + name + "-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1", "sa", "");
+		new JdbcTemplate(dataSource).execute("CREATE TABLE orders (id INT PRIMARY KEY, user_id BIGINT)");
+		return dataSource;
+	}
+}
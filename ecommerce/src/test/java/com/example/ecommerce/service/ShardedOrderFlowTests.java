@@ -0,0 +1,179 @@
+package com.example.ecommerce.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.ecommerce.config.ShardRoutingDataSource;
+import com.example.ecommerce.config.ShardingConfig;
+import com.example.ecommerce.dto.CartDTO;
+import com.example.ecommerce.dto.OrderDTO;
+import com.example.ecommerce.dto.OrderMapper;
+import com.example.ecommerce.dto.ProductMapper;
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.entity.User;
+import com.example.ecommerce.repository.ProductRepository;
+import com.example.ecommerce.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// The real cart and checkout services over three in-memory databases: the test
+// profile's one is the home shard, the two below are shard-1 and shard-2 and start
+// empty, without a schema. Not transactional, so every step commits like a request.
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+		"stock.reservations=database",
+		"sharding.urls=jdbc:h2:mem:flow-shard-1;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1,"
+				+ "jdbc:h2:mem:flow-shard-2;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1" })
+@Import({ ShardingConfig.class, OrderService.class, CartService.class, OrderViewService.class, StockService.class,
+		ShardTemplate.class, OrderMapper.class, ProductMapper.class, ObjectMapper.class, SimpleMeterRegistry.class })
+class ShardedOrderFlowTests {
+
+	private static final long ID_BLOCK = 100_000_000L;
+
+	@Autowired
+	private CartService cartService;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private ShardTemplate shardTemplate;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private ShardRoutingDataSource shards;
+
+	@Test
+	void ordersAndCartsLiveOnTheUsersShard() {
+		Product product = product("Kettle", 10);
+		Map<String, User> byShard = usersOnTwoShards();
+
+		Map<String, OrderDTO> placed = new LinkedHashMap<>();
+		byShard.forEach((shard, user) -> placed.put(shard, checkout(user, product, 2)));
+
+		List<String> names = List.copyOf(shards.shards().keySet());
+		placed.forEach((shard, order) -> {
+			for (String other : names) {
+				int expected = other.equals(shard) ? 1 : 0;
+				assertEquals(expected, count(other, "SELECT COUNT(*) FROM orders WHERE id = ?", order.getId()));
+				assertEquals(expected, count(other, "SELECT COUNT(*) FROM order_views WHERE id = ?", order.getId()));
+				assertEquals(expected, count(other, "SELECT COUNT(*) FROM cart WHERE user_id = ?", order.getUserId()));
+			}
+			// Each shard hands out ids from its own block
+			assertEquals(names.indexOf(shard), order.getId() / ID_BLOCK);
+			assertEquals(shard, orderService.locateOrder(order.getId()));
+		});
+
+		// The admin list gathers them from both shards
+		List<Integer> listed = orderService.getAllOrdersForAdmin().stream().map(OrderDTO::getId).toList();
+		placed.values().forEach(order -> assertTrue(listed.contains(order.getId())));
+		// Stock is only counted on the home shard
+		assertEquals(6, jdbc(shards.homeShard()).queryForObject("SELECT stock FROM products WHERE id = ?",
+				Integer.class, product.getId()));
+	}
+
+	@Test
+	void usersAndProductsAreCopiedToEveryShard() {
+		Product product = product("Toaster", null);
+		User user = user("copied");
+		user.setEmail("changed@example.com");
+		userRepository.save(user);
+		product.setPrice(42.0);
+		productRepository.save(product);
+
+		for (String shard : shards.shards().keySet()) {
+			JdbcTemplate jdbc = jdbc(shard);
+			assertEquals("changed@example.com", jdbc.queryForObject("SELECT email FROM user WHERE id = ?",
+					String.class, user.getId()));
+			assertEquals(42.0, jdbc.queryForObject("SELECT price FROM products WHERE id = ?",
+					Double.class, product.getId()));
+		}
+	}
+
+	@Test
+	void shortStockLeavesNoOrderBehind() {
+		Product product = product("Grinder", 1);
+		User user = usersOnTwoShards().values().iterator().next();
+		CartDTO cart = shardTemplate.forUser(user.getId(), () -> cartService.createCart(user.getId()));
+		shardTemplate.forUser(user.getId(), () -> cartService.addProductToCart(cart.getId(), product.getId(), 3));
+
+		assertThrows(RuntimeException.class,
+				() -> shardTemplate.forUser(user.getId(), () -> orderService.placeOrderFromCart(cart.getId(), null)));
+
+		String shard = shardTemplate.shardFor(user.getId());
+		assertEquals(0, count(shard, "SELECT COUNT(*) FROM orders WHERE user_id = ?", user.getId()));
+		assertEquals(1, jdbc(shards.homeShard()).queryForObject("SELECT stock FROM products WHERE id = ?",
+				Integer.class, product.getId()));
+	}
+
+	private OrderDTO checkout(User user, Product product, int quantity) {
+		Long userId = user.getId();
+		return shardTemplate.forUser(userId, () -> {
+			CartDTO cart = cartService.createCart(userId);
+			cartService.addProductToCart(cart.getId(), product.getId(), quantity);
+			return orderService.placeOrderFromCart(cart.getId(), null);
+		});
+	}
+
+	// Two users on different shards, so at least one of them off the home shard
+	private Map<String, User> usersOnTwoShards() {
+		Map<String, User> byShard = new LinkedHashMap<>();
+		for (int i = 0; byShard.size() < 2; i++) {
+			User user = user("user-" + System.nanoTime() + "-" + i);
+			byShard.putIfAbsent(shardTemplate.shardFor(user.getId()), user);
+		}
+		return byShard;
+	}
+
+	private User user(String name) {
+		User user = new User();
+		user.setUsername(name);
+		user.setEmail(name + "@example.com");
+		user.setPassword("secret");
+		return userRepository.save(user);
+	}
+
+	private Product product(String name, Integer stock) {
+		Product product = new Product();
+		product.setName(name);
+		product.setPrice(25.0);
+		product.setStock(stock);
+		return productRepository.save(product);
+	}
+
+	private int count(String shard, String sql, Object arg) {
+		return jdbc(shard).queryForObject(sql, Integer.class, arg);
+	}
+
+	private JdbcTemplate jdbc(String shard) {
+		DataSource dataSource = shards.shards().get(shard);
+		return new JdbcTemplate(dataSource);
+	}
+}
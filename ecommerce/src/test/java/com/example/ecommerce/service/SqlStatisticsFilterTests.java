@@ -0,0 +1,63 @@
+package com.example.ecommerce.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class SqlStatisticsFilterTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final RequestSqlCounter counter = new RequestSqlCounter();
+	private final SqlStatisticsFilter filter = new SqlStatisticsFilter(counter, meterRegistry, true, 3, 60_000);
+
+	@Test
+	void recordsStatementsAndEntitiesPerEndpoint() throws Exception {
+		run("/api/orders/{id}", 2, 5);
+
+		assertEquals(2, summary("http.server.requests.sql.statements", "/api/orders/{id}"));
+		assertEquals(5, summary("http.server.requests.entities.loaded", "/api/orders/{id}"));
+		assertNull(meterRegistry.find("http.server.requests.n_plus_one").counter());
+	}
+
+	@Test
+	void flagsRequestsAboveTheThreshold() throws Exception {
+		run("/api/orders", 3, 3);
+		run("/api/orders", 10, 10);
+		run("/api/orders", 12, 10);
+
+		assertEquals(2, meterRegistry.get("http.server.requests.n_plus_one").tag("uri", "/api/orders").counter().count());
+	}
+
+	@Test
+	void countsNothingOutsideARequest() throws Exception {
+		counter.inspect("select 1");
+		run(null, 1, 0);
+
+		assertEquals(1, summary("http.server.requests.sql.statements", "UNKNOWN"));
+	}
+
+	private void run(String pattern, int statements, int entities) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+		filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+			for (int i = 0; i < statements; i++) {
+				counter.inspect("select 1");
+			}
+			for (int i = 0; i < entities; i++) {
+				counter.onPostLoad(null);
+			}
+			if (pattern != null) {
+				req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+			}
+		});
+	}
+
+	private double summary(String name, String uri) {
+		return meterRegistry.get(name).tag("uri", uri).summary().totalAmount();
+	}
+}
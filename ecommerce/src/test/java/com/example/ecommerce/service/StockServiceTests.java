@@ -0,0 +1,142 @@
+package com.example.ecommerce.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.ecommerce.repository.OrderItemRepository;
+import com.example.ecommerce.repository.ProductRepository;
+import com.example.ecommerce.repository.StockLine;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// stock.reservations=database: reservations are guarded updates on products.stock
+class StockServiceTests {
+
+	private final OrderItemRepository orderItemRepository = mock(OrderItemRepository.class);
+
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void setUp() {
+		DriverManagerDataSource dataSource =
+				new DriverManagerDataSource("jdbc:h2:mem:stock-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1", "sa", "");
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("CREATE TABLE products (id INT PRIMARY KEY, stock INT)");
+		jdbcTemplate.update("INSERT INTO products VALUES (1, 10), (2, 1), (3, NULL)");
+	}
+
+	@Test
+	void instancesSharingTheDatabaseNeverSellMoreThanTheStock() throws Exception {
+		List<StockService> nodes = List.of(stockService(), stockService(), stockService());
+		ExecutorService executor = Executors.newFixedThreadPool(6);
+		List<Future<Boolean>> attempts = new ArrayList<>();
+		for (int i = 0; i < 30; i++) {
+			StockService node = nodes.get(i % nodes.size());
+			attempts.add(executor.submit(() -> {
+				try {
+					node.reserve(Map.of(1, 1));
+					return true;
+				} catch (RuntimeException e) {
+					return false;
+				}
+			}));
+		}
+		int sold = 0;
+		for (Future<Boolean> attempt : attempts) {
+			sold += attempt.get(5, TimeUnit.SECONDS) ? 1 : 0;
+		}
+		executor.shutdown();
+
+		assertEquals(10, sold);
+		assertEquals(0, stock(1));
+	}
+
+	@Test
+	void shortLinePutsTheOtherUnitsBack() {
+		StockService service = stockService();
+
+		assertThrows(RuntimeException.class, () -> service.reserve(Map.of(1, 4, 2, 2)));
+
+		assertEquals(10, stock(1));
+		assertEquals(1, stock(2));
+	}
+
+	@Test
+	void untrackedProductsAreNotReserved() {
+		StockService service = stockService();
+
+		service.reserve(Map.of(1, 2, 3, 100));
+
+		assertEquals(8, stock(1));
+		assertNull(stock(3));
+	}
+
+	@Test
+	void releasedOrdersGiveTheirUnitsBack() {
+		StockService service = stockService();
+		service.reserve(Map.of(1, 3, 2, 1));
+		when(orderItemRepository.sumQuantityByOrderIdInAndStatus(List.of(7), "EXPIRED"))
+				.thenReturn(List.of(line(1, 3), line(2, 1)));
+
+		service.releaseOrders(List.of(7), "EXPIRED");
+
+		assertEquals(10, stock(1));
+		assertEquals(1, stock(2));
+	}
+
+	@Test
+	void soldUnitsStayTakenUntilTheOrderIsCancelled() {
+		StockService service = stockService();
+		service.reserve(Map.of(1, 3));
+
+		service.onStatusChange(Map.of(1, 3), "CREATED", "PAID");
+		service.commitOrders(List.of(7), "PAID");
+		service.flush();
+		assertEquals(7, stock(1));
+
+		service.onStatusChange(Map.of(1, 3), "PAID", "CANCELLED");
+		assertEquals(10, stock(1));
+	}
+
+	private StockService stockService() {
+		StockService service = new StockService(mock(ProductRepository.class), orderItemRepository, jdbcTemplate,
+				mock(ShardTemplate.class), new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(service, "reservations", "database");
+		return service;
+	}
+
+	private Integer stock(int productId) {
+		return jdbcTemplate.queryForObject("SELECT stock FROM products WHERE id = ?", Integer.class, productId);
+	}
+
+	private static StockLine line(int productId, int quantity) {
+		return new StockLine() {
+			@Override
+			public Integer getProductId() {
+				return productId;
+			}
+
+			@Override
+			public Number getQuantity() {
+				return quantity;
+			}
+		};
+	}
+}
@@ -0,0 +1,45 @@
+package com.example.ecommerce.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class StripedStockCounterTests {
+
+	@Test
+	void reservesAcrossStripesWhenNoSingleStripeHasEnough() {
+		StripedStockCounter counter = new StripedStockCounter(10, 4);
+
+		assertTrue(counter.tryReserve(7));
+		assertEquals(3, counter.available());
+		assertFalse(counter.tryReserve(4));
+		assertEquals(3, counter.available());
+	}
+
+	@Test
+	void neverOversellsUnderContention() throws InterruptedException {
+		StripedStockCounter counter = new StripedStockCounter(1000, 8);
+		AtomicInteger sold = new AtomicInteger();
+		ExecutorService pool = Executors.newFixedThreadPool(16);
+		for (int i = 0; i < 5000; i++) {
+			int quantity = 1 + (i % 3);
+			pool.execute(() -> {
+				if (counter.tryReserve(quantity)) {
+					sold.addAndGet(quantity);
+				}
+			});
+		}
+		pool.shutdown();
+		assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+		assertEquals(1000, sold.get() + counter.available());
+		assertTrue(counter.available() < 3);
+	}
+}
@@ -0,0 +1,58 @@
+package com.example.ecommerce.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class TokenBucketsTests {
+
+	private static final long SECOND = 1_000_000_000L;
+
+	@Test
+	void allowsBurstThenRefillRate() {
+		TokenBuckets buckets = new TokenBuckets(100);
+		long now = 0;
+		for (int i = 0; i < 5; i++) {
+			assertEquals(0, buckets.tryAcquire("ip1", 5, 1, now));
+		}
+		long wait = buckets.tryAcquire("ip1", 5, 1, now);
+		assertTrue(wait > 0 && wait <= SECOND, "wait " + wait);
+
+		// One token back after a second, and other keys are unaffected
+		assertEquals(0, buckets.tryAcquire("ip1", 5, 1, now + SECOND));
+		assertTrue(buckets.tryAcquire("ip1", 5, 1, now + SECOND) > 0);
+		assertEquals(0, buckets.tryAcquire("ip2", 5, 1, now));
+	}
+
+	@Test
+	void concurrentCallersNeverExceedCapacity() throws Exception {
+		TokenBuckets buckets = new TokenBuckets(100);
+		AtomicInteger granted = new AtomicInteger();
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		for (int i = 0; i < 1000; i++) {
+			pool.submit(() -> {
+				if (buckets.tryAcquire("user", 50, 0.001, 0) == 0) {
+					granted.incrementAndGet();
+				}
+			});
+		}
+		pool.shutdown();
+		assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+		assertEquals(50, granted.get());
+	}
+
+	@Test
+	void staysBoundedByDroppingIdleBuckets() {
+		TokenBuckets buckets = new TokenBuckets(10);
+		for (int i = 0; i < 100; i++) {
+			buckets.tryAcquire("ip" + i, 5, 1, i * SECOND);
+		}
+		assertTrue(buckets.size() <= 10, "size " + buckets.size());
+	}
+}
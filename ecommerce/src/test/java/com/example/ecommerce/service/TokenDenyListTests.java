@@ -0,0 +1,90 @@
+package com.example.ecommerce.service;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.ecommerce.entity.RevokedToken;
+import com.example.ecommerce.repository.RevokedTokenRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class TokenDenyListTests {
+
+	private final RevokedTokenRepository repository = mock(RevokedTokenRepository.class);
+
+	@Test
+	void deniesRevokedTokensOnly() {
+		TokenDenyList denyList = denyList();
+		denyList.deny("jti-1", inOneMinute());
+
+		assertTrue(denyList.isDenied("jti-1"));
+		assertFalse(denyList.isDenied("jti-2"));
+		assertFalse(denyList.isDenied(null));
+	}
+
+	@Test
+	void picksUpRevocationsFromOtherNodes() {
+		TokenDenyList denyList = denyList();
+		RevokedToken row = new RevokedToken("jti-remote", inOneMinute());
+		row.setId(42L);
+		when(repository.findByIdGreaterThanAndExpiresAtAfterOrderByIdAsc(eq(0L), any())).thenReturn(List.of(row));
+
+		denyList.sync();
+
+		assertTrue(denyList.isDenied("jti-remote"));
+	}
+
+	@Test
+	void rebuildForgetsExpiredTokens() {
+		TokenDenyList denyList = denyList();
+		denyList.deny("jti-live", inOneMinute());
+		@SuppressWarnings("unchecked")
+		Map<String, Long> revoked = (Map<String, Long>) ReflectionTestUtils.getField(denyList, "revoked");
+		revoked.put("jti-expired", System.currentTimeMillis() - 1000);
+
+		denyList.rebuild();
+
+		assertTrue(denyList.isDenied("jti-live"));
+		assertFalse(denyList.isDenied("jti-expired"));
+	}
+
+	@Test
+	void bloomFilterHasNoFalseNegativesAndFewFalsePositives() {
+		BloomFilter filter = new BloomFilter(10_000, 0.01);
+		for (int i = 0; i < 10_000; i++) {
+			filter.put("revoked-" + i);
+		}
+		int falsePositives = 0;
+		for (int i = 0; i < 10_000; i++) {
+			assertTrue(filter.mightContain("revoked-" + i));
+			if (filter.mightContain(UUID.randomUUID().toString())) {
+				falsePositives++;
+			}
+		}
+		assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+	}
+
+	private TokenDenyList denyList() {
+		when(repository.findByIdGreaterThanAndExpiresAtAfterOrderByIdAsc(anyLong(), any())).thenReturn(List.of());
+		TokenDenyList denyList = new TokenDenyList(repository, new SimpleMeterRegistry());
+		denyList.load();
+		return denyList;
+	}
+
+	private static Date inOneMinute() {
+		return new Date(System.currentTimeMillis() + 60_000);
+	}
+}
@@ -0,0 +1,120 @@
+package com.example.ecommerce.service;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import com.example.ecommerce.entity.User;
+import com.example.ecommerce.entity.UserClaimsChange;
+import com.example.ecommerce.repository.UserClaimsChangeRepository;
+import com.example.ecommerce.repository.UserRepository;
+
+class UserCacheTests {
+
+	private final UserRepository userRepository = mock(UserRepository.class);
+	private final UserClaimsChangeRepository repository = mock(UserClaimsChangeRepository.class);
+
+	@Test
+	void evictMarksOlderTokensStaleAndSharesTheMarker() {
+		UserCache cache = userCache();
+		Date issuedBefore = new Date(System.currentTimeMillis() - 5_000);
+
+		cache.evict(7L);
+
+		assertTrue(cache.isStale(7L, issuedBefore));
+		assertFalse(cache.isStale(7L, new Date(System.currentTimeMillis() + 1_000)));
+		assertFalse(cache.isStale(8L, issuedBefore));
+		verify(repository).save(argThat(change -> change.getUserId().equals(7L)));
+	}
+
+	@Test
+	void picksUpChangesFromOtherNodes() {
+		UserCache cache = userCache();
+		User user = new User();
+		user.setId(7L);
+		when(userRepository.findById(7L)).thenReturn(Optional.of(user));
+		cache.get(7L);
+		Date issuedAt = new Date(System.currentTimeMillis() - 5_000);
+		UserClaimsChange row = new UserClaimsChange(7L, new Date());
+		row.setId(42L);
+		when(repository.findByIdGreaterThanAndChangedAtAfterOrderByIdAsc(eq(0L), any())).thenReturn(List.of(row));
+
+		cache.sync();
+
+		assertTrue(cache.isStale(7L, issuedAt));
+		// The cached row was dropped with the change
+		cache.get(7L);
+		verify(userRepository, times(2)).findById(7L);
+		// Next sync continues after the last row seen
+		cache.sync();
+		verify(repository).findByIdGreaterThanAndChangedAtAfterOrderByIdAsc(eq(42L), any());
+	}
+
+	@Test
+	void olderChangeFromAnotherNodeDoesNotUndoANewerOne() {
+		UserCache cache = userCache();
+		cache.evict(7L);
+		UserClaimsChange older = new UserClaimsChange(7L, new Date(System.currentTimeMillis() - 60_000));
+		older.setId(1L);
+		when(repository.findByIdGreaterThanAndChangedAtAfterOrderByIdAsc(eq(0L), any())).thenReturn(List.of(older));
+
+		cache.sync();
+
+		assertTrue(cache.isStale(7L, new Date(System.currentTimeMillis() - 5_000)));
+	}
+
+	@Test
+	void markerIsAppliedOnlyWhenTheChangeCommits() {
+		UserCache cache = userCache();
+		Date issuedBefore = new Date(System.currentTimeMillis() - 5_000);
+
+		// Rolled back: tokens stay valid
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			cache.evict(7L);
+			assertFalse(cache.isStale(7L, issuedBefore));
+			TransactionSynchronizationUtils.invokeAfterCompletion(TransactionSynchronizationManager.getSynchronizations(),
+					TransactionSynchronization.STATUS_ROLLED_BACK);
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		assertFalse(cache.isStale(7L, issuedBefore));
+
+		// Committed: older tokens are stale from then on
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			cache.evict(7L);
+			assertFalse(cache.isStale(7L, issuedBefore));
+			TransactionSynchronizationUtils.triggerAfterCommit();
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		assertTrue(cache.isStale(7L, issuedBefore));
+	}
+
+	private UserCache userCache() {
+		when(repository.findByIdGreaterThanAndChangedAtAfterOrderByIdAsc(anyLong(), any())).thenReturn(List.of());
+		UserCache cache = new UserCache(userRepository, repository);
+		ReflectionTestUtils.setField(cache, "ttlSeconds", 300L);
+		ReflectionTestUtils.setField(cache, "maxEntries", 100);
+		cache.load();
+		return cache;
+	}
+}
@@ -0,0 +1,50 @@
+package com.example.ecommerce.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class VirtualThreadPinningMonitorTests {
+
+	private final Object lock = new Object();
+
+	@Test
+	void recordsVirtualThreadBlockedInsideSynchronized() throws Exception {
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		VirtualThreadPinningMonitor monitor = new VirtualThreadPinningMonitor(meterRegistry, 10, 60_000);
+		monitor.start();
+		try {
+			// Pinned: the virtual thread sleeps while holding a monitor
+			Thread.ofVirtual().start(() -> {
+				synchronized (lock) {
+					sleep(100);
+				}
+			}).join();
+			// Not pinned: a virtual thread can unmount while sleeping outside a monitor
+			Thread.ofVirtual().start(() -> sleep(100)).join();
+
+			long deadline = System.currentTimeMillis() + 10_000;
+			while (monitor.pinnedCount() == 0 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(50);
+			}
+			Thread.sleep(500);
+			assertEquals(1, monitor.pinnedCount());
+			assertTrue(meterRegistry.get("jvm.threads.virtual.pinned").timer().max(TimeUnit.MILLISECONDS) >= 90);
+		} finally {
+			monitor.stop();
+		}
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}